@@ -0,0 +1,129 @@
+package io.github.abbassizied.benchmarks;
+
+import io.github.abbassizied.customer_service.domain.Address;
+import io.github.abbassizied.customer_service.kafka.CustomerEvent;
+import io.github.abbassizied.customer_service.kafka.CustomerEventSerializer;
+import io.github.abbassizied.event_schema.EventDeserializer;
+import io.github.abbassizied.event_schema.FileSchemaRegistry;
+import io.github.abbassizied.product_service.kafka.ProductEvent;
+import io.github.abbassizied.product_service.kafka.ProductEventSerializer;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.apache.kafka.common.serialization.Deserializer;
+import org.apache.kafka.common.serialization.Serializer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.kafka.support.serializer.JsonDeserializer;
+import org.springframework.kafka.support.serializer.JsonSerializer;
+
+/**
+ * Serialization of ProductEvent and CustomerEvent as the producers write them and
+ * deserialization as order-service reads them, for both wire formats: {@code json}, the
+ * {@link JsonSerializer}/{@link JsonDeserializer} pair configured before the binary codec
+ * and still read by {@link EventDeserializer}, and {@code binary}, the event-schema codec the
+ * services are configured with now.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EventSerializationBenchmark {
+
+    private static final String PRODUCT_TOPIC = "product-events";
+    private static final String CUSTOMER_TOPIC = "customer-events";
+
+    @Param({"json", "binary"})
+    private String codec;
+
+    private Serializer<ProductEvent> productSerializer;
+    private Deserializer<io.github.abbassizied.order_service.kafka.ProductEvent> productDeserializer;
+    private Serializer<CustomerEvent> customerSerializer;
+    private Deserializer<io.github.abbassizied.order_service.kafka.CustomerEvent> customerDeserializer;
+
+    private ProductEvent productEvent;
+    private CustomerEvent customerEvent;
+    private byte[] productBytes;
+    private byte[] customerBytes;
+
+    @Setup
+    public void configure() throws IOException {
+        // as order-service's consumer factories, with the schemas in a registry directory of this run
+        final String registryDir = Files.createTempDirectory("event-schemas").toString();
+        final Map<String, Object> productConfigs = configs(registryDir,
+                io.github.abbassizied.order_service.kafka.ProductEvent.class);
+        final Map<String, Object> customerConfigs = configs(registryDir,
+                io.github.abbassizied.order_service.kafka.CustomerEvent.class);
+        if ("json".equals(codec)) {
+            productSerializer = new JsonSerializer<>();
+            customerSerializer = new JsonSerializer<>();
+            productDeserializer = new JsonDeserializer<>();
+            customerDeserializer = new JsonDeserializer<>();
+        } else {
+            productSerializer = new ProductEventSerializer();
+            customerSerializer = new CustomerEventSerializer();
+            productDeserializer = new EventDeserializer<>(io.github.abbassizied.order_service.kafka.ProductEvent.SCHEMA);
+            customerDeserializer = new EventDeserializer<>(io.github.abbassizied.order_service.kafka.CustomerEvent.SCHEMA);
+        }
+        productSerializer.configure(productConfigs, false);
+        customerSerializer.configure(customerConfigs, false);
+        productDeserializer.configure(productConfigs, false);
+        customerDeserializer.configure(customerConfigs, false);
+
+        productEvent = new ProductEvent("UPDATED", 42L, "Wireless keyboard", 120, 49.90);
+        customerEvent = new CustomerEvent("UPDATED", 7L, "Jane Doe", "jane.doe@example.com", "+1 555 0100",
+                address("1 Main Street"), address("2 Market Square"), null);
+        productBytes = productSerializer.serialize(PRODUCT_TOPIC, productEvent);
+        customerBytes = customerSerializer.serialize(CUSTOMER_TOPIC, customerEvent);
+    }
+
+    @Benchmark
+    public byte[] serializeProductEvent() {
+        return productSerializer.serialize(PRODUCT_TOPIC, productEvent);
+    }
+
+    @Benchmark
+    public Object deserializeProductEvent() {
+        return productDeserializer.deserialize(PRODUCT_TOPIC, productBytes);
+    }
+
+    @Benchmark
+    public byte[] serializeCustomerEvent() {
+        return customerSerializer.serialize(CUSTOMER_TOPIC, customerEvent);
+    }
+
+    @Benchmark
+    public Object deserializeCustomerEvent() {
+        return customerDeserializer.deserialize(CUSTOMER_TOPIC, customerBytes);
+    }
+
+    private static Map<String, Object> configs(final String registryDir, final Class<?> valueType) {
+        return Map.of(
+                FileSchemaRegistry.DIR_CONFIG, registryDir,
+                JsonDeserializer.VALUE_DEFAULT_TYPE, valueType.getName(),
+                JsonDeserializer.TRUSTED_PACKAGES, "*");
+    }
+
+    private static Address address(final String street) {
+        final Address address = new Address();
+        address.setStreet(street);
+        address.setCity("Springfield");
+        address.setState("IL");
+        address.setPostalCode("62701");
+        address.setCountry("US");
+        return address;
+    }
+
+}
@@ -0,0 +1,143 @@
+package io.github.abbassizied.benchmarks;
+
+import io.github.abbassizied.order_service.kafka.KafkaTopicsConfig;
+import io.github.abbassizied.order_service.kafka.KeyOrderedExecutor;
+import io.github.abbassizied.order_service.kafka.ProductEvent;
+import io.github.abbassizied.order_service.kafka.ProductEventConsumer;
+import io.github.abbassizied.order_service.repos.ProductReplicaRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.AbstractPlatformTransactionManager;
+import org.springframework.transaction.support.DefaultTransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * {@link ProductEventConsumer#onMessage} on 1 to 16 key-ordered worker lanes (app.kafka.replica-workers)
+ * against a simulated slow database: every statement takes {@code statementMicros} plus
+ * {@code rowMicros} per row, as a remote MySQL under load would. Reported in records per
+ * second; polls of 500 records of distinct products, as max-poll-records allows.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class KeyOrderedReplicaBenchmark {
+
+    private static final int RECORDS = 500;
+
+    @Param({"1", "4", "16"})
+    private int workers;
+
+    @Param({"5000"})
+    private long statementMicros;
+
+    @Param({"20"})
+    private long rowMicros;
+
+    private KeyOrderedExecutor workerPool;
+    private ProductEventConsumer consumer;
+    private long offset;
+
+    @Setup
+    public void start() {
+        workerPool = new KeyOrderedExecutor(workers);
+        final KafkaTopicsConfig topics = new KafkaTopicsConfig();
+        topics.setProductEvents("product-events");
+        consumer = new ProductEventConsumer(slowRepository(), Optional.empty(), workerPool,
+                new TransactionTemplate(new NoTransactionManager()), topics, new SimpleMeterRegistry());
+    }
+
+    @TearDown
+    public void stop() {
+        workerPool.shutdown();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(RECORDS)
+    public void onMessage() {
+        consumer.onMessage(poll());
+    }
+
+    private List<ConsumerRecord<String, ProductEvent>> poll() {
+        final List<ConsumerRecord<String, ProductEvent>> records = new ArrayList<>(RECORDS);
+        for (long productId = 1; productId <= RECORDS; productId++) {
+            final ProductEvent event = new ProductEvent();
+            event.setEventType("UPDATED");
+            event.setProductId(productId);
+            event.setName("product " + productId);
+            event.setQuantity((int) (offset % 100));
+            event.setPrice(9.99);
+            records.add(new ConsumerRecord<>("product-events", 0, offset++, String.valueOf(productId), event));
+        }
+        return records;
+    }
+
+    // upsertAll and deleteAllByIdInBatch wait as long as the statement would take, the rest is unused
+    private ProductReplicaRepository slowRepository() {
+        return (ProductReplicaRepository) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[] {ProductReplicaRepository.class}, (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "upsertAll", "deleteAllByIdInBatch" -> {
+                            final int rows = ((Collection<?>) args[0]).size();
+                            LockSupport.parkNanos(TimeUnit.MICROSECONDS.toNanos(statementMicros + rows * rowMicros));
+                            return null;
+                        }
+                        case "hashCode" -> {
+                            return System.identityHashCode(proxy);
+                        }
+                        case "equals" -> {
+                            return proxy == args[0];
+                        }
+                        case "toString" -> {
+                            return "slow ProductReplicaRepository";
+                        }
+                        default -> throw new UnsupportedOperationException(method.getName());
+                    }
+                });
+    }
+
+    private static final class NoTransactionManager extends AbstractPlatformTransactionManager {
+
+        @Override
+        protected Object doGetTransaction() {
+            return new Object();
+        }
+
+        @Override
+        protected void doBegin(final Object transaction, final TransactionDefinition definition) {
+        }
+
+        @Override
+        protected void doCommit(final DefaultTransactionStatus status) {
+        }
+
+        @Override
+        protected void doRollback(final DefaultTransactionStatus status) {
+        }
+
+    }
+
+}
@@ -0,0 +1,58 @@
+package io.github.abbassizied.benchmarks;
+
+import io.github.abbassizied.order_service.config.DomainConfig;
+import io.github.abbassizied.order_service.kafka.KafkaTopicsConfig;
+import io.github.abbassizied.order_service.kafka.KeyOrderedExecutor;
+import io.github.abbassizied.order_service.kafka.ProductEventConsumer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.stream.Stream;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.Banner;
+import org.springframework.boot.SpringBootConfiguration;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.context.ConfigurationPropertiesAutoConfiguration;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceAutoConfiguration;
+import org.springframework.boot.autoconfigure.jdbc.JdbcTemplateAutoConfiguration;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernateJpaAutoConfiguration;
+import org.springframework.boot.autoconfigure.transaction.TransactionAutoConfiguration;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+
+/**
+ * The replica persistence of order-service, as its @DataJpaTest tests set it up: repositories,
+ * transactions and {@link ProductEventConsumer} on the in-memory H2 database of the "test"
+ * profile (see test-support), without web server or Kafka clients.
+ */
+@SpringBootConfiguration
+@ImportAutoConfiguration({ConfigurationPropertiesAutoConfiguration.class, DataSourceAutoConfiguration.class,
+        HibernateJpaAutoConfiguration.class, JdbcTemplateAutoConfiguration.class, TransactionAutoConfiguration.class})
+@Import({DomainConfig.class, KafkaTopicsConfig.class, ProductEventConsumer.class, SimpleMeterRegistry.class})
+public class OrderReplicaContext {
+
+    @Bean(destroyMethod = "shutdown")
+    public KeyOrderedExecutor replicaWorkerPool(@Value("${app.kafka.replica-workers:1}") final int workers) {
+        return new KeyOrderedExecutor(workers);
+    }
+
+    /**
+     * Starts the context; {@code properties} in command line form ({@code --name=value}).
+     */
+    public static ConfigurableApplicationContext start(final String... properties) {
+        final String[] args = Stream.concat(Stream.of(
+                        // only the "test" configuration: the application.yml of every service is on the classpath
+                        "--spring.config.location=classpath:/application-test.yml",
+                        "--app.kafka.topics.product-events=product-events",
+                        // no line per applied batch
+                        "--logging.level.io.github.abbassizied=WARN"),
+                Stream.of(properties)).toArray(String[]::new);
+        return new SpringApplicationBuilder(OrderReplicaContext.class)
+                .web(WebApplicationType.NONE)
+                .bannerMode(Banner.Mode.OFF)
+                .logStartupInfo(false)
+                .run(args);
+    }
+
+}
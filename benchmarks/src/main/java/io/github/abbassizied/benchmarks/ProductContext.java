@@ -0,0 +1,52 @@
+package io.github.abbassizied.benchmarks;
+
+import io.github.abbassizied.product_service.config.DomainConfig;
+import io.github.abbassizied.product_service.service.ProductCatalogCache;
+import io.github.abbassizied.product_service.service.ProductNameIndex;
+import io.github.abbassizied.product_service.service.ProductService;
+import io.github.abbassizied.product_service.service.StockAdjustmentBuffer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.stream.Stream;
+import org.springframework.boot.Banner;
+import org.springframework.boot.SpringBootConfiguration;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceAutoConfiguration;
+import org.springframework.boot.autoconfigure.jdbc.JdbcTemplateAutoConfiguration;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernateJpaAutoConfiguration;
+import org.springframework.boot.autoconfigure.transaction.TransactionAutoConfiguration;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Import;
+
+/**
+ * The product write path of product-service, as its @DataJpaTest tests set it up:
+ * {@link ProductService} and {@link StockAdjustmentBuffer} on the in-memory H2 database of the
+ * "test" profile (see test-support), without web server, outbox relay or Kafka clients.
+ */
+@SpringBootConfiguration
+@ImportAutoConfiguration({DataSourceAutoConfiguration.class, HibernateJpaAutoConfiguration.class,
+        JdbcTemplateAutoConfiguration.class, TransactionAutoConfiguration.class})
+@Import({DomainConfig.class, ProductService.class, ProductCatalogCache.class, ProductNameIndex.class,
+        StockAdjustmentBuffer.class, SimpleMeterRegistry.class})
+public class ProductContext {
+
+    /**
+     * Starts the context; {@code properties} in command line form ({@code --name=value}).
+     */
+    public static ConfigurableApplicationContext start(final String... properties) {
+        final String[] args = Stream.concat(Stream.of(
+                        // only the "test" configuration: the application.yml of every service is on the classpath
+                        "--spring.config.location=classpath:/application-test.yml",
+                        // nothing follows product-events here, name searches stay on SQL
+                        "--app.product-search.follow-timeout-ms=0",
+                        "--logging.level.io.github.abbassizied=ERROR"),
+                Stream.of(properties)).toArray(String[]::new);
+        return new SpringApplicationBuilder(ProductContext.class)
+                .web(WebApplicationType.NONE)
+                .bannerMode(Banner.Mode.OFF)
+                .logStartupInfo(false)
+                .run(args);
+    }
+
+}
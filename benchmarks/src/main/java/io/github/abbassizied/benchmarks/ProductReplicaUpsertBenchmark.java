@@ -0,0 +1,100 @@
+package io.github.abbassizied.benchmarks;
+
+import io.github.abbassizied.order_service.domain.ProductReplica;
+import io.github.abbassizied.order_service.kafka.ProductEvent;
+import io.github.abbassizied.order_service.kafka.ProductEventConsumer;
+import io.github.abbassizied.order_service.repos.ProductReplicaRepository;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Polls of product-events written to the replica table on H2, reported in records per second:
+ * {@code onMessage} through the batch listener {@link ProductEventConsumer#onMessage},
+ * {@code perRecord} the way the listener applied records before, each with a findById and a
+ * save in a transaction of its own. Every poll updates the same products with newer offsets,
+ * so every row is written.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ProductReplicaUpsertBenchmark {
+
+    private static final int RECORDS = 500;
+
+    private ConfigurableApplicationContext context;
+    private ProductEventConsumer consumer;
+    private ProductReplicaRepository repository;
+    private TransactionTemplate transactionTemplate;
+    private long offset;
+
+    @Setup
+    public void start() {
+        context = OrderReplicaContext.start();
+        consumer = context.getBean(ProductEventConsumer.class);
+        repository = context.getBean(ProductReplicaRepository.class);
+        transactionTemplate = context.getBean(TransactionTemplate.class);
+    }
+
+    @TearDown
+    public void stop() {
+        context.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(RECORDS)
+    public void onMessage() {
+        consumer.onMessage(poll());
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(RECORDS)
+    public void perRecord() {
+        for (ConsumerRecord<String, ProductEvent> record : poll()) {
+            final ProductEvent event = record.value();
+            transactionTemplate.executeWithoutResult(status -> {
+                final ProductReplica replica = repository.findById(event.getProductId())
+                        .orElseGet(ProductReplica::new);
+                replica.setId(event.getProductId());
+                replica.setName(event.getName());
+                replica.setQuantity(event.getQuantity());
+                replica.setPrice(event.getPrice());
+                replica.setSourceOffset(record.offset());
+                repository.save(replica);
+            });
+        }
+    }
+
+    private List<ConsumerRecord<String, ProductEvent>> poll() {
+        final List<ConsumerRecord<String, ProductEvent>> records = new ArrayList<>(RECORDS);
+        for (long productId = 1; productId <= RECORDS; productId++) {
+            final ProductEvent event = new ProductEvent();
+            event.setEventType("UPDATED");
+            event.setProductId(productId);
+            event.setName("product " + productId);
+            event.setQuantity((int) (offset % 100));
+            event.setPrice(9.99);
+            records.add(new ConsumerRecord<>("product-events", 0, offset++, String.valueOf(productId), event));
+        }
+        return records;
+    }
+
+}
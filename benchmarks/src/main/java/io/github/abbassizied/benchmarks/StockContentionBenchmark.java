@@ -0,0 +1,125 @@
+package io.github.abbassizied.benchmarks;
+
+import io.github.abbassizied.product_service.model.ProductDTO;
+import io.github.abbassizied.product_service.repos.ProductRepository;
+import io.github.abbassizied.product_service.service.ProductService;
+import io.github.abbassizied.product_service.service.StockAdjustmentBuffer;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+/**
+ * Concurrent decrements of a few hot products, each by one unit: {@code put} as a client of
+ * {@code PUT /api/products/{id}} does it (read the product, write it back with the new
+ * quantity), {@code adjust} through {@link StockAdjustmentBuffer} as {@code POST
+ * /api/products/{id}/stock} does, flushed every app.stock.flush-interval-ms meanwhile.
+ * <p>
+ * After every iteration the decrements missing from the stored quantities are printed: the
+ * read-modify-write of {@code put} loses those of concurrent writers, the buffer none.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(8)
+@Fork(1)
+public class StockContentionBenchmark {
+
+    private static final int STOCK = 1_000_000_000;
+
+    @Param({"1", "8"})
+    private int products;
+
+    private ConfigurableApplicationContext context;
+    private ProductService productService;
+    private StockAdjustmentBuffer buffer;
+    private ProductRepository productRepository;
+    private long[] ids;
+    private final LongAdder decrements = new LongAdder();
+
+    @Setup
+    public void start() {
+        context = ProductContext.start();
+        productService = context.getBean(ProductService.class);
+        buffer = context.getBean(StockAdjustmentBuffer.class);
+        productRepository = context.getBean(ProductRepository.class);
+        ids = new long[products];
+        for (int i = 0; i < products; i++) {
+            final ProductDTO productDTO = new ProductDTO();
+            productDTO.setName("hot product " + i);
+            productDTO.setQuantity(STOCK);
+            productDTO.setPrice(9.99);
+            ids[i] = productService.create(productDTO);
+        }
+    }
+
+    @TearDown
+    public void stop() {
+        context.close();
+    }
+
+    @Setup(Level.Iteration)
+    public void resetStock() {
+        buffer.flush();
+        for (long id : ids) {
+            final ProductDTO productDTO = productService.get(id);
+            productService.update(id, copy(productDTO, STOCK));
+        }
+        decrements.reset();
+    }
+
+    @TearDown(Level.Iteration)
+    public void countLostDecrements() {
+        buffer.flush();
+        long stored = 0;
+        for (long id : ids) {
+            stored += STOCK - productRepository.findQuantityById(id).orElseThrow();
+        }
+        System.out.printf("%n%d decrements, %d lost%n", decrements.sum(), decrements.sum() - stored);
+    }
+
+    @Benchmark
+    public void put() {
+        final long id = hotProduct();
+        final ProductDTO productDTO = productService.get(id);
+        productService.update(id, copy(productDTO, productDTO.getQuantity() - 1));
+        decrements.increment();
+    }
+
+    @Benchmark
+    public void adjust() {
+        buffer.adjust(hotProduct(), -1);
+        decrements.increment();
+    }
+
+    private long hotProduct() {
+        return ids[ThreadLocalRandom.current().nextInt(ids.length)];
+    }
+
+    // the cached DTO is shared, the client's copy is not
+    private static ProductDTO copy(final ProductDTO productDTO, final int quantity) {
+        final ProductDTO copy = new ProductDTO();
+        copy.setId(productDTO.getId());
+        copy.setName(productDTO.getName());
+        copy.setQuantity(quantity);
+        copy.setPrice(productDTO.getPrice());
+        return copy;
+    }
+
+}
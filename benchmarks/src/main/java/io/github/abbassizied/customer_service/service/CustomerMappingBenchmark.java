@@ -0,0 +1,67 @@
+package io.github.abbassizied.customer_service.service;
+
+import io.github.abbassizied.customer_service.domain.Address;
+import io.github.abbassizied.customer_service.domain.Customer;
+import io.github.abbassizied.customer_service.model.CustomerDTO;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * {@link CustomerService#mapToDTO} with and without addresses. Lives in the service's package
+ * to reach the package-private mapping method.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CustomerMappingBenchmark {
+
+    @Param({"true", "false"})
+    private boolean addresses;
+
+    // the mapping touches none of the collaborators
+    private final CustomerService customerService = new CustomerService(null, null, null);
+
+    private Customer customer;
+
+    @Setup
+    public void createCustomer() {
+        customer = new Customer();
+        customer.setId(1L);
+        customer.setName("Jane Doe");
+        customer.setEmail("jane.doe@example.com");
+        customer.setPhone("+1 555 0100");
+        if (addresses) {
+            customer.setShippingAddress(address("1 Main Street"));
+            customer.setBillingAddress(address("2 Market Square"));
+        }
+    }
+
+    @Benchmark
+    public CustomerDTO mapToDTO() {
+        return customerService.mapToDTO(customer);
+    }
+
+    private static Address address(final String street) {
+        final Address address = new Address();
+        address.setStreet(street);
+        address.setCity("Springfield");
+        address.setState("IL");
+        address.setPostalCode("62701");
+        address.setCountry("US");
+        return address;
+    }
+
+}
@@ -0,0 +1,80 @@
+package io.github.abbassizied.order_service.service;
+
+import io.github.abbassizied.order_service.domain.CustomerReplica;
+import io.github.abbassizied.order_service.domain.Order;
+import io.github.abbassizied.order_service.domain.OrderItem;
+import io.github.abbassizied.order_service.domain.ProductReplica;
+import io.github.abbassizied.order_service.model.OrderDTO;
+import io.github.abbassizied.order_service.model.OrderStatus;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * {@link OrderService#mapToDTO(Order, java.util.Collection)} and
+ * {@link OrderService#mapOrderItemToDTO} on orders of increasing size. Lives in the service's
+ * package to reach the package-private mapping methods.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class OrderMappingBenchmark {
+
+    @Param({"10", "1000", "10000"})
+    private int items;
+
+    // the mapping touches none of the collaborators
+    private final OrderService orderService = new OrderService(null, null, null, null, null, null, null, 500);
+
+    private Order order;
+    private List<OrderItem> orderItems;
+
+    @Setup
+    public void createOrder() {
+        final CustomerReplica customer = new CustomerReplica();
+        customer.setId(1L);
+        order = new Order();
+        order.setId(1L);
+        order.setStatus(OrderStatus.CREATED);
+        order.setCustomer(customer);
+        orderItems = new ArrayList<>(items);
+        for (int i = 0; i < items; i++) {
+            final ProductReplica product = new ProductReplica();
+            product.setId((long) i);
+            final OrderItem orderItem = new OrderItem();
+            orderItem.setId((long) i);
+            orderItem.setQuantity(1 + i % 5);
+            orderItem.setOrder(order);
+            orderItem.setProduct(product);
+            orderItems.add(orderItem);
+        }
+    }
+
+    @Benchmark
+    public OrderDTO mapToDTO() {
+        return orderService.mapToDTO(order, orderItems);
+    }
+
+    @Benchmark
+    public void mapOrderItemToDTO(final Blackhole blackhole) {
+        for (OrderItem orderItem : orderItems) {
+            blackhole.consume(orderService.mapOrderItemToDTO(orderItem));
+        }
+    }
+
+}
@@ -2,9 +2,11 @@ package io.github.abbassizied.customer_service;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 
 @SpringBootApplication
+@EnableScheduling
 public class CustomerServiceApplication {
 
     public static void main(final String[] args) {
@@ -9,7 +9,10 @@ import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
 import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
 import java.time.OffsetDateTime;
+import java.util.Locale;
+import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.Setter;
 import org.springframework.data.annotation.CreatedDate;
@@ -17,12 +20,23 @@ import org.springframework.data.annotation.LastModifiedDate;
 import org.springframework.data.jpa.domain.support.AuditingEntityListener;
 
 @Entity
-@Table(name = "Customers")
+// named, so a violation can be told apart from other integrity errors (see CustomerService)
+@Table(name = "Customers", uniqueConstraints = {
+        @UniqueConstraint(name = Customer.EMAIL_UNIQUE, columnNames = "email"),
+        @UniqueConstraint(name = Customer.PHONE_UNIQUE, columnNames = "phone"),
+        @UniqueConstraint(name = Customer.EMAIL_NORMALIZED_UNIQUE, columnNames = "email_normalized"),
+        @UniqueConstraint(name = Customer.PHONE_NORMALIZED_UNIQUE, columnNames = "phone_normalized")
+})
 @EntityListeners(AuditingEntityListener.class)
 @Getter
 @Setter
 public class Customer {
 
+    public static final String EMAIL_UNIQUE = "uk_customers_email";
+    public static final String PHONE_UNIQUE = "uk_customers_phone";
+    public static final String EMAIL_NORMALIZED_UNIQUE = "uk_customers_email_normalized";
+    public static final String PHONE_NORMALIZED_UNIQUE = "uk_customers_phone_normalized";
+
     @Id
     @Column(nullable = false, updatable = false)
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -31,12 +45,21 @@ public class Customer {
     @Column(nullable = false)
     private String name;
 
-    @Column(nullable = false, unique = true)
+    @Column(nullable = false)
     private String email;
 
-    @Column(nullable = false, unique = true)
+    @Column(nullable = false)
     private String phone;
 
+    // lookup keys for the uniqueness checks, derived by setEmail / setPhone
+    @Column
+    @Setter(AccessLevel.NONE)
+    private String emailNormalized;
+
+    @Column
+    @Setter(AccessLevel.NONE)
+    private String phoneNormalized;
+
     @Embedded
     @AttributeOverride(name = "street", column = @Column(name = "shipping_street"))
     @AttributeOverride(name = "city", column = @Column(name = "shipping_city"))
@@ -53,6 +76,14 @@ public class Customer {
     @AttributeOverride(name = "country", column = @Column(name = "billing_country"))
     private Address billingAddress;
 
+    // a PATCHED event was published since the last full snapshot, see CustomerSnapshotPublisher
+    @Column
+    private Boolean snapshotPending;
+
+    // when snapshotPending was last set, bounds how long a customer that keeps changing waits for its snapshot
+    @Column
+    private OffsetDateTime snapshotPendingSince;
+
     @CreatedDate
     @Column(nullable = false, updatable = false)
     private OffsetDateTime dateCreated;
@@ -61,4 +92,22 @@ public class Customer {
     @Column(nullable = false)
     private OffsetDateTime lastUpdated;
 
+    public void setEmail(final String email) {
+        this.email = email;
+        this.emailNormalized = normalize(email);
+    }
+
+    public void setPhone(final String phone) {
+        this.phone = phone;
+        this.phoneNormalized = normalize(phone);
+    }
+
+    /**
+     * The form email and phone are compared in: trimmed and lower-cased, so a plain equality
+     * lookup can use the unique index.
+     */
+    public static String normalize(final String value) {
+        return value == null ? null : value.strip().toLowerCase(Locale.ROOT);
+    }
+
 }
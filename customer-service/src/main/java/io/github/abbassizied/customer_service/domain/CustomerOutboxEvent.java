@@ -0,0 +1,74 @@
+package io.github.abbassizied.customer_service.domain;
+
+import jakarta.persistence.AttributeOverride;
+import jakarta.persistence.Column;
+import jakarta.persistence.Embedded;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EntityListeners;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import java.time.OffsetDateTime;
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.data.annotation.CreatedDate;
+import org.springframework.data.jpa.domain.support.AuditingEntityListener;
+
+
+/**
+ * A CustomerEvent waiting to be published, written in the same transaction as the
+ * {@link Customer} change it describes. DELETED rows are published as tombstones.
+ */
+@Entity
+@Table(name = "CustomerOutbox")
+@EntityListeners(AuditingEntityListener.class)
+@Getter
+@Setter
+public class CustomerOutboxEvent {
+
+    @Id
+    @Column(nullable = false, updatable = false)
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private String eventType;
+
+    @Column(nullable = false)
+    private Long customerId;
+
+    @Column
+    private String name;
+
+    @Column
+    private String email;
+
+    @Column
+    private String phone;
+
+    @Embedded
+    @AttributeOverride(name = "street", column = @Column(name = "shipping_street"))
+    @AttributeOverride(name = "city", column = @Column(name = "shipping_city"))
+    @AttributeOverride(name = "state", column = @Column(name = "shipping_state"))
+    @AttributeOverride(name = "postalCode", column = @Column(name = "shipping_postal_code"))
+    @AttributeOverride(name = "country", column = @Column(name = "shipping_country"))
+    private Address shippingAddress;
+
+    @Embedded
+    @AttributeOverride(name = "street", column = @Column(name = "billing_street"))
+    @AttributeOverride(name = "city", column = @Column(name = "billing_city"))
+    @AttributeOverride(name = "state", column = @Column(name = "billing_state"))
+    @AttributeOverride(name = "postalCode", column = @Column(name = "billing_postal_code"))
+    @AttributeOverride(name = "country", column = @Column(name = "billing_country"))
+    private Address billingAddress;
+
+    // PATCHED only, see the CustomerEvent bits
+    @Column
+    private Integer changedFields;
+
+    @CreatedDate
+    @Column(nullable = false, updatable = false)
+    private OffsetDateTime dateCreated;
+
+}
@@ -0,0 +1,26 @@
+package io.github.abbassizied.customer_service.domain;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.Getter;
+import lombok.Setter;
+
+
+/**
+ * One share of the customer outbox, the events whose {@code customerId % slots} equals the id.
+ * A relay instance publishes a slot only while holding its row lock, so the events of one
+ * customer are never published by two instances at once.
+ */
+@Entity
+@Table(name = "CustomerOutboxSlots")
+@Getter
+@Setter
+public class CustomerOutboxSlot {
+
+    @Id
+    @Column(nullable = false, updatable = false)
+    private Integer id;
+
+}
@@ -0,0 +1,14 @@
+package io.github.abbassizied.customer_service.kafka;
+
+import io.github.abbassizied.event_schema.EventSerializer;
+
+/**
+ * Binary encoding of {@link CustomerEvent} (see {@link io.github.abbassizied.event_schema.EventSchema}).
+ * Selected per topic through DelegatingByTopicSerializer in application.yml.
+ */
+public class CustomerEventSerializer extends EventSerializer<CustomerEvent> {
+
+    public CustomerEventSerializer() {
+        super(CustomerEvent.SCHEMA);
+    }
+}
@@ -0,0 +1,66 @@
+package io.github.abbassizied.customer_service.kafka;
+
+import io.github.abbassizied.customer_service.domain.Customer;
+import io.github.abbassizied.customer_service.domain.CustomerOutboxEvent;
+import io.github.abbassizied.customer_service.repos.CustomerOutboxRepository;
+import org.springframework.stereotype.Component;
+
+/**
+ * Records CustomerEvents in the outbox, in the caller's transaction; {@link CustomerOutboxRelay}
+ * publishes them. Callers write the customer row first, so that its lock orders their event
+ * after any snapshot of the same customer written meanwhile.
+ */
+@Component
+public class CustomerOutbox {
+
+    private final CustomerOutboxRepository outboxRepository;
+
+    public CustomerOutbox(CustomerOutboxRepository outboxRepository) {
+        this.outboxRepository = outboxRepository;
+    }
+
+    /** Full state of the customer; the only kind of record compaction may keep as the latest one. */
+    public void snapshot(String eventType, Customer customer) {
+        final CustomerOutboxEvent outboxEvent = event(eventType, customer.getId());
+        outboxEvent.setName(customer.getName());
+        outboxEvent.setEmail(customer.getEmail());
+        outboxEvent.setPhone(customer.getPhone());
+        outboxEvent.setShippingAddress(customer.getShippingAddress());
+        outboxEvent.setBillingAddress(customer.getBillingAddress());
+        outboxRepository.save(outboxEvent);
+    }
+
+    /** Only the fields flagged in changedFields (see the CustomerEvent bits). */
+    public void patch(Customer customer, int changedFields) {
+        final CustomerOutboxEvent outboxEvent = event("PATCHED", customer.getId());
+        outboxEvent.setChangedFields(changedFields);
+        if ((changedFields & CustomerEvent.NAME) != 0) {
+            outboxEvent.setName(customer.getName());
+        }
+        if ((changedFields & CustomerEvent.EMAIL) != 0) {
+            outboxEvent.setEmail(customer.getEmail());
+        }
+        if ((changedFields & CustomerEvent.PHONE) != 0) {
+            outboxEvent.setPhone(customer.getPhone());
+        }
+        if ((changedFields & CustomerEvent.SHIPPING_ADDRESS) != 0) {
+            outboxEvent.setShippingAddress(customer.getShippingAddress());
+        }
+        if ((changedFields & CustomerEvent.BILLING_ADDRESS) != 0) {
+            outboxEvent.setBillingAddress(customer.getBillingAddress());
+        }
+        outboxRepository.save(outboxEvent);
+    }
+
+    // published as a tombstone, lets compaction drop every record of this customer
+    public void deleted(Long customerId) {
+        outboxRepository.save(event("DELETED", customerId));
+    }
+
+    private static CustomerOutboxEvent event(String eventType, Long customerId) {
+        final CustomerOutboxEvent outboxEvent = new CustomerOutboxEvent();
+        outboxEvent.setEventType(eventType);
+        outboxEvent.setCustomerId(customerId);
+        return outboxEvent;
+    }
+}
@@ -0,0 +1,139 @@
+package io.github.abbassizied.customer_service.kafka;
+
+import io.github.abbassizied.customer_service.domain.CustomerOutboxEvent;
+import io.github.abbassizied.customer_service.domain.CustomerOutboxSlot;
+import io.github.abbassizied.customer_service.repos.CustomerOutboxRepository;
+import io.github.abbassizied.customer_service.repos.CustomerOutboxSlotRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Publishes the customer outbox to Kafka, slot by slot: a slot ({@code customerId % slots}, see
+ * {@link CustomerOutboxSlot}) is relayed only while its row lock is held, so the events of a
+ * customer reach the topic in outbox order even with several instances relaying. A batch is
+ * awaited for at most send-timeout-ms and deleted in the same transaction; a failure rolls it
+ * back for the next round (at-least-once). DELETED rows go out as tombstones.
+ */
+@Component
+public class CustomerOutboxRelay {
+
+    private static final Logger log = LoggerFactory.getLogger(CustomerOutboxRelay.class);
+
+    private final CustomerOutboxRepository outboxRepository;
+    private final CustomerOutboxSlotRepository slotRepository;
+    private final CustomerProducer producer;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+    private final int slots;
+    private final long sendTimeoutMs;
+    private final Counter publishedCounter;
+    private final AtomicLong depth = new AtomicLong();
+
+    public CustomerOutboxRelay(CustomerOutboxRepository outboxRepository, CustomerOutboxSlotRepository slotRepository,
+                              CustomerProducer producer, TransactionTemplate transactionTemplate,
+                              MeterRegistry meterRegistry,
+                              @Value("${app.outbox.batch-size:1000}") int batchSize,
+                              @Value("${app.outbox.slots:4}") int slots,
+                              @Value("${app.outbox.send-timeout-ms:10000}") long sendTimeoutMs) {
+        this.outboxRepository = outboxRepository;
+        this.slotRepository = slotRepository;
+        this.producer = producer;
+        this.transactionTemplate = transactionTemplate;
+        this.batchSize = batchSize;
+        this.slots = slots;
+        this.sendTimeoutMs = sendTimeoutMs;
+        this.publishedCounter = Counter.builder("outbox.relay.published")
+                .description("CustomerEvents published from the outbox")
+                .register(meterRegistry);
+        Gauge.builder("outbox.depth", depth, AtomicLong::get)
+                .description("CustomerEvents waiting in the outbox")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void createSlots() {
+        for (int slot = 0; slot < slots; slot++) {
+            if (slotRepository.existsById(slot)) {
+                continue;
+            }
+            final CustomerOutboxSlot outboxSlot = new CustomerOutboxSlot();
+            outboxSlot.setId(slot);
+            try {
+                slotRepository.save(outboxSlot);
+            } catch (DataIntegrityViolationException e) {
+                // created by another instance meanwhile
+            }
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.outbox.poll-interval-ms:200}")
+    public void relay() {
+        for (int slot = 0; slot < slots; slot++) {
+            relay(slot);
+        }
+    }
+
+    private void relay(final int slot) {
+        try {
+            int published;
+            do {
+                published = transactionTemplate.execute(status -> publishBatch(slot));
+            } while (published == batchSize);
+        } catch (RuntimeException e) {
+            log.warn("Outbox relay of slot {} failed, will retry: {}", slot, e.getMessage());
+        }
+    }
+
+    // counting the table is not free, so the gauge is refreshed on its own, slower schedule
+    @Scheduled(fixedDelayString = "${app.outbox.depth-interval-ms:10000}")
+    public void sampleDepth() {
+        depth.set(outboxRepository.count());
+    }
+
+    private int publishBatch(final int slot) {
+        if (slotRepository.tryLock(slot).isEmpty()) {
+            return 0;
+        }
+        final List<CustomerOutboxEvent> batch = outboxRepository.findNextBatch(slots, slot, batchSize);
+        if (batch.isEmpty()) {
+            return 0;
+        }
+        final CompletableFuture<?>[] sends = batch.stream()
+                .map(this::send)
+                .toArray(CompletableFuture[]::new);
+        // throws if any send failed or is still unacknowledged after the timeout, rolling back the delete below
+        CompletableFuture.allOf(sends).orTimeout(sendTimeoutMs, TimeUnit.MILLISECONDS).join();
+
+        outboxRepository.deleteAllByIdInBatch(batch.stream().map(CustomerOutboxEvent::getId).toList());
+        publishedCounter.increment(batch.size());
+        return batch.size();
+    }
+
+    private CompletableFuture<?> send(final CustomerOutboxEvent outboxEvent) {
+        if ("DELETED".equals(outboxEvent.getEventType())) {
+            return producer.sendTombstone(outboxEvent.getCustomerId());
+        }
+        return producer.sendEvent(new CustomerEvent(
+                outboxEvent.getEventType(),
+                outboxEvent.getCustomerId(),
+                outboxEvent.getName(),
+                outboxEvent.getEmail(),
+                outboxEvent.getPhone(),
+                outboxEvent.getShippingAddress(),
+                outboxEvent.getBillingAddress(),
+                outboxEvent.getChangedFields()));
+    }
+}
@@ -0,0 +1,75 @@
+package io.github.abbassizied.customer_service.kafka;
+
+import io.github.abbassizied.customer_service.domain.Customer;
+import io.github.abbassizied.customer_service.repos.CustomerRepository;
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.List;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Follows PATCHED events with a full snapshot.
+ * <p>
+ * Compaction keeps only the latest record per customerId, so a patch must not stay the
+ * latest one. Customers left unchanged for one interval, or waiting since max-delay for a
+ * snapshot while they keep changing, are locked, written to the outbox in full and unmarked
+ * in one transaction; no Kafka round trip happens under the lock. An update or delete racing
+ * with it waits for the lock, so its patch or tombstone always follows the snapshot in the
+ * outbox. A burst of edits therefore costs several small patches and a single snapshot.
+ */
+@Component
+public class CustomerSnapshotPublisher {
+
+    private static final Logger log = LoggerFactory.getLogger(CustomerSnapshotPublisher.class);
+
+    private final CustomerRepository customerRepository;
+    private final CustomerOutbox outbox;
+    private final TransactionTemplate transactionTemplate;
+    private final Duration interval;
+    private final Duration maxDelay;
+    private final int batchSize;
+
+    public CustomerSnapshotPublisher(CustomerRepository customerRepository, CustomerOutbox outbox,
+                                     TransactionTemplate transactionTemplate,
+                                     @Value("${app.customer-events.snapshot-interval-ms:30000}") long intervalMs,
+                                     @Value("${app.customer-events.snapshot-max-delay-ms:300000}") long maxDelayMs,
+                                     @Value("${app.customer-events.snapshot-batch-size:500}") int batchSize) {
+        this.customerRepository = customerRepository;
+        this.outbox = outbox;
+        this.transactionTemplate = transactionTemplate;
+        this.interval = Duration.ofMillis(intervalMs);
+        this.maxDelay = Duration.ofMillis(maxDelayMs);
+        this.batchSize = batchSize;
+    }
+
+    @Scheduled(fixedDelayString = "${app.customer-events.snapshot-interval-ms:30000}")
+    public void publishPendingSnapshots() {
+        try {
+            int published;
+            do {
+                published = transactionTemplate.execute(status -> publishBatch());
+            } while (published == batchSize);
+        } catch (RuntimeException e) {
+            log.warn("Customer snapshot round failed, will retry: {}", e.getMessage());
+        }
+    }
+
+    private int publishBatch() {
+        final OffsetDateTime now = OffsetDateTime.now();
+        final List<Customer> due = customerRepository.findSnapshotDue(now.minus(interval), now.minus(maxDelay),
+                Limit.of(batchSize));
+        if (due.isEmpty()) {
+            return 0;
+        }
+        due.forEach(customer -> outbox.snapshot("UPDATED", customer));
+        customerRepository.clearSnapshotPending(due.stream().map(Customer::getId).toList());
+        log.info("Queued {} customer snapshots", due.size());
+        return due.size();
+    }
+}
@@ -1,7 +1,10 @@
 package io.github.abbassizied.customer_service.kafka;
 
+import org.apache.kafka.clients.admin.NewTopic;
 import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.config.TopicBuilder;
 import lombok.Getter;
 import lombok.Setter;
 
@@ -11,4 +14,15 @@ import lombok.Setter;
 @Setter
 public class KafkaTopicsConfig {
     private String customerEvents;
+
+    /**
+     * customer-events is keyed by customerId and log-compacted, so it always holds the
+     * latest state of every live customer; DELETED is published as a tombstone.
+     */
+    @Bean
+    public NewTopic customerEventsTopic() {
+        return TopicBuilder.name(customerEvents)
+                .compact()
+                .build();
+    }
 }
@@ -0,0 +1,18 @@
+package io.github.abbassizied.customer_service.repos;
+
+import io.github.abbassizied.customer_service.domain.CustomerOutboxEvent;
+import java.util.List;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+
+public interface CustomerOutboxRepository extends JpaRepository<CustomerOutboxEvent, Long> {
+
+    // Oldest pending events of one outbox slot, see CustomerOutboxSlot
+    @Query(value = "SELECT * FROM customer_outbox WHERE MOD(customer_id, :slots) = :slot ORDER BY id LIMIT :limit",
+            nativeQuery = true)
+    List<CustomerOutboxEvent> findNextBatch(@Param("slots") int slots, @Param("slot") int slot,
+                                            @Param("limit") int limit);
+
+}
@@ -0,0 +1,17 @@
+package io.github.abbassizied.customer_service.repos;
+
+import io.github.abbassizied.customer_service.domain.CustomerOutboxSlot;
+import java.util.List;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+
+public interface CustomerOutboxSlotRepository extends JpaRepository<CustomerOutboxSlot, Integer> {
+
+    // Locks the slot until the end of the transaction; empty when another relay instance holds it
+    @Query(value = "SELECT id FROM customer_outbox_slots WHERE id = :slot FOR UPDATE SKIP LOCKED",
+            nativeQuery = true)
+    List<Integer> tryLock(@Param("slot") int slot);
+
+}
@@ -1,13 +1,42 @@
 package io.github.abbassizied.customer_service.repos;
 
 import io.github.abbassizied.customer_service.domain.Customer;
+import jakarta.persistence.LockModeType;
+import java.time.OffsetDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 
-public interface CustomerRepository extends JpaRepository<Customer, Long> {
+public interface CustomerRepository extends JpaRepository<Customer, Long>, CustomerRepositoryCustom {
 
-    boolean existsByEmailIgnoreCase(String email);
+    // arguments in Customer.normalize form
+    boolean existsByEmailNormalized(String emailNormalized);
 
-    boolean existsByPhoneIgnoreCase(String phone);
+    boolean existsByPhoneNormalized(String phoneNormalized);
+
+    // rows written before the normalized columns existed
+    List<Customer> findByEmailNormalizedIsNullOrPhoneNormalizedIsNull(Limit limit);
+
+    // version only, for conditional GETs
+    @Query("select c.lastUpdated from Customer c where c.id = :id")
+    Optional<OffsetDateTime> findLastUpdatedById(@Param("id") Long id);
+
+    // patched customers quiet since quietSince, or waiting for a snapshot since before pendingSince
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select c from Customer c where c.snapshotPending = true"
+            + " and (c.lastUpdated < :quietSince or c.snapshotPendingSince < :pendingSince) order by c.id")
+    List<Customer> findSnapshotDue(@Param("quietSince") OffsetDateTime quietSince,
+                                   @Param("pendingSince") OffsetDateTime pendingSince, Limit limit);
+
+    @Modifying
+    @Query("update Customer c set c.snapshotPending = false, c.snapshotPendingSince = null where c.id in :ids")
+    void clearSnapshotPending(@Param("ids") Collection<Long> ids);
 
 }
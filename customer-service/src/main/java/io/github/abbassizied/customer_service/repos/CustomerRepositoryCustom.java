@@ -0,0 +1,13 @@
+package io.github.abbassizied.customer_service.repos;
+
+import java.util.function.BiConsumer;
+
+
+public interface CustomerRepositoryCustom {
+
+    /**
+     * Passes the normalized email and phone of every customer to the consumer.
+     */
+    void forEachNormalizedContact(BiConsumer<String, String> consumer);
+
+}
@@ -0,0 +1,23 @@
+package io.github.abbassizied.customer_service.repos;
+
+import java.util.function.BiConsumer;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+
+
+public class CustomerRepositoryCustomImpl implements CustomerRepositoryCustom {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public CustomerRepositoryCustomImpl(final JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public void forEachNormalizedContact(final BiConsumer<String, String> consumer) {
+        jdbcTemplate.query("SELECT email_normalized, phone_normalized FROM customers",
+                (RowCallbackHandler) rs -> consumer.accept(rs.getString("email_normalized"),
+                        rs.getString("phone_normalized")));
+    }
+
+}
@@ -15,6 +15,7 @@ import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
 
 
 @RestController
@@ -33,8 +34,14 @@ public class CustomerResource {
     }
 
     @GetMapping("/{id}")
-    public ResponseEntity<CustomerDTO> getCustomer(@PathVariable(name = "id") final Long id) {
-        return ResponseEntity.ok(customerService.get(id));
+    public ResponseEntity<CustomerDTO> getCustomer(@PathVariable(name = "id") final Long id,
+            final WebRequest request) {
+        // unchanged since the client's copy: 304 without loading or serializing it
+        final String eTag = customerService.getETag(id);
+        if (request.checkNotModified(eTag)) {
+            return null;
+        }
+        return ResponseEntity.ok().eTag(eTag).body(customerService.get(id));
     }
 
     @PostMapping
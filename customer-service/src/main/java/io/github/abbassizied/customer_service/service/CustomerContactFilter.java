@@ -0,0 +1,202 @@
+package io.github.abbassizied.customer_service.service;
+
+import io.github.abbassizied.customer_service.domain.Customer;
+import io.github.abbassizied.customer_service.repos.CustomerRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLongArray;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Bloom filters over the normalized emails and phones in use, so most uniqueness checks
+ * are answered without a query.
+ * <p>
+ * Customers stored before the normalized columns existed are backfilled before the
+ * application serves requests, since the lookups cannot see them otherwise; a failed
+ * backfill fails startup. The filters are built once the application is ready; until then
+ * every check goes to the database. Values are added before the write that stores them,
+ * so the filters never miss a committed value of this instance (a rollback only leaves a
+ * false positive behind, as do deletes and changed values). Writes made by other
+ * customer-service instances are not seen; the unique constraints on the normalized
+ * columns remain the final guard, answered with 409 by CustomerService. Checks are counted as
+ * {@code customer.contact.checks} with {@code field} and {@code result=skipped|queried}.
+ */
+@Component
+public class CustomerContactFilter implements SmartInitializingSingleton {
+
+    private static final Logger log = LoggerFactory.getLogger(CustomerContactFilter.class);
+    private static final int BACKFILL_BATCH_SIZE = 500;
+
+    private final CustomerRepository customerRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final BloomFilter emails;
+    private final BloomFilter phones;
+    private final Counter emailSkipped;
+    private final Counter emailQueried;
+    private final Counter phoneSkipped;
+    private final Counter phoneQueried;
+    private volatile boolean ready;
+
+    public CustomerContactFilter(final CustomerRepository customerRepository,
+                                 final TransactionTemplate transactionTemplate,
+                                 final MeterRegistry meterRegistry,
+                                 @Value("${app.customer-contacts.expected-customers:1000000}") final long expected,
+                                 @Value("${app.customer-contacts.false-positive-rate:0.01}") final double fpp) {
+        this.customerRepository = customerRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.emails = new BloomFilter(expected, fpp);
+        this.phones = new BloomFilter(expected, fpp);
+        this.emailSkipped = checks(meterRegistry, "email", "skipped");
+        this.emailQueried = checks(meterRegistry, "email", "queried");
+        this.phoneSkipped = checks(meterRegistry, "phone", "skipped");
+        this.phoneQueried = checks(meterRegistry, "phone", "queried");
+    }
+
+    private static Counter checks(final MeterRegistry meterRegistry, final String field, final String result) {
+        return Counter.builder("customer.contact.checks")
+                .description("Uniqueness checks, by whether the Bloom filter ruled out a query")
+                .tag("field", field)
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    // before the web server starts, so no lookup runs against rows without normalized values
+    @Override
+    public void afterSingletonsInstantiated() {
+        final long start = System.nanoTime();
+        final long updated = backfill();
+        if (updated > 0) {
+            log.info("Backfilled normalized contacts of {} customers in {} ms",
+                    updated, (System.nanoTime() - start) / 1_000_000);
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void build() {
+        final long start = System.nanoTime();
+        final long[] count = new long[1];
+        customerRepository.forEachNormalizedContact((email, phone) -> {
+            emails.add(email);
+            phones.add(phone);
+            count[0]++;
+        });
+        ready = true;
+        log.info("Built customer contact filters over {} customers in {} ms",
+                count[0], (System.nanoTime() - start) / 1_000_000);
+    }
+
+    // fills email_normalized / phone_normalized of customers stored before they existed
+    private long backfill() {
+        long total = 0;
+        int updated;
+        do {
+            updated = transactionTemplate.execute(status -> {
+                final List<Customer> customers = customerRepository.findByEmailNormalizedIsNullOrPhoneNormalizedIsNull(
+                        Limit.of(BACKFILL_BATCH_SIZE));
+                customers.forEach(customer -> {
+                    customer.setEmail(customer.getEmail());
+                    customer.setPhone(customer.getPhone());
+                    add(customer.getEmailNormalized(), customer.getPhoneNormalized());
+                });
+                return customers.size();
+            });
+            total += updated;
+        } while (updated == BACKFILL_BATCH_SIZE);
+        return total;
+    }
+
+    /**
+     * Records values about to be stored. Arguments in {@link Customer#normalize} form.
+     */
+    public void add(final String emailNormalized, final String phoneNormalized) {
+        emails.add(emailNormalized);
+        phones.add(phoneNormalized);
+    }
+
+    /**
+     * False when no customer has the email; true means it may exist and has to be queried.
+     */
+    public boolean mightHaveEmail(final String emailNormalized) {
+        return record(ready && !emails.mightContain(emailNormalized), emailSkipped, emailQueried);
+    }
+
+    public boolean mightHavePhone(final String phoneNormalized) {
+        return record(ready && !phones.mightContain(phoneNormalized), phoneSkipped, phoneQueried);
+    }
+
+    private static boolean record(final boolean absent, final Counter skipped, final Counter queried) {
+        (absent ? skipped : queried).increment();
+        return !absent;
+    }
+
+    // bit set with k probes derived from one 64-bit hash (Kirsch-Mitzenmacher)
+    private static final class BloomFilter {
+
+        private final AtomicLongArray words;
+        private final long bitCount;
+        private final int hashCount;
+
+        BloomFilter(final long expected, final double fpp) {
+            final double ln2 = Math.log(2);
+            this.bitCount = Math.max(Long.SIZE, (long) Math.ceil(-expected * Math.log(fpp) / (ln2 * ln2)));
+            this.hashCount = Math.max(1, (int) Math.round((double) bitCount / expected * ln2));
+            this.words = new AtomicLongArray(Math.toIntExact((bitCount + Long.SIZE - 1) / Long.SIZE));
+        }
+
+        void add(final String value) {
+            if (value == null) {
+                return;
+            }
+            final long hash = hash(value);
+            for (int i = 1; i <= hashCount; i++) {
+                final long bit = probe(hash, i);
+                final int word = (int) (bit >>> 6);
+                final long mask = 1L << bit;
+                if ((words.get(word) & mask) == 0) {
+                    words.getAndAccumulate(word, mask, (current, set) -> current | set);
+                }
+            }
+        }
+
+        boolean mightContain(final String value) {
+            final long hash = hash(value);
+            for (int i = 1; i <= hashCount; i++) {
+                final long bit = probe(hash, i);
+                if ((words.get((int) (bit >>> 6)) & 1L << bit) == 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private long probe(final long hash, final int i) {
+            return Math.floorMod((int) hash + (long) i * (int) (hash >>> 32), bitCount);
+        }
+
+        // FNV-1a over the chars, finished with the MurmurHash3 mixer
+        private static long hash(final String value) {
+            long hash = 0xcbf29ce484222325L;
+            for (int i = 0; i < value.length(); i++) {
+                hash ^= value.charAt(i);
+                hash *= 0x100000001b3L;
+            }
+            hash ^= hash >>> 33;
+            hash *= 0xff51afd7ed558ccdL;
+            hash ^= hash >>> 33;
+            hash *= 0xc4ceb9fe1a85ec53L;
+            hash ^= hash >>> 33;
+            return hash;
+        }
+
+    }
+
+}
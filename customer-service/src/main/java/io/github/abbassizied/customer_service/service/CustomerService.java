@@ -3,26 +3,41 @@ package io.github.abbassizied.customer_service.service;
 import io.github.abbassizied.customer_service.domain.Address;
 import io.github.abbassizied.customer_service.domain.Customer;
 import io.github.abbassizied.customer_service.kafka.CustomerEvent;
-import io.github.abbassizied.customer_service.kafka.CustomerProducer;
+import io.github.abbassizied.customer_service.kafka.CustomerOutbox;
 import io.github.abbassizied.customer_service.model.AddressDTO;
 import io.github.abbassizied.customer_service.model.CustomerDTO;
 import io.github.abbassizied.customer_service.repos.CustomerRepository;
+import io.github.abbassizied.customer_service.util.DuplicateContactException;
 import io.github.abbassizied.customer_service.util.NotFoundException;
+import java.time.Instant;
+import java.time.OffsetDateTime;
 import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import org.hibernate.exception.ConstraintViolationException;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 @Service
+@Transactional
 public class CustomerService {
 
     private final CustomerRepository customerRepository;
-    private final CustomerProducer producer;
+    private final CustomerOutbox outbox;
+    private final CustomerContactFilter contactFilter;
 
-    public CustomerService(CustomerRepository customerRepository, CustomerProducer producer) {
+    public CustomerService(CustomerRepository customerRepository, CustomerOutbox outbox,
+                           CustomerContactFilter contactFilter) {
         this.customerRepository = customerRepository;
-        this.producer = producer;
+        this.outbox = outbox;
+        this.contactFilter = contactFilter;
     }
 
+    @Transactional(readOnly = true)
     public List<CustomerDTO> findAll() {
         final List<Customer> customers = customerRepository.findAll(Sort.by("id"));
         return customers.stream()
@@ -30,27 +45,32 @@ public class CustomerService {
                 .toList();
     }
 
+    @Transactional(readOnly = true)
     public CustomerDTO get(final Long id) {
         return customerRepository.findById(id)
                 .map(this::mapToDTO)
                 .orElseThrow(NotFoundException::new);
     }
 
+    /**
+     * Strong ETag value of the customer, derived from id and lastUpdated without loading it.
+     */
+    @Transactional(readOnly = true)
+    public String getETag(final Long id) {
+        return customerRepository.findLastUpdatedById(id)
+                .map(lastUpdated -> id + "-" + epochMicros(lastUpdated))
+                .orElseThrow(NotFoundException::new);
+    }
+
     public Long create(final CustomerDTO customerDTO) {
         final Customer customer = new Customer();
         mapToEntity(customerDTO, customer);
+        contactFilter.add(customer.getEmailNormalized(), customer.getPhoneNormalized());
         // 1️⃣ Save first so ID and audit fields are generated
-        Customer saved = customerRepository.save(customer);
-
-        // 2️⃣ Publish event with the saved entity
-        producer.sendEvent(new CustomerEvent(
-                "CREATED",
-                saved.getId(),
-                saved.getName(),
-                saved.getEmail(),
-                saved.getPhone(),
-                saved.getShippingAddress() != null ? saved.getShippingAddress() : null,
-                saved.getBillingAddress() != null ? saved.getBillingAddress() : null));
+        Customer saved = writeContacts(() -> customerRepository.save(customer));
+
+        // 2️⃣ Record the event in the outbox, same transaction
+        outbox.snapshot("CREATED", saved);
 
         return saved.getId();
     }
@@ -59,17 +79,20 @@ public class CustomerService {
         final Customer customer = customerRepository.findById(id)
                 .orElseThrow(NotFoundException::new);
 
+        final int changedFields = changedFields(customer, customerDTO);
+        if (changedFields == 0) {
+            return;
+        }
         mapToEntity(customerDTO, customer);
-        Customer updated = customerRepository.save(customer);
+        contactFilter.add(customer.getEmailNormalized(), customer.getPhoneNormalized());
+        if (!Boolean.TRUE.equals(customer.getSnapshotPending())) {
+            customer.setSnapshotPendingSince(OffsetDateTime.now());
+        }
+        customer.setSnapshotPending(true);
+        // flushed before the outbox write: the row lock orders the patch after a concurrent snapshot
+        Customer updated = writeContacts(() -> customerRepository.saveAndFlush(customer));
 
-        producer.sendEvent(new CustomerEvent(
-                "UPDATED",
-                updated.getId(),
-                updated.getName(),
-                updated.getEmail(),
-                updated.getPhone(),
-                updated.getShippingAddress() != null ? updated.getShippingAddress() : null,
-                updated.getBillingAddress() != null ? updated.getBillingAddress() : null));
+        outbox.patch(updated, changedFields);
     }
 
     public void delete(final Long id) {
@@ -77,18 +100,38 @@ public class CustomerService {
                 .orElseThrow(() -> new RuntimeException("Customer not found"));
 
         customerRepository.delete(customer);
+        customerRepository.flush();
+
+        // DELETED is a tombstone on the compacted customer-events topic
+        outbox.deleted(customer.getId());
+    }
+
+    // a duplicate email / phone the uniqueness checks let through (a concurrent write) is a conflict
+    private static Customer writeContacts(final Supplier<Customer> write) {
+        try {
+            return write.get();
+        } catch (DataIntegrityViolationException e) {
+            final String constraint = e.getCause() instanceof ConstraintViolationException violation
+                    && violation.getConstraintName() != null
+                    ? violation.getConstraintName().toLowerCase(Locale.ROOT) : "";
+            // the normalized constraint names extend the raw ones
+            if (constraint.contains(Customer.EMAIL_UNIQUE)) {
+                throw new DuplicateContactException("email already in use");
+            }
+            if (constraint.contains(Customer.PHONE_UNIQUE)) {
+                throw new DuplicateContactException("phone already in use");
+            }
+            throw e;
+        }
+    }
 
-        producer.sendEvent(new CustomerEvent(
-                "DELETED",
-                customer.getId(),
-                customer.getName(),
-                customer.getEmail(),
-                customer.getPhone(),
-                customer.getShippingAddress() != null ? customer.getShippingAddress() : null,
-                customer.getBillingAddress() != null ? customer.getBillingAddress() : null));
+    private static long epochMicros(final OffsetDateTime timestamp) {
+        final Instant instant = timestamp.toInstant();
+        return TimeUnit.SECONDS.toMicros(instant.getEpochSecond()) + instant.getNano() / 1000;
     }
 
-    private CustomerDTO mapToDTO(final Customer customer) {
+    // package-private for the mapping benchmark
+    CustomerDTO mapToDTO(final Customer customer) {
         CustomerDTO customerDTO = new CustomerDTO();
         customerDTO.setId(customer.getId());
         customerDTO.setName(customer.getName());
@@ -112,6 +155,37 @@ public class CustomerService {
         return addressDTO;
     }
 
+    private int changedFields(final Customer customer, final CustomerDTO customerDTO) {
+        int changed = 0;
+        if (!Objects.equals(customer.getName(), customerDTO.getName())) {
+            changed |= CustomerEvent.NAME;
+        }
+        if (!Objects.equals(customer.getEmail(), customerDTO.getEmail())) {
+            changed |= CustomerEvent.EMAIL;
+        }
+        if (!Objects.equals(customer.getPhone(), customerDTO.getPhone())) {
+            changed |= CustomerEvent.PHONE;
+        }
+        if (!sameAddress(customer.getShippingAddress(), customerDTO.getShippingAddress())) {
+            changed |= CustomerEvent.SHIPPING_ADDRESS;
+        }
+        if (!sameAddress(customer.getBillingAddress(), customerDTO.getBillingAddress())) {
+            changed |= CustomerEvent.BILLING_ADDRESS;
+        }
+        return changed;
+    }
+
+    private static boolean sameAddress(final Address address, final AddressDTO addressDTO) {
+        if (address == null || addressDTO == null) {
+            return address == null && addressDTO == null;
+        }
+        return Objects.equals(address.getStreet(), addressDTO.getStreet())
+                && Objects.equals(address.getCity(), addressDTO.getCity())
+                && Objects.equals(address.getState(), addressDTO.getState())
+                && Objects.equals(address.getPostalCode(), addressDTO.getPostalCode())
+                && Objects.equals(address.getCountry(), addressDTO.getCountry());
+    }
+
     private Customer mapToEntity(final CustomerDTO customerDTO, final Customer customer) {
         customer.setName(customerDTO.getName());
         customer.setEmail(customerDTO.getEmail());
@@ -134,11 +208,17 @@ public class CustomerService {
         return address;
     }
 
+    @Transactional(readOnly = true)
     public boolean emailExists(final String email) {
-        return customerRepository.existsByEmailIgnoreCase(email);
+        final String emailNormalized = Customer.normalize(email);
+        return contactFilter.mightHaveEmail(emailNormalized)
+                && customerRepository.existsByEmailNormalized(emailNormalized);
     }
 
+    @Transactional(readOnly = true)
     public boolean phoneExists(final String phone) {
-        return customerRepository.existsByPhoneIgnoreCase(phone);
+        final String phoneNormalized = Customer.normalize(phone);
+        return contactFilter.mightHavePhone(phoneNormalized)
+                && customerRepository.existsByPhoneNormalized(phoneNormalized);
     }
 }
\ No newline at end of file
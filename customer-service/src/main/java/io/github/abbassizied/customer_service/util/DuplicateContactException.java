@@ -0,0 +1,18 @@
+package io.github.abbassizied.customer_service.util;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+
+@ResponseStatus(HttpStatus.CONFLICT)
+public class DuplicateContactException extends RuntimeException {
+
+    public DuplicateContactException() {
+        super();
+    }
+
+    public DuplicateContactException(final String message) {
+        super(message);
+    }
+
+}
@@ -0,0 +1,18 @@
+package io.github.abbassizied.customer_service.util;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+
+@ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+public class ProducerBusyException extends RuntimeException {
+
+    public ProducerBusyException() {
+        super();
+    }
+
+    public ProducerBusyException(final String message) {
+        super(message);
+    }
+
+}
@@ -0,0 +1,83 @@
+package io.github.abbassizied.customer_service.kafka;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.when;
+
+import io.github.abbassizied.customer_service.config.DomainConfig;
+import io.github.abbassizied.customer_service.domain.Address;
+import io.github.abbassizied.customer_service.domain.Customer;
+import io.github.abbassizied.customer_service.repos.CustomerOutboxRepository;
+import io.github.abbassizied.customer_service.repos.CustomerOutboxSlotRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.concurrent.CompletableFuture;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ActiveProfiles("test")
+@Import({DomainConfig.class, CustomerOutbox.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class CustomerOutboxRelayTest {
+
+    @Autowired
+    private CustomerOutbox outbox;
+
+    @Autowired
+    private CustomerOutboxRepository outboxRepository;
+
+    @Autowired
+    private CustomerOutboxSlotRepository slotRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private final CustomerProducer producer = mock(CustomerProducer.class);
+
+    @Test
+    void publishesSnapshotsPatchesAndTombstonesInOrder() {
+        when(producer.sendEvent(any())).thenReturn(CompletableFuture.completedFuture(null));
+        when(producer.sendTombstone(any())).thenReturn(CompletableFuture.completedFuture(null));
+        final Customer customer = new Customer();
+        customer.setId(7L);
+        customer.setName("Ada");
+        customer.setEmail("ada@example.com");
+        customer.setPhone("+15550007");
+        customer.setShippingAddress(new Address());
+        customer.getShippingAddress().setCity("London");
+        outbox.snapshot("CREATED", customer);
+        customer.setPhone("+15550008");
+        outbox.patch(customer, CustomerEvent.PHONE);
+        outbox.deleted(7L);
+
+        final CustomerOutboxRelay relay = new CustomerOutboxRelay(outboxRepository, slotRepository, producer,
+                new TransactionTemplate(transactionManager), new SimpleMeterRegistry(), 100, 2, 10_000);
+        relay.createSlots();
+        relay.relay();
+
+        final ArgumentCaptor<CustomerEvent> sent = ArgumentCaptor.forClass(CustomerEvent.class);
+        final InOrder order = inOrder(producer);
+        order.verify(producer, times(2)).sendEvent(sent.capture());
+        order.verify(producer).sendTombstone(7L);
+        assertThat(sent.getAllValues().get(0)).usingRecursiveComparison().isEqualTo(new CustomerEvent("CREATED", 7L, "Ada", "ada@example.com",
+                "+15550007", customer.getShippingAddress(), null, null));
+        assertThat(sent.getAllValues().get(1)).usingRecursiveComparison().isEqualTo(new CustomerEvent("PATCHED", 7L, null, null,
+                "+15550008", null, null, CustomerEvent.PHONE));
+        assertThat(outboxRepository.count()).isZero();
+    }
+
+}
@@ -0,0 +1,97 @@
+package io.github.abbassizied.customer_service.kafka;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+import io.github.abbassizied.customer_service.config.DomainConfig;
+import io.github.abbassizied.customer_service.domain.Customer;
+import io.github.abbassizied.customer_service.domain.CustomerOutboxEvent;
+import io.github.abbassizied.customer_service.repos.CustomerOutboxRepository;
+import io.github.abbassizied.customer_service.repos.CustomerRepository;
+import java.time.OffsetDateTime;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ActiveProfiles("test")
+@Import({DomainConfig.class, CustomerOutbox.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class CustomerSnapshotPublisherTest {
+
+    private static final AtomicLong sequence = new AtomicLong();
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @Autowired
+    private CustomerOutboxRepository outboxRepository;
+
+    @Autowired
+    private CustomerOutbox outbox;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @AfterEach
+    void clear() {
+        outboxRepository.deleteAll();
+        customerRepository.deleteAll();
+    }
+
+    private CustomerSnapshotPublisher publisher(final long intervalMs, final long maxDelayMs) {
+        return new CustomerSnapshotPublisher(customerRepository, outbox, new TransactionTemplate(transactionManager),
+                intervalMs, maxDelayMs, 100);
+    }
+
+    @Test
+    void snapshotsACustomerThatKeepsChangingOnceItWaitedMaxDelay() {
+        // changed just now, but first patched long ago
+        final Customer waiting = patchedCustomer(OffsetDateTime.now().minusHours(1));
+        final Customer recent = patchedCustomer(OffsetDateTime.now());
+
+        publisher(60_000, 600_000).publishPendingSnapshots();
+
+        assertThat(outboxRepository.findAll())
+                .extracting(CustomerOutboxEvent::getEventType, CustomerOutboxEvent::getCustomerId)
+                .containsExactly(tuple("UPDATED", waiting.getId()));
+        assertThat(customerRepository.findById(waiting.getId())).get()
+                .extracting(Customer::getSnapshotPending, Customer::getSnapshotPendingSince)
+                .containsExactly(false, null);
+        assertThat(customerRepository.findById(recent.getId())).get()
+                .extracting(Customer::getSnapshotPending).isEqualTo(true);
+    }
+
+    @Test
+    void snapshotsAQuietCustomer() {
+        final Customer quiet = patchedCustomer(OffsetDateTime.now());
+
+        publisher(0, 600_000).publishPendingSnapshots();
+
+        assertThat(outboxRepository.findAll())
+                .extracting(CustomerOutboxEvent::getCustomerId)
+                .containsExactly(quiet.getId());
+    }
+
+    private Customer patchedCustomer(final OffsetDateTime pendingSince) {
+        final long n = sequence.incrementAndGet();
+        final Customer customer = new Customer();
+        customer.setName("customer " + n);
+        customer.setEmail("customer" + n + "@example.com");
+        customer.setPhone("+1555" + n);
+        customer.setSnapshotPending(true);
+        customer.setSnapshotPendingSince(pendingSince);
+        return customerRepository.save(customer);
+    }
+
+}
@@ -0,0 +1,115 @@
+package io.github.abbassizied.customer_service.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import io.github.abbassizied.customer_service.config.DomainConfig;
+import io.github.abbassizied.customer_service.kafka.CustomerOutbox;
+import io.github.abbassizied.customer_service.model.CustomerDTO;
+import io.github.abbassizied.customer_service.repos.CustomerOutboxRepository;
+import io.github.abbassizied.customer_service.util.DuplicateContactException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Only a duplicate email or phone is a 409; the uniqueness checks are bypassed here, as a
+ * concurrent write on another instance would.
+ */
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ActiveProfiles("test")
+@Import({DomainConfig.class, CustomerService.class, CustomerOutbox.class, CustomerContactFilter.class,
+        SimpleMeterRegistry.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class CustomerServiceConflictTest {
+
+    private static final AtomicLong sequence = new AtomicLong();
+
+    @Autowired
+    private CustomerService customerService;
+
+    @Autowired
+    private CustomerContactFilter contactFilter;
+
+    @Autowired
+    private CustomerOutboxRepository outboxRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @AfterEach
+    void clearOutbox() {
+        outboxRepository.deleteAll();
+    }
+
+    @Test
+    void emailDifferingOnlyInCaseIsAConflict() {
+        final CustomerDTO existing = customer();
+        customerService.create(existing);
+
+        final CustomerDTO duplicate = customer();
+        duplicate.setEmail(" " + existing.getEmail().toUpperCase() + " ");
+        assertThatThrownBy(() -> customerService.create(duplicate))
+                .isInstanceOf(DuplicateContactException.class)
+                .hasMessage("email already in use");
+    }
+
+    @Test
+    void phoneTakenByAnUpdateIsAConflict() {
+        final CustomerDTO existing = customer();
+        customerService.create(existing);
+        final CustomerDTO other = customer();
+        final Long otherId = customerService.create(other);
+
+        other.setPhone(existing.getPhone());
+        assertThatThrownBy(() -> customerService.update(otherId, other))
+                .isInstanceOf(DuplicateContactException.class)
+                .hasMessage("phone already in use");
+    }
+
+    @Test
+    void otherIntegrityErrorsAreNotConflicts() {
+        final CustomerDTO customerDTO = customer();
+        customerDTO.setName(null);
+
+        assertThatThrownBy(() -> customerService.create(customerDTO))
+                .isInstanceOf(DataIntegrityViolationException.class)
+                .isNotInstanceOf(DuplicateContactException.class);
+    }
+
+    @Test
+    void customersStoredBeforeTheNormalizedColumnsAreFoundAfterTheBackfill() {
+        final long n = sequence.incrementAndGet();
+        jdbcTemplate.update("INSERT INTO customers (name, email, phone, date_created, last_updated) "
+                + "VALUES (?, ?, ?, CURRENT_TIMESTAMP, CURRENT_TIMESTAMP)",
+                "legacy " + n, "Legacy" + n + "@Example.com", "+1666" + n);
+        assertThat(customerService.emailExists("legacy" + n + "@example.com")).isFalse();
+
+        contactFilter.afterSingletonsInstantiated();
+
+        assertThat(customerService.emailExists("legacy" + n + "@example.com")).isTrue();
+        assertThat(customerService.phoneExists("+1666" + n)).isTrue();
+    }
+
+    private static CustomerDTO customer() {
+        final long n = sequence.incrementAndGet();
+        final CustomerDTO customerDTO = new CustomerDTO();
+        customerDTO.setName("customer " + n);
+        // apart from the other tests' customers, the database is shared with them
+        customerDTO.setEmail("conflict" + n + "@example.com");
+        customerDTO.setPhone("+1777" + n);
+        return customerDTO;
+    }
+
+}
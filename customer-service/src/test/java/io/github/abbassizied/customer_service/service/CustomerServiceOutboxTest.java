@@ -0,0 +1,93 @@
+package io.github.abbassizied.customer_service.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+
+import io.github.abbassizied.customer_service.config.DomainConfig;
+import io.github.abbassizied.customer_service.domain.CustomerOutboxEvent;
+import io.github.abbassizied.customer_service.kafka.CustomerEvent;
+import io.github.abbassizied.customer_service.kafka.CustomerOutbox;
+import io.github.abbassizied.customer_service.model.CustomerDTO;
+import io.github.abbassizied.customer_service.repos.CustomerOutboxRepository;
+import io.github.abbassizied.customer_service.util.DuplicateContactException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Customer changes are recorded in the outbox in the same transaction, without touching Kafka:
+ * an API call can neither be refused after its write nor lose the event of a committed one.
+ */
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ActiveProfiles("test")
+@Import({DomainConfig.class, CustomerService.class, CustomerOutbox.class, CustomerContactFilter.class,
+        SimpleMeterRegistry.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class CustomerServiceOutboxTest {
+
+    private static final AtomicLong sequence = new AtomicLong();
+
+    @Autowired
+    private CustomerService customerService;
+
+    @Autowired
+    private CustomerOutboxRepository outboxRepository;
+
+    @AfterEach
+    void clearOutbox() {
+        outboxRepository.deleteAll();
+    }
+
+    @Test
+    void recordsCreatePatchAndDeleteInOrder() {
+        final CustomerDTO customerDTO = customer();
+        final Long id = customerService.create(customerDTO);
+        final String createdPhone = customerDTO.getPhone();
+        customerDTO.setPhone("+1555" + sequence.incrementAndGet());
+        customerService.update(id, customerDTO);
+        customerService.delete(id);
+
+        assertThat(outboxRepository.findAll())
+                .extracting(CustomerOutboxEvent::getEventType, CustomerOutboxEvent::getCustomerId,
+                        CustomerOutboxEvent::getChangedFields, CustomerOutboxEvent::getName,
+                        CustomerOutboxEvent::getPhone)
+                .containsExactly(
+                        tuple("CREATED", id, null, customerDTO.getName(), createdPhone),
+                        tuple("PATCHED", id, CustomerEvent.PHONE, null, customerDTO.getPhone()),
+                        tuple("DELETED", id, null, null, null));
+    }
+
+    @Test
+    void recordsNothingWhenTheWriteFails() {
+        final CustomerDTO customerDTO = customer();
+        customerService.create(customerDTO);
+        outboxRepository.deleteAll();
+
+        final CustomerDTO duplicate = customer();
+        duplicate.setEmail(customerDTO.getEmail());
+        assertThatThrownBy(() -> customerService.create(duplicate))
+                .isInstanceOf(DuplicateContactException.class);
+
+        assertThat(outboxRepository.count()).isZero();
+    }
+
+    private static CustomerDTO customer() {
+        final long n = sequence.incrementAndGet();
+        final CustomerDTO customerDTO = new CustomerDTO();
+        customerDTO.setName("customer " + n);
+        customerDTO.setEmail("customer" + n + "@example.com");
+        customerDTO.setPhone("+1555" + n);
+        return customerDTO;
+    }
+
+}
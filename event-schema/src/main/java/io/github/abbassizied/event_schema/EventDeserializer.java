@@ -0,0 +1,41 @@
+package io.github.abbassizied.event_schema;
+
+import java.util.Map;
+import org.apache.kafka.common.serialization.Deserializer;
+import org.springframework.kafka.support.serializer.JsonDeserializer;
+
+/**
+ * Reads both wire formats: binary encoded events (leading magic byte, see {@link EventSchema})
+ * and JSON for everything else, so a topic can be switched on the producer side without redeploying consumers.
+ */
+public class EventDeserializer<T> implements Deserializer<T> {
+
+    private final EventSchema<T> schema;
+
+    private final JsonDeserializer<T> json = new JsonDeserializer<>();
+
+    private SchemaRegistry registry;
+
+    public EventDeserializer(EventSchema<T> schema) {
+        this.schema = schema;
+    }
+
+    @Override
+    public void configure(Map<String, ?> configs, boolean isKey) {
+        json.configure(configs, isKey);
+        registry = SchemaRegistry.fromConfigs(configs);
+    }
+
+    @Override
+    public T deserialize(String topic, byte[] data) {
+        if (data == null) {
+            return null;
+        }
+        return EventSchema.isEncoded(data) ? schema.decode(data, registry) : json.deserialize(topic, data);
+    }
+
+    @Override
+    public void close() {
+        json.close();
+    }
+}
@@ -0,0 +1,243 @@
+package io.github.abbassizied.event_schema;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.zip.CRC32;
+import org.apache.kafka.common.errors.SerializationException;
+
+/**
+ * Field layout of an event for the compact binary wire format:
+ * magic byte 0, 4-byte schema id, then for every field in schema order a presence byte and,
+ * if present, the value (strings as varint length + UTF-8, int/long as zigzag varints, doubles as 8 bytes).
+ * The schema id is the CRC32 of {@link #definition()}, which the writer publishes to the {@link SchemaRegistry}.
+ * A reader whose id differs resolves fields by name against the writer's definition:
+ * unknown fields are skipped and missing ones stay null, so fields may be added or dropped but not retyped.
+ */
+public final class EventSchema<T> {
+
+    public static final byte MAGIC = 0;
+
+    enum Type { STRING, LONG, INT, DOUBLE }
+
+    private record Field<T>(String name, Type type, Function<T, Object> getter, BiConsumer<T, Object> setter) {
+    }
+
+    // writer field -> local field (null = skip), by writer type
+    private record ReadPlan<T>(Type[] types, Field<T>[] targets) {
+    }
+
+    private final Supplier<T> factory;
+    private final List<Field<T>> fields;
+    private final String definition;
+    private final int id;
+    private final Map<Integer, ReadPlan<T>> plans = new ConcurrentHashMap<>();
+
+    private EventSchema(String name, Supplier<T> factory, List<Field<T>> fields) {
+        this.factory = factory;
+        this.fields = List.copyOf(fields);
+        this.definition = name + "{" + fields.stream()
+                .map(f -> f.name() + ":" + f.type().name().toLowerCase())
+                .collect(Collectors.joining(",")) + "}";
+        CRC32 crc = new CRC32();
+        crc.update(definition.getBytes(StandardCharsets.UTF_8));
+        this.id = (int) crc.getValue();
+    }
+
+    public static <T> Builder<T> builder(String name, Supplier<T> factory) {
+        return new Builder<>(name, factory);
+    }
+
+    public String definition() {
+        return definition;
+    }
+
+    public int id() {
+        return id;
+    }
+
+    public byte[] encode(T event) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(128);
+        out.write(MAGIC);
+        out.write(id >>> 24);
+        out.write(id >>> 16);
+        out.write(id >>> 8);
+        out.write(id);
+        for (Field<T> field : fields) {
+            Object value = field.getter().apply(event);
+            if (value == null) {
+                out.write(0);
+                continue;
+            }
+            out.write(1);
+            switch (field.type()) {
+                case STRING -> {
+                    byte[] bytes = ((String) value).getBytes(StandardCharsets.UTF_8);
+                    writeVarLong(out, bytes.length);
+                    out.write(bytes, 0, bytes.length);
+                }
+                case LONG -> writeVarLong(out, zigzag((Long) value));
+                case INT -> writeVarLong(out, zigzag((Integer) value));
+                case DOUBLE -> {
+                    long bits = Double.doubleToLongBits((Double) value);
+                    for (int shift = 56; shift >= 0; shift -= 8) {
+                        out.write((int) (bits >>> shift));
+                    }
+                }
+            }
+        }
+        return out.toByteArray();
+    }
+
+    public static boolean isEncoded(byte[] data) {
+        return data.length > 0 && data[0] == MAGIC;
+    }
+
+    public T decode(byte[] data, SchemaRegistry registry) {
+        ByteBuffer in = ByteBuffer.wrap(data);
+        if (in.get() != MAGIC) {
+            throw new SerializationException("not a binary encoded event");
+        }
+        int writerId = in.getInt();
+        ReadPlan<T> plan = plans.computeIfAbsent(writerId,
+                writer -> plan(writer == id ? definition : registry.lookup(writer)));
+        T event = factory.get();
+        for (int i = 0; i < plan.types().length; i++) {
+            if (in.get() == 0) {
+                continue;
+            }
+            Object value = switch (plan.types()[i]) {
+                case STRING -> {
+                    int length = (int) readVarLong(in);
+                    String s = new String(data, in.position(), length, StandardCharsets.UTF_8);
+                    in.position(in.position() + length);
+                    yield s;
+                }
+                case LONG -> unzigzag(readVarLong(in));
+                case INT -> (int) unzigzag(readVarLong(in));
+                case DOUBLE -> in.getDouble();
+            };
+            Field<T> target = plan.targets()[i];
+            if (target != null) {
+                target.setter().accept(event, value);
+            }
+        }
+        return event;
+    }
+
+    @SuppressWarnings("unchecked")
+    private ReadPlan<T> plan(String writerDefinition) {
+        Map<String, Field<T>> local = new LinkedHashMap<>();
+        fields.forEach(f -> local.put(f.name(), f));
+        String body = writerDefinition.substring(writerDefinition.indexOf('{') + 1, writerDefinition.length() - 1);
+        String[] writerFields = body.isEmpty() ? new String[0] : body.split(",");
+        Type[] types = new Type[writerFields.length];
+        Field<T>[] targets = new Field[writerFields.length];
+        for (int i = 0; i < writerFields.length; i++) {
+            String[] nameAndType = writerFields[i].split(":");
+            types[i] = Type.valueOf(nameAndType[1].toUpperCase());
+            Field<T> target = local.get(nameAndType[0]);
+            if (target != null && target.type() != types[i]) {
+                throw new SerializationException("field " + nameAndType[0] + " changed type in " + writerDefinition);
+            }
+            targets[i] = target;
+        }
+        return new ReadPlan<>(types, targets);
+    }
+
+    private static long zigzag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static long unzigzag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private static void writeVarLong(ByteArrayOutputStream out, long value) {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+
+    private static long readVarLong(ByteBuffer in) {
+        long value = 0;
+        for (int shift = 0; ; shift += 7) {
+            byte b = in.get();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+    }
+
+    public static final class Builder<T> {
+        private final String name;
+        private final Supplier<T> factory;
+        private final List<Field<T>> fields = new ArrayList<>();
+
+        private Builder(String name, Supplier<T> factory) {
+            this.name = name;
+            this.factory = factory;
+        }
+
+        public Builder<T> string(String name, Function<T, String> getter, BiConsumer<T, String> setter) {
+            return field(name, Type.STRING, getter, (e, v) -> setter.accept(e, (String) v));
+        }
+
+        public Builder<T> int64(String name, Function<T, Long> getter, BiConsumer<T, Long> setter) {
+            return field(name, Type.LONG, getter, (e, v) -> setter.accept(e, (Long) v));
+        }
+
+        public Builder<T> int32(String name, Function<T, Integer> getter, BiConsumer<T, Integer> setter) {
+            return field(name, Type.INT, getter, (e, v) -> setter.accept(e, (Integer) v));
+        }
+
+        public Builder<T> float64(String name, Function<T, Double> getter, BiConsumer<T, Double> setter) {
+            return field(name, Type.DOUBLE, getter, (e, v) -> setter.accept(e, (Double) v));
+        }
+
+        /** Flattens a nested object into "name.field" entries; it is only created on read if one of them is present. */
+        public <N> Builder<T> nested(String name, Function<T, N> getter, BiConsumer<T, N> setter,
+                Supplier<N> nestedFactory, Consumer<Builder<N>> nestedFields) {
+            Builder<N> nested = new Builder<>(name, nestedFactory);
+            nestedFields.accept(nested);
+            for (Field<N> field : nested.fields) {
+                fields.add(new Field<>(name + "." + field.name(), field.type(),
+                        e -> {
+                            N value = getter.apply(e);
+                            return value == null ? null : field.getter().apply(value);
+                        },
+                        (e, v) -> {
+                            N value = getter.apply(e);
+                            if (value == null) {
+                                value = nestedFactory.get();
+                                setter.accept(e, value);
+                            }
+                            field.setter().accept(value, v);
+                        }));
+            }
+            return this;
+        }
+
+        private Builder<T> field(String name, Type type, Function<T, ?> getter, BiConsumer<T, Object> setter) {
+            fields.add(new Field<>(name, type, getter::apply, setter));
+            return this;
+        }
+
+        public EventSchema<T> build() {
+            return new EventSchema<>(name, factory, fields);
+        }
+    }
+}
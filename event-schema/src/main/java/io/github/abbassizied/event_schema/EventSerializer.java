@@ -0,0 +1,27 @@
+package io.github.abbassizied.event_schema;
+
+import java.util.Map;
+import org.apache.kafka.common.serialization.Serializer;
+
+/**
+ * Binary encoding of one event type (see {@link EventSchema}); registers the schema on configure.
+ * Subclassed per event type with a no-arg constructor, so it can be named in the client properties.
+ */
+public class EventSerializer<T> implements Serializer<T> {
+
+    private final EventSchema<T> schema;
+
+    public EventSerializer(EventSchema<T> schema) {
+        this.schema = schema;
+    }
+
+    @Override
+    public void configure(Map<String, ?> configs, boolean isKey) {
+        SchemaRegistry.fromConfigs(configs).register(schema);
+    }
+
+    @Override
+    public byte[] serialize(String topic, T event) {
+        return event == null ? null : schema.encode(event);
+    }
+}
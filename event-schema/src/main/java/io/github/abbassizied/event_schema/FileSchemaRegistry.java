@@ -0,0 +1,76 @@
+package io.github.abbassizied.event_schema;
+
+import java.io.IOException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import org.apache.kafka.common.config.ConfigException;
+import org.apache.kafka.common.errors.SerializationException;
+
+/**
+ * Schema registry on a file system: one {@code <id>.schema} file per {@link EventSchema} definition
+ * in a directory shared by producers and consumers (schema.registry.dir in the Kafka client properties).
+ * Only suitable where every host mounts the same directory; {@link KafkaSchemaRegistry} needs nothing but the cluster.
+ */
+public class FileSchemaRegistry implements SchemaRegistry {
+
+    public static final String DIR_CONFIG = "schema.registry.dir";
+
+    private final Path dir;
+
+    private final Map<Integer, String> definitions = new ConcurrentHashMap<>();
+
+    public FileSchemaRegistry(Path dir) {
+        this.dir = dir;
+    }
+
+    public static FileSchemaRegistry fromConfigs(Map<String, ?> configs) {
+        Object dir = configs.get(DIR_CONFIG);
+        if (dir == null) {
+            throw new ConfigException(DIR_CONFIG + " is required for binary encoded events");
+        }
+        return new FileSchemaRegistry(Paths.get(dir.toString()));
+    }
+
+    @Override
+    public void register(EventSchema<?> schema) {
+        if (definitions.containsKey(schema.id())) {
+            return;
+        }
+        Path file = file(schema.id());
+        try {
+            if (!Files.exists(file)) {
+                Files.createDirectories(dir);
+                Path tmp = Files.createTempFile(dir, "schema", ".tmp");
+                Files.writeString(tmp, schema.definition());
+                try {
+                    Files.move(tmp, file, StandardCopyOption.ATOMIC_MOVE);
+                } catch (FileAlreadyExistsException e) {
+                    Files.deleteIfExists(tmp);
+                }
+            }
+        } catch (IOException e) {
+            throw new SerializationException("could not register schema " + schema.definition(), e);
+        }
+        definitions.put(schema.id(), schema.definition());
+    }
+
+    @Override
+    public String lookup(int id) {
+        return definitions.computeIfAbsent(id, key -> {
+            try {
+                return Files.readString(file(key));
+            } catch (IOException e) {
+                throw new SerializationException("unknown schema id " + SchemaRegistry.key(key), e);
+            }
+        });
+    }
+
+    private Path file(int id) {
+        return dir.resolve(SchemaRegistry.key(id) + ".schema");
+    }
+}
@@ -0,0 +1,152 @@
+package io.github.abbassizied.event_schema;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import org.apache.kafka.clients.CommonClientConfigs;
+import org.apache.kafka.clients.admin.Admin;
+import org.apache.kafka.clients.admin.NewTopic;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.KafkaConsumer;
+import org.apache.kafka.clients.producer.KafkaProducer;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.config.ConfigException;
+import org.apache.kafka.common.config.TopicConfig;
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.errors.TopicExistsException;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.apache.kafka.common.serialization.StringSerializer;
+
+/**
+ * Schema registry kept in a compacted topic (schema.registry.topic in the Kafka client properties) of the cluster
+ * the events are sent to, so every host that can read an event can also resolve its writer schema.
+ * Records are keyed by the hex schema id with the definition as value; the topic is created on first registration.
+ * An unknown id makes a reader load the whole topic once more before giving up.
+ */
+public class KafkaSchemaRegistry implements SchemaRegistry {
+
+    public static final String TOPIC_CONFIG = "schema.registry.topic";
+
+    private static final Duration TIMEOUT = Duration.ofSeconds(30);
+
+    private final Map<String, Object> clientConfigs;
+
+    private final String topic;
+
+    private final Map<Integer, String> definitions = new ConcurrentHashMap<>();
+
+    public KafkaSchemaRegistry(Map<String, Object> clientConfigs, String topic) {
+        this.clientConfigs = Map.copyOf(clientConfigs);
+        this.topic = topic;
+    }
+
+    public static KafkaSchemaRegistry fromConfigs(Map<String, ?> configs) {
+        Object topic = configs.get(TOPIC_CONFIG);
+        if (topic == null || configs.get(CommonClientConfigs.BOOTSTRAP_SERVERS_CONFIG) == null) {
+            throw new ConfigException(TOPIC_CONFIG + " and bootstrap.servers are required for the schema topic");
+        }
+        // connection and security settings only, the registry's clients use their own serializers
+        Map<String, Object> clientConfigs = new HashMap<>();
+        configs.forEach((key, value) -> {
+            if (key.equals(CommonClientConfigs.BOOTSTRAP_SERVERS_CONFIG)
+                    || key.equals(CommonClientConfigs.SECURITY_PROTOCOL_CONFIG)
+                    || key.startsWith("ssl.") || key.startsWith("sasl.")) {
+                clientConfigs.put(key, value);
+            }
+        });
+        return new KafkaSchemaRegistry(clientConfigs, topic.toString());
+    }
+
+    @Override
+    public void register(EventSchema<?> schema) {
+        if (definitions.containsKey(schema.id())) {
+            return;
+        }
+        createTopic();
+        Map<String, Object> configs = new HashMap<>(clientConfigs);
+        configs.put(ProducerConfig.ACKS_CONFIG, "all");
+        try (KafkaProducer<String, String> producer =
+                     new KafkaProducer<>(configs, new StringSerializer(), new StringSerializer())) {
+            producer.send(new ProducerRecord<>(topic, SchemaRegistry.key(schema.id()), schema.definition()))
+                    .get(TIMEOUT.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (ExecutionException | TimeoutException e) {
+            throw new SerializationException("could not register schema " + schema.definition(), e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SerializationException("interrupted registering schema " + schema.definition(), e);
+        }
+        definitions.put(schema.id(), schema.definition());
+    }
+
+    @Override
+    public String lookup(int id) {
+        String definition = definitions.get(id);
+        if (definition == null) {
+            synchronized (this) {
+                if (!definitions.containsKey(id)) {
+                    load();
+                }
+            }
+            definition = definitions.get(id);
+        }
+        if (definition == null) {
+            throw new SerializationException("unknown schema id " + SchemaRegistry.key(id) + " in " + topic);
+        }
+        return definition;
+    }
+
+    private void createTopic() {
+        try (Admin admin = Admin.create(clientConfigs)) {
+            NewTopic newTopic = new NewTopic(topic, Optional.of(1), Optional.empty())
+                    .configs(Map.of(TopicConfig.CLEANUP_POLICY_CONFIG, TopicConfig.CLEANUP_POLICY_COMPACT));
+            admin.createTopics(List.of(newTopic)).all().get(TIMEOUT.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            if (!(e.getCause() instanceof TopicExistsException)) {
+                throw new SerializationException("could not create schema topic " + topic, e);
+            }
+        } catch (TimeoutException e) {
+            throw new SerializationException("could not create schema topic " + topic, e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SerializationException("interrupted creating schema topic " + topic, e);
+        }
+    }
+
+    // reads the topic from the beginning up to its current end
+    private void load() {
+        Map<String, Object> configs = new HashMap<>(clientConfigs);
+        configs.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, false);
+        configs.put(ConsumerConfig.ALLOW_AUTO_CREATE_TOPICS_CONFIG, false);
+        try (KafkaConsumer<String, String> consumer =
+                     new KafkaConsumer<>(configs, new StringDeserializer(), new StringDeserializer())) {
+            List<TopicPartition> partitions = consumer.partitionsFor(topic, TIMEOUT).stream()
+                    .map(info -> new TopicPartition(info.topic(), info.partition()))
+                    .toList();
+            consumer.assign(partitions);
+            consumer.seekToBeginning(partitions);
+            Map<TopicPartition, Long> endOffsets = consumer.endOffsets(partitions, TIMEOUT);
+            long deadline = System.nanoTime() + TIMEOUT.toNanos();
+            while (partitions.stream().anyMatch(p -> consumer.position(p, TIMEOUT) < endOffsets.get(p))) {
+                if (System.nanoTime() > deadline) {
+                    throw new SerializationException("timed out reading schema topic " + topic);
+                }
+                for (ConsumerRecord<String, String> record : consumer.poll(Duration.ofMillis(200))) {
+                    if (record.value() != null) {
+                        definitions.put(Integer.parseUnsignedInt(record.key(), 16), record.value());
+                    }
+                }
+            }
+        } catch (org.apache.kafka.common.errors.TimeoutException e) {
+            throw new SerializationException("timed out reading schema topic " + topic, e);
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package io.github.abbassizied.event_schema;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import org.apache.kafka.clients.CommonClientConfigs;
+import org.apache.kafka.common.config.ConfigException;
+
+/**
+ * Where writers publish {@link EventSchema} definitions and readers resolve unknown schema ids.
+ * Selected from the Kafka client properties: {@value KafkaSchemaRegistry#TOPIC_CONFIG} keeps them in a compacted
+ * topic of the cluster the events go to, {@value FileSchemaRegistry#DIR_CONFIG} in a directory every producer and
+ * consumer host mounts. One instance per location is shared by all clients of the JVM.
+ */
+public interface SchemaRegistry {
+
+    void register(EventSchema<?> schema);
+
+    String lookup(int id);
+
+    static SchemaRegistry fromConfigs(Map<String, ?> configs) {
+        Object topic = configs.get(KafkaSchemaRegistry.TOPIC_CONFIG);
+        if (topic != null) {
+            Object servers = configs.get(CommonClientConfigs.BOOTSTRAP_SERVERS_CONFIG);
+            return Instances.REGISTRIES.computeIfAbsent(List.of("topic", topic.toString(), String.valueOf(servers)),
+                    key -> KafkaSchemaRegistry.fromConfigs(configs));
+        }
+        Object dir = configs.get(FileSchemaRegistry.DIR_CONFIG);
+        if (dir != null) {
+            return Instances.REGISTRIES.computeIfAbsent(List.of("dir", dir.toString()),
+                    key -> FileSchemaRegistry.fromConfigs(configs));
+        }
+        throw new ConfigException(KafkaSchemaRegistry.TOPIC_CONFIG + " or " + FileSchemaRegistry.DIR_CONFIG
+                + " is required for binary encoded events");
+    }
+
+    static String key(int id) {
+        return String.format("%08x", id);
+    }
+
+    final class Instances {
+        private static final Map<List<String>, SchemaRegistry> REGISTRIES = new ConcurrentHashMap<>();
+
+        private Instances() {
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package io.github.abbassizied.event_schema;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.kafka.support.serializer.JsonDeserializer;
+
+class EventDeserializerTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void readsBothWireFormats() {
+        Map<String, Object> configs = Map.of(
+                FileSchemaRegistry.DIR_CONFIG, dir.toString(),
+                JsonDeserializer.VALUE_DEFAULT_TYPE, EventSchemaTest.Item.class.getName(),
+                JsonDeserializer.TRUSTED_PACKAGES, "*");
+        EventSerializer<EventSchemaTest.Item> serializer = new EventSerializer<>(EventSchemaTest.V1);
+        serializer.configure(configs, false);
+        EventDeserializer<EventSchemaTest.Item> deserializer = new EventDeserializer<>(EventSchemaTest.V2);
+        deserializer.configure(configs, false);
+
+        EventSchemaTest.Item binary = deserializer.deserialize("items", serializer.serialize("items", item()));
+        EventSchemaTest.Item json = deserializer.deserialize("items",
+                "{\"type\":\"CREATED\",\"id\":7,\"note\":\"json\"}".getBytes(StandardCharsets.UTF_8));
+
+        assertThat(binary.getId()).isEqualTo(7L);
+        assertThat(binary.getType()).isEqualTo("CREATED");
+        assertThat(json.getId()).isEqualTo(7L);
+        assertThat(json.getNote()).isEqualTo("json");
+        assertThat(deserializer.deserialize("items", null)).isNull();
+        assertThat(serializer.serialize("items", null)).isNull();
+    }
+
+    private static EventSchemaTest.Item item() {
+        EventSchemaTest.Item item = new EventSchemaTest.Item();
+        item.setType("CREATED");
+        item.setId(7L);
+        return item;
+    }
+}
@@ -0,0 +1,151 @@
+package io.github.abbassizied.event_schema;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.nio.file.Path;
+import lombok.Data;
+import org.apache.kafka.common.errors.SerializationException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class EventSchemaTest {
+
+    @TempDir
+    Path dir;
+
+    @Data
+    static class Item {
+        private String type;
+        private Long id;
+        private Integer quantity;
+        private Double price;
+        private Place place;
+        private String note;
+    }
+
+    @Data
+    static class Place {
+        private String city;
+        private Integer zip;
+    }
+
+    static final EventSchema<Item> V1 = EventSchema.builder("Item", Item::new)
+            .string("type", Item::getType, Item::setType)
+            .int64("id", Item::getId, Item::setId)
+            .int32("quantity", Item::getQuantity, Item::setQuantity)
+            .float64("price", Item::getPrice, Item::setPrice)
+            .nested("place", Item::getPlace, Item::setPlace, Place::new, place -> place
+                    .string("city", Place::getCity, Place::setCity)
+                    .int32("zip", Place::getZip, Place::setZip))
+            .build();
+
+    // drops price, adds note and lists the remaining fields in another order
+    static final EventSchema<Item> V2 = EventSchema.builder("Item", Item::new)
+            .int64("id", Item::getId, Item::setId)
+            .string("note", Item::getNote, Item::setNote)
+            .string("type", Item::getType, Item::setType)
+            .int32("quantity", Item::getQuantity, Item::setQuantity)
+            .nested("place", Item::getPlace, Item::setPlace, Place::new, place -> place
+                    .string("city", Place::getCity, Place::setCity))
+            .build();
+
+    private static Item item() {
+        Item item = new Item();
+        item.setType("UPDATED");
+        item.setId(Long.MIN_VALUE);
+        item.setQuantity(-42);
+        item.setPrice(-0.0);
+        Place place = new Place();
+        place.setCity("Zürich ☕ 東京");
+        place.setZip(Integer.MAX_VALUE);
+        item.setPlace(place);
+        return item;
+    }
+
+    @Test
+    void roundTripsEveryType() {
+        Item item = item();
+        byte[] data = V1.encode(item);
+
+        assertThat(EventSchema.isEncoded(data)).isTrue();
+        assertThat(V1.decode(data, new FileSchemaRegistry(dir))).isEqualTo(item);
+    }
+
+    @Test
+    void roundTripsExtremesAndNulls() {
+        Item item = new Item();
+        item.setId(Long.MAX_VALUE);
+        item.setQuantity(Integer.MIN_VALUE);
+        item.setPrice(Double.NaN);
+        item.setType("");
+
+        Item decoded = V1.decode(V1.encode(item), new FileSchemaRegistry(dir));
+
+        assertThat(decoded).isEqualTo(item);
+        // no nested field present, so no nested object either
+        assertThat(decoded.getPlace()).isNull();
+    }
+
+    @Test
+    void schemaIdFollowsDefinition() {
+        assertThat(V1.definition())
+                .isEqualTo("Item{type:string,id:long,quantity:int,price:double,place.city:string,place.zip:int}");
+        assertThat(V1.id()).isNotEqualTo(V2.id());
+        assertThat(EventSchema.builder("Item", Item::new).string("type", Item::getType, Item::setType).build().id())
+                .isEqualTo(EventSchema.builder("Item", Item::new).string("type", Item::getType, Item::setType).build().id());
+    }
+
+    @Test
+    void newerReaderResolvesOlderWriterByName() {
+        FileSchemaRegistry registry = new FileSchemaRegistry(dir);
+        registry.register(V1);
+
+        Item decoded = V2.decode(V1.encode(item()), new FileSchemaRegistry(dir));
+
+        assertThat(decoded.getType()).isEqualTo("UPDATED");
+        assertThat(decoded.getId()).isEqualTo(Long.MIN_VALUE);
+        assertThat(decoded.getQuantity()).isEqualTo(-42);
+        assertThat(decoded.getPrice()).isNull();
+        assertThat(decoded.getNote()).isNull();
+        assertThat(decoded.getPlace().getCity()).isEqualTo("Zürich ☕ 東京");
+        assertThat(decoded.getPlace().getZip()).isNull();
+    }
+
+    @Test
+    void olderReaderSkipsFieldsItDoesNotKnow() {
+        FileSchemaRegistry registry = new FileSchemaRegistry(dir);
+        registry.register(V2);
+        Item item = item();
+        item.setNote("fragile");
+
+        Item decoded = V1.decode(V2.encode(item), registry);
+
+        assertThat(decoded.getNote()).isNull();
+        assertThat(decoded.getPrice()).isNull();
+        assertThat(decoded.getType()).isEqualTo("UPDATED");
+        assertThat(decoded.getPlace().getCity()).isEqualTo("Zürich ☕ 東京");
+    }
+
+    @Test
+    void rejectsRetypedField() {
+        EventSchema<Item> retyped = EventSchema.builder("Item", Item::new)
+                .string("id", item -> String.valueOf(item.getId()), (item, id) -> item.setId(Long.valueOf(id)))
+                .build();
+        FileSchemaRegistry registry = new FileSchemaRegistry(dir);
+        registry.register(retyped);
+
+        assertThatThrownBy(() -> V1.decode(retyped.encode(item()), registry))
+                .isInstanceOf(SerializationException.class)
+                .hasMessageContaining("changed type");
+    }
+
+    @Test
+    void rejectsUnknownWriter() {
+        byte[] data = V2.encode(item());
+
+        assertThatThrownBy(() -> V1.decode(data, new FileSchemaRegistry(dir)))
+                .isInstanceOf(SerializationException.class)
+                .hasMessageContaining("unknown schema id");
+    }
+}
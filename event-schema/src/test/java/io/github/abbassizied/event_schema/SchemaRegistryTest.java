@@ -0,0 +1,57 @@
+package io.github.abbassizied.event_schema;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.UUID;
+import org.apache.kafka.clients.CommonClientConfigs;
+import org.apache.kafka.common.config.ConfigException;
+import org.apache.kafka.common.errors.SerializationException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.kafka.test.EmbeddedKafkaBroker;
+import org.springframework.kafka.test.condition.EmbeddedKafkaCondition;
+import org.springframework.kafka.test.context.EmbeddedKafka;
+
+@EmbeddedKafka(kraft = true)
+class SchemaRegistryTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void fileRegistryIsSharedThroughTheDirectory() {
+        new FileSchemaRegistry(dir).register(EventSchemaTest.V1);
+
+        assertThat(new FileSchemaRegistry(dir).lookup(EventSchemaTest.V1.id()))
+                .isEqualTo(EventSchemaTest.V1.definition());
+    }
+
+    @Test
+    void topicRegistryIsSharedThroughTheCluster() {
+        EmbeddedKafkaBroker broker = EmbeddedKafkaCondition.getBroker();
+        Map<String, Object> configs = Map.of(
+                CommonClientConfigs.BOOTSTRAP_SERVERS_CONFIG, broker.getBrokersAsString(),
+                KafkaSchemaRegistry.TOPIC_CONFIG, "schemas-" + UUID.randomUUID());
+        KafkaSchemaRegistry.fromConfigs(configs).register(EventSchemaTest.V1);
+        KafkaSchemaRegistry.fromConfigs(configs).register(EventSchemaTest.V1);
+
+        // a fresh instance, as on another host, reads the topic
+        KafkaSchemaRegistry reader = KafkaSchemaRegistry.fromConfigs(configs);
+
+        assertThat(reader.lookup(EventSchemaTest.V1.id())).isEqualTo(EventSchemaTest.V1.definition());
+        assertThatThrownBy(() -> reader.lookup(EventSchemaTest.V2.id()))
+                .isInstanceOf(SerializationException.class)
+                .hasMessageContaining("unknown schema id");
+    }
+
+    @Test
+    void requiresALocation() {
+        assertThatThrownBy(() -> SchemaRegistry.fromConfigs(Map.of()))
+                .isInstanceOf(ConfigException.class);
+        assertThat(SchemaRegistry.fromConfigs(Map.of(FileSchemaRegistry.DIR_CONFIG, dir.toString())))
+                .isSameAs(SchemaRegistry.fromConfigs(Map.of(FileSchemaRegistry.DIR_CONFIG, dir.toString())));
+    }
+}
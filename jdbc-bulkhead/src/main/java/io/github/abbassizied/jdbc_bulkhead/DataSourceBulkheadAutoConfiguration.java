@@ -0,0 +1,39 @@
+package io.github.abbassizied.jdbc_bulkhead;
+
+import javax.sql.DataSource;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.AutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.context.annotation.Bean;
+import org.springframework.core.env.Environment;
+
+/**
+ * With spring.threads.virtual.enabled every request and listener runs on its own virtual
+ * thread, so the connection pool becomes the point where they queue; the bulkhead makes
+ * that wait cheap and fair. It sits on the DataSource rather than the repositories, so a
+ * transaction that already holds a connection never waits for a second permit.
+ * <p>
+ * Registered as an auto-configuration, so every service with this module on its classpath
+ * gets it.
+ */
+@AutoConfiguration
+@ConditionalOnThreading(Threading.VIRTUAL)
+public class DataSourceBulkheadAutoConfiguration {
+
+    @Bean
+    public static BeanPostProcessor dataSourceBulkheadPostProcessor(final Environment environment) {
+        final int permits = environment.getProperty("spring.datasource.hikari.maximum-pool-size", Integer.class, 10);
+        final long timeoutMs = environment.getProperty("spring.datasource.hikari.connection-timeout", Long.class, 30000L);
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(final Object bean, final String beanName) {
+                if (bean instanceof DataSource dataSource && !(bean instanceof DataSourceBulkhead)) {
+                    return new DataSourceBulkhead(dataSource, permits, timeoutMs);
+                }
+                return bean;
+            }
+        };
+    }
+
+}
@@ -0,0 +1,162 @@
+package io.github.abbassizied.load_harness;
+
+import io.github.abbassizied.customer_service.model.CustomerDTO;
+import io.github.abbassizied.customer_service.service.CustomerService;
+import io.github.abbassizied.product_service.model.ProductDTO;
+import io.github.abbassizied.product_service.service.ProductService;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Calls ProductService and CustomerService at a fixed rate from several threads, each change
+ * scheduled at {@code start + n / rate}. A thread that falls behind catches up without
+ * pausing, and latencies count from the scheduled time, so a driver or service that cannot keep
+ * up shows as latency instead of silently lowering the rate. Every thread changes only the
+ * products and customers it created, so the changes of one key are sent in order.
+ */
+final class LoadDriver {
+
+    // customer emails and phones stay unique across runs
+    private static final AtomicLong contacts = new AtomicLong();
+
+    private final ProductService productService;
+    private final CustomerService customerService;
+    private final int createPercent;
+    private final int deletePercent;
+    private final int customerPercent;
+    private final int threads;
+    private final LongAdder completed = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+
+    LoadDriver(final ProductService productService, final CustomerService customerService,
+               final int[] mix, final int customerPercent, final int threads) {
+        this.productService = productService;
+        this.customerService = customerService;
+        final int total = mix[0] + mix[1] + mix[2];
+        this.createPercent = 100 * mix[0] / total;
+        this.deletePercent = 100 * mix[2] / total;
+        this.customerPercent = customerPercent;
+        this.threads = threads;
+    }
+
+    /**
+     * Sends {@code rate} changes per second for {@code durationNanos}; returns once all are done.
+     */
+    void run(final ReplicationTracker tracker, final long startNanos, final double rate, final long durationNanos)
+            throws InterruptedException {
+        final long count = (long) (rate * durationNanos / TimeUnit.SECONDS.toNanos(1));
+        final AtomicLong tickets = new AtomicLong();
+        final List<Thread> workers = new ArrayList<>(threads);
+        for (int i = 0; i < threads; i++) {
+            final Random random = new Random(i);
+            workers.add(Thread.ofPlatform().name("load-driver-" + i).start(() -> {
+                final Owned owned = new Owned();
+                long ticket;
+                while ((ticket = tickets.getAndIncrement()) < count) {
+                    final long scheduledNanos = startNanos + (long) (ticket * TimeUnit.SECONDS.toNanos(1) / rate);
+                    final long wait = scheduledNanos - System.nanoTime();
+                    if (wait > 0) {
+                        LockSupport.parkNanos(wait);
+                    }
+                    try {
+                        change(tracker, owned, random, scheduledNanos);
+                        completed.increment();
+                    } catch (RuntimeException e) {
+                        failed.increment();
+                    }
+                }
+            }));
+        }
+        for (Thread worker : workers) {
+            worker.join();
+        }
+    }
+
+    long completed() {
+        return completed.sum();
+    }
+
+    long failed() {
+        return failed.sum();
+    }
+
+    private void change(final ReplicationTracker tracker, final Owned owned, final Random random,
+                        final long scheduledNanos) {
+        final boolean customer = random.nextInt(100) < customerPercent;
+        final List<Long> ids = customer ? owned.customers : owned.products;
+        final int operation = random.nextInt(100);
+        if (ids.isEmpty() || operation < createPercent) {
+            ids.add(customer ? createCustomer(tracker, owned, scheduledNanos) : createProduct(tracker, scheduledNanos));
+            return;
+        }
+        final int index = random.nextInt(ids.size());
+        final Long id = ids.get(index);
+        final String key = (customer ? "c" : "p") + id;
+        if (operation >= 100 - deletePercent) {
+            // swap-remove, the order of owned ids does not matter
+            ids.set(index, ids.get(ids.size() - 1));
+            ids.remove(ids.size() - 1);
+            tracker.deleting(key, scheduledNanos);
+            if (customer) {
+                owned.contacts.remove(id);
+                customerService.delete(id);
+            } else {
+                productService.delete(id);
+            }
+            return;
+        }
+        tracker.sent(key, scheduledNanos);
+        if (customer) {
+            customerService.update(id, customer(scheduledNanos, owned.contacts.get(id)));
+        } else {
+            productService.update(id, product(scheduledNanos, random));
+        }
+    }
+
+    private Long createProduct(final ReplicationTracker tracker, final long scheduledNanos) {
+        final Long id = productService.create(product(scheduledNanos, new Random(scheduledNanos)));
+        tracker.sent("p" + id, scheduledNanos);
+        return id;
+    }
+
+    private Long createCustomer(final ReplicationTracker tracker, final Owned owned, final long scheduledNanos) {
+        final long contact = contacts.incrementAndGet();
+        final Long id = customerService.create(customer(scheduledNanos, contact));
+        owned.contacts.put(id, contact);
+        tracker.sent("c" + id, scheduledNanos);
+        return id;
+    }
+
+    private static ProductDTO product(final long scheduledNanos, final Random random) {
+        final ProductDTO productDTO = new ProductDTO();
+        productDTO.setName(ReplicationTracker.name(scheduledNanos));
+        productDTO.setQuantity(random.nextInt(1000));
+        productDTO.setPrice(1 + random.nextInt(10_000) / 100.0);
+        return productDTO;
+    }
+
+    private static CustomerDTO customer(final long scheduledNanos, final long contact) {
+        final CustomerDTO customerDTO = new CustomerDTO();
+        customerDTO.setName(ReplicationTracker.name(scheduledNanos));
+        customerDTO.setEmail("load" + contact + "@example.com");
+        customerDTO.setPhone("+1" + (5_550_000_000L + contact));
+        return customerDTO;
+    }
+
+    // products and customers created by one driver thread, with the contact number of each customer
+    private static final class Owned {
+
+        private final List<Long> products = new ArrayList<>();
+        private final List<Long> customers = new ArrayList<>();
+        private final Map<Long, Long> contacts = new HashMap<>();
+
+    }
+
+}
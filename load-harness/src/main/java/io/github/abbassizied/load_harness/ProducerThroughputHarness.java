@@ -0,0 +1,198 @@
+package io.github.abbassizied.load_harness;
+
+import io.github.abbassizied.product_service.ProductServiceApplication;
+import io.github.abbassizied.product_service.kafka.KafkaTopicsConfig;
+import io.github.abbassizied.product_service.kafka.ProductEvent;
+import io.github.abbassizied.product_service.kafka.ProductProducer;
+import io.github.abbassizied.product_service.util.ProducerBusyException;
+import java.io.File;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.kafka.config.KafkaListenerEndpointRegistry;
+import org.springframework.kafka.core.DefaultKafkaProducerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.serializer.JsonSerializer;
+import org.springframework.kafka.test.EmbeddedKafkaBroker;
+import org.springframework.kafka.test.EmbeddedKafkaKraftBroker;
+
+/**
+ * Publishes ProductEvents to product-events on an embedded KRaft broker through two paths and
+ * compares them:
+ * <ul>
+ * <li>{@code old}: ProductProducer as it was, a KafkaTemplate with the client's default settings
+ * and the JSON serializer, a line printed per send (to a discarding stream here, the console
+ * would dominate) and the returned future ignored;</li>
+ * <li>{@code new}: the ProductProducer of product-service with its spring.kafka.producer settings
+ * (linger, batch size, compression, idempotence) and bounded in-flight sends. A send rejected
+ * with ProducerBusyException is retried, as a client would after a 503.</li>
+ * </ul>
+ * For each path {@code --warmup} events are sent and acknowledged first, then {@code --events}
+ * are measured: the time until all are acknowledged, the latency from send to acknowledgement
+ * (the harness listens on the futures of both paths, the old one did not) and the longest a
+ * caller was held in a single send call.
+ * <p>
+ * Options, with their defaults:
+ * <pre>
+ * --events=1000000
+ * --warmup=100000
+ * --threads=4          threads sending, the events split between them
+ * --products=10000     distinct keys
+ * --partitions=4
+ * --paths=old,new
+ * --out=target/producer-throughput.json
+ * </pre>
+ */
+public final class ProducerThroughputHarness {
+
+    private ProducerThroughputHarness() {
+    }
+
+    public static void main(final String[] args) throws Exception {
+        final Map<String, String> options = Reports.options(args);
+        final int events = Integer.parseInt(options.getOrDefault("events", "1000000"));
+        final int warmup = Integer.parseInt(options.getOrDefault("warmup", "100000"));
+        final int threads = Integer.parseInt(options.getOrDefault("threads", "4"));
+        final int products = Integer.parseInt(options.getOrDefault("products", "10000"));
+        final int partitions = Integer.parseInt(options.getOrDefault("partitions", "4"));
+        final List<String> paths = List.of(options.getOrDefault("paths", "old,new").split(","));
+        final File out = new File(options.getOrDefault("out", "target/producer-throughput.json"));
+
+        final EmbeddedKafkaBroker broker = new EmbeddedKafkaKraftBroker(1, partitions)
+                .brokerProperty("num.partitions", partitions);
+        broker.afterPropertiesSet();
+        final Map<String, Object> report = new LinkedHashMap<>();
+        ConfigurableApplicationContext context = null;
+        KafkaTemplate<String, ProductEvent> oldTemplate = null;
+        try {
+            final String servers = broker.getBrokersAsString();
+            context = Services.start(ProductServiceApplication.class, servers, List.of());
+            // the change listener would consume what is sent here, in this JVM
+            context.getBean(KafkaListenerEndpointRegistry.class).stop();
+            final String topic = context.getBean(KafkaTopicsConfig.class).getProductEvents();
+            final ProductProducer producer = context.getBean(ProductProducer.class);
+            oldTemplate = oldTemplate(servers);
+
+            for (String path : paths) {
+                final Sender sender = switch (path) {
+                    case "old" -> oldSender(oldTemplate, topic);
+                    case "new" -> producer::sendEvent;
+                    default -> throw new IllegalArgumentException("Unknown path " + path + ", expected old or new");
+                };
+                run(sender, warmup, threads, products);
+                final Map<String, Object> run = run(sender, events, threads, products);
+                report.put(path, run);
+                System.out.printf("%s: %s events in %s ms, %s events/s, ack latency p50 %s ms, p99 %s ms,"
+                                + " p99.9 %s ms, max %s ms, longest send call %s ms, %s busy retries, %s failed%n",
+                        path, events, run.get("elapsedMs"), run.get("eventsPerSecond"), run.get("p50Ms"),
+                        run.get("p99Ms"), run.get("p999Ms"), run.get("maxMs"), run.get("maxSendCallMs"),
+                        run.get("busyRetries"), run.get("failed"));
+            }
+        } finally {
+            if (oldTemplate != null) {
+                oldTemplate.getProducerFactory().reset();
+            }
+            if (context != null) {
+                context.close();
+            }
+            broker.destroy();
+        }
+        Reports.write(out, report);
+        System.exit(0);
+    }
+
+    // the producer configuration product-service shipped with: serializers only, client defaults otherwise
+    private static KafkaTemplate<String, ProductEvent> oldTemplate(final String servers) {
+        final Map<String, Object> configs = Map.of(
+                ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, servers,
+                ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class,
+                ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, JsonSerializer.class,
+                JsonSerializer.ADD_TYPE_INFO_HEADERS, false);
+        return new KafkaTemplate<>(new DefaultKafkaProducerFactory<>(configs));
+    }
+
+    private static Sender oldSender(final KafkaTemplate<String, ProductEvent> template, final String topic) {
+        final PrintStream console = new PrintStream(OutputStream.nullOutputStream(), true);
+        return event -> {
+            console.println("Product topic: " + topic);
+            return template.send(topic, event.getProductId().toString(), event);
+        };
+    }
+
+    private static Map<String, Object> run(final Sender sender, final int events, final int threads, final int products)
+            throws InterruptedException {
+        final long[] latencies = new long[events];
+        final CountDownLatch acknowledged = new CountDownLatch(events);
+        final AtomicLong next = new AtomicLong();
+        final LongAdder busyRetries = new LongAdder();
+        final LongAdder failed = new LongAdder();
+        final LongAccumulator maxSendCall = new LongAccumulator(Math::max, 0);
+        final long start = System.nanoTime();
+        final List<Thread> workers = new ArrayList<>(threads);
+        for (int t = 0; t < threads; t++) {
+            workers.add(Thread.ofPlatform().name("sender-" + t).start(() -> {
+                long index;
+                while ((index = next.getAndIncrement()) < events) {
+                    final int i = (int) index;
+                    final ProductEvent event = new ProductEvent("UPDATED", index % products,
+                            "product " + index % products, (int) (index % 1000), 9.99);
+                    while (true) {
+                        final long sent = System.nanoTime();
+                        try {
+                            sender.send(event).whenComplete((result, ex) -> {
+                                latencies[i] = System.nanoTime() - sent;
+                                if (ex != null) {
+                                    failed.increment();
+                                }
+                                acknowledged.countDown();
+                            });
+                            maxSendCall.accumulate(System.nanoTime() - sent);
+                            break;
+                        } catch (ProducerBusyException e) {
+                            busyRetries.increment();
+                        }
+                    }
+                }
+            }));
+        }
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        acknowledged.await();
+        final long elapsed = System.nanoTime() - start;
+        Arrays.sort(latencies);
+        final Map<String, Object> run = new LinkedHashMap<>();
+        run.put("events", events);
+        run.put("elapsedMs", Reports.millis(elapsed));
+        run.put("eventsPerSecond", Math.round(events * (double) TimeUnit.SECONDS.toNanos(1) / elapsed));
+        run.put("p50Ms", Reports.millis(Reports.percentile(latencies, 0.50)));
+        run.put("p99Ms", Reports.millis(Reports.percentile(latencies, 0.99)));
+        run.put("p999Ms", Reports.millis(Reports.percentile(latencies, 0.999)));
+        run.put("maxMs", Reports.millis(latencies[latencies.length - 1]));
+        run.put("maxSendCallMs", Reports.millis(maxSendCall.get()));
+        run.put("busyRetries", busyRetries.sum());
+        run.put("failed", failed.sum());
+        return run;
+    }
+
+    @FunctionalInterface
+    private interface Sender {
+
+        CompletableFuture<?> send(ProductEvent event);
+
+    }
+
+}
@@ -0,0 +1,93 @@
+package io.github.abbassizied.load_harness;
+
+import io.github.abbassizied.order_service.domain.CustomerReplica;
+import io.github.abbassizied.order_service.domain.ProductReplica;
+import io.github.abbassizied.order_service.repos.CustomerReplicaRepository;
+import io.github.abbassizied.order_service.repos.ProductReplicaRepository;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.springframework.aop.framework.Advised;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Registered in order-service: watches the replica repositories' bulk writes and reports every
+ * row to the tracker of the current run once its transaction has committed.
+ */
+final class ReplicaProbe implements BeanPostProcessor {
+
+    private volatile ReplicationTracker tracker;
+
+    void track(final ReplicationTracker tracker) {
+        this.tracker = tracker;
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(final Object bean, final String beanName) {
+        // the repositories are Spring AOP proxies already, the probe is one more advice
+        if (bean instanceof Advised advised
+                && (bean instanceof ProductReplicaRepository || bean instanceof CustomerReplicaRepository)) {
+            final String kind = bean instanceof ProductReplicaRepository ? "p" : "c";
+            advised.addAdvice(0, (MethodInterceptor) invocation -> {
+                final Object result = invocation.proceed();
+                final Object[] args = invocation.getArguments();
+                switch (invocation.getMethod().getName()) {
+                    case "upsertAll" -> written(kind, (Collection<?>) args[0]);
+                    case "patchAll" -> written(kind, (Collection<?>) args[1]);
+                    case "deleteAllByIdInBatch" -> deleted(kind, (Iterable<?>) args[0]);
+                    default -> {
+                    }
+                }
+                return result;
+            });
+        }
+        return bean;
+    }
+
+    private void written(final String kind, final Collection<?> replicas) {
+        final List<String[]> rows = new ArrayList<>(replicas.size());
+        for (Object replica : replicas) {
+            if (replica instanceof ProductReplica product) {
+                rows.add(new String[] {kind + product.getId(), product.getName()});
+            } else if (replica instanceof CustomerReplica customer) {
+                rows.add(new String[] {kind + customer.getId(), customer.getName()});
+            }
+        }
+        afterCommit(() -> {
+            final ReplicationTracker current = tracker;
+            final long now = System.nanoTime();
+            if (current != null) {
+                rows.forEach(row -> current.applied(row[0], row[1], now));
+            }
+        });
+    }
+
+    private void deleted(final String kind, final Iterable<?> ids) {
+        final List<String> keys = new ArrayList<>();
+        ids.forEach(id -> keys.add(kind + id));
+        afterCommit(() -> {
+            final ReplicationTracker current = tracker;
+            final long now = System.nanoTime();
+            if (current != null) {
+                keys.forEach(key -> current.deleted(key, now));
+            }
+        });
+    }
+
+    private static void afterCommit(final Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+}
@@ -0,0 +1,170 @@
+package io.github.abbassizied.load_harness;
+
+import io.github.abbassizied.customer_service.CustomerServiceApplication;
+import io.github.abbassizied.customer_service.service.CustomerService;
+import io.github.abbassizied.order_service.OrderServiceApplication;
+import io.github.abbassizied.product_service.ProductServiceApplication;
+import io.github.abbassizied.product_service.service.ProductService;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.kafka.test.EmbeddedKafkaBroker;
+import org.springframework.kafka.test.EmbeddedKafkaKraftBroker;
+
+/**
+ * Load harness for the replication path: product-service and customer-service write through
+ * their outboxes to Kafka, order-service applies the events to its replicas. All three run in
+ * this JVM against an embedded KRaft broker and private in-memory H2 databases.
+ * <p>
+ * For each rate in {@code --rates} the driver sends that many creates, updates and deletes per
+ * second for {@code --duration-s}, then waits up to {@code --drain-timeout-s} for the replicas to
+ * catch up. The latency of a change is the time from when it was scheduled to when the replica
+ * row carrying it committed. A rate is sustainable when the driver reached 95% of it, every
+ * change arrived, and the median latency of the last quarter of the run exceeded that of the
+ * first quarter by at most {@code --max-latency-growth-ms} (a backlog that keeps growing).
+ * Rates are tried in the given order up to the first one that is not sustainable.
+ * <p>
+ * Options, with their defaults:
+ * <pre>
+ * --rates=100,250,500,1000      changes per second, one run each
+ * --duration-s=30               length of each run
+ * --mix=20:70:10                create:update:delete weights
+ * --customer-share=50           percent of changes made to customers rather than products
+ * --drivers=8                   threads calling the services
+ * --drain-timeout-s=30
+ * --max-latency-growth-ms=1000
+ * --partitions=4                partitions of every topic
+ * --out=target/replication-load.json
+ * </pre>
+ */
+public final class ReplicationLoadHarness {
+
+    private static final double SUSTAINED_SHARE = 0.95;
+
+    private ReplicationLoadHarness() {
+    }
+
+    public static void main(final String[] args) throws Exception {
+        final Map<String, String> options = Reports.options(args);
+        final double[] rates = Arrays.stream(options.getOrDefault("rates", "100,250,500,1000").split(","))
+                .mapToDouble(Double::parseDouble)
+                .toArray();
+        final long durationNanos = TimeUnit.SECONDS.toNanos(Long.parseLong(options.getOrDefault("duration-s", "30")));
+        final int[] mix = Arrays.stream(options.getOrDefault("mix", "20:70:10").split(":"))
+                .mapToInt(Integer::parseInt)
+                .toArray();
+        final int customerShare = Integer.parseInt(options.getOrDefault("customer-share", "50"));
+        final int drivers = Integer.parseInt(options.getOrDefault("drivers", "8"));
+        final long drainTimeoutNanos =
+                TimeUnit.SECONDS.toNanos(Long.parseLong(options.getOrDefault("drain-timeout-s", "30")));
+        final long maxGrowthNanos =
+                TimeUnit.MILLISECONDS.toNanos(Long.parseLong(options.getOrDefault("max-latency-growth-ms", "1000")));
+        final int partitions = Integer.parseInt(options.getOrDefault("partitions", "4"));
+        final File out = new File(options.getOrDefault("out", "target/replication-load.json"));
+        if (mix.length != 3) {
+            throw new IllegalArgumentException("--mix takes create:update:delete, was " + options.get("mix"));
+        }
+
+        final EmbeddedKafkaBroker broker = new EmbeddedKafkaKraftBroker(1, partitions)
+                .brokerProperty("num.partitions", partitions);
+        broker.afterPropertiesSet();
+        final List<ConfigurableApplicationContext> contexts = new ArrayList<>();
+        final List<Map<String, Object>> runs = new ArrayList<>();
+        double maxSustainable = 0;
+        try {
+            final String servers = broker.getBrokersAsString();
+            final ReplicaProbe probe = new ReplicaProbe();
+            final ConfigurableApplicationContext products =
+                    Services.start(ProductServiceApplication.class, servers, List.of());
+            contexts.add(products);
+            final ConfigurableApplicationContext customers =
+                    Services.start(CustomerServiceApplication.class, servers, List.of());
+            contexts.add(customers);
+            contexts.add(Services.start(OrderServiceApplication.class, servers, List.of(),
+                    context -> context.getBeanFactory().addBeanPostProcessor(probe)));
+            final ProductService productService = products.getBean(ProductService.class);
+            final CustomerService customerService = customers.getBean(CustomerService.class);
+
+            for (double rate : rates) {
+                final long startNanos = System.nanoTime();
+                final ReplicationTracker tracker = new ReplicationTracker(startNanos);
+                probe.track(tracker);
+                final LoadDriver driver =
+                        new LoadDriver(productService, customerService, mix, customerShare, drivers);
+                driver.run(tracker, startNanos, rate, durationNanos);
+                final long sentNanos = System.nanoTime() - startNanos;
+                final long drainStart = System.nanoTime();
+                while (tracker.pending() > 0 && System.nanoTime() - drainStart < drainTimeoutNanos) {
+                    Thread.sleep(50);
+                }
+                final long drainNanos = System.nanoTime() - drainStart;
+                final Map<String, Object> run =
+                        report(rate, driver, tracker, sentNanos, drainNanos, maxGrowthNanos);
+                runs.add(run);
+                print(run);
+                if (!(boolean) run.get("sustainable")) {
+                    break;
+                }
+                maxSustainable = rate;
+            }
+        } finally {
+            contexts.reversed().forEach(ConfigurableApplicationContext::close);
+            broker.destroy();
+        }
+        System.out.printf("max sustainable rate: %s changes/s%n",
+                maxSustainable > 0 ? Reports.rate(maxSustainable) : "none");
+        Reports.write(out, Map.of("maxSustainableRate", maxSustainable, "runs", runs));
+        // the services' non-daemon threads (schedulers, Kafka clients) must not keep the JVM alive
+        System.exit(0);
+    }
+
+    private static Map<String, Object> report(final double rate, final LoadDriver driver,
+                                              final ReplicationTracker tracker, final long sentNanos,
+                                              final long drainNanos, final long maxGrowthNanos) {
+        final long[] latencies = tracker.latencies();
+        final long pending = tracker.pending();
+        final double achieved = driver.completed() * (double) TimeUnit.SECONDS.toNanos(1) / sentNanos;
+        final long growth = latencies.length < 4 ? 0
+                : median(Arrays.copyOfRange(latencies, latencies.length * 3 / 4, latencies.length))
+                        - median(Arrays.copyOfRange(latencies, 0, latencies.length / 4));
+        final long[] sorted = latencies.clone();
+        Arrays.sort(sorted);
+        final Map<String, Object> run = new LinkedHashMap<>();
+        run.put("targetRate", rate);
+        run.put("achievedRate", Math.round(achieved * 10) / 10.0);
+        run.put("changes", driver.completed());
+        run.put("errors", driver.failed());
+        run.put("replicated", latencies.length);
+        run.put("p50Ms", Reports.millis(Reports.percentile(sorted, 0.50)));
+        run.put("p90Ms", Reports.millis(Reports.percentile(sorted, 0.90)));
+        run.put("p99Ms", Reports.millis(Reports.percentile(sorted, 0.99)));
+        run.put("p999Ms", Reports.millis(Reports.percentile(sorted, 0.999)));
+        run.put("maxMs", Reports.millis(sorted.length == 0 ? 0 : sorted[sorted.length - 1]));
+        run.put("latencyGrowthMs", Reports.millis(growth));
+        run.put("drainMs", Reports.millis(drainNanos));
+        run.put("pending", pending);
+        run.put("sustainable", achieved >= rate * SUSTAINED_SHARE && pending == 0 && growth <= maxGrowthNanos);
+        return run;
+    }
+
+    private static void print(final Map<String, Object> run) {
+        System.out.printf("rate %s/s: achieved %s/s, %s changes (%s errors), replica latency p50 %s ms, p90 %s ms,"
+                        + " p99 %s ms, p99.9 %s ms, max %s ms, growth %s ms, drained in %s ms, %s pending -> %s%n",
+                Reports.rate((double) run.get("targetRate")), run.get("achievedRate"), run.get("changes"),
+                run.get("errors"),
+                run.get("p50Ms"), run.get("p90Ms"), run.get("p99Ms"), run.get("p999Ms"), run.get("maxMs"),
+                run.get("latencyGrowthMs"), run.get("drainMs"), run.get("pending"),
+                (boolean) run.get("sustainable") ? "sustainable" : "NOT sustainable");
+    }
+
+    private static long median(final long[] values) {
+        Arrays.sort(values);
+        return values[values.length / 2];
+    }
+
+}
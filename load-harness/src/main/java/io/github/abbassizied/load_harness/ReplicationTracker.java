@@ -0,0 +1,109 @@
+package io.github.abbassizied.load_harness;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Changes of one load run, from the call into product- or customer-service to the commit of the
+ * order-service replica. A change is identified by the nanoTime it was scheduled at, which the
+ * driver writes into the name of the product or customer, so the replica row tells which change
+ * it carries. Deletes carry no name and are looked up by key.
+ */
+final class ReplicationTracker {
+
+    static final String NAME_PREFIX = "load ";
+
+    private final long startNanos;
+    // latest change sent per key ("p" or "c" plus id)
+    private final Map<String, Long> sent = new ConcurrentHashMap<>();
+    // latest change applied per key
+    private final Map<String, Long> applied = new ConcurrentHashMap<>();
+    private final Map<String, Long> deletes = new ConcurrentHashMap<>();
+    // scheduled time and latency of every change applied for the first time, in pairs
+    private long[] samples = new long[1 << 16];
+    private int size;
+
+    ReplicationTracker(final long startNanos) {
+        this.startNanos = startNanos;
+    }
+
+    static String name(final long scheduledNanos) {
+        return NAME_PREFIX + scheduledNanos;
+    }
+
+    void sent(final String key, final long scheduledNanos) {
+        sent.put(key, scheduledNanos);
+    }
+
+    void deleting(final String key, final long scheduledNanos) {
+        deletes.put(key, scheduledNanos);
+        sent.put(key, scheduledNanos);
+    }
+
+    /**
+     * A replica row committed with the given name; names not written by the driver of this run are ignored.
+     */
+    void applied(final String key, final String name, final long nowNanos) {
+        if (name == null || !name.startsWith(NAME_PREFIX)) {
+            return;
+        }
+        applied(key, Long.parseLong(name.substring(NAME_PREFIX.length())), nowNanos);
+    }
+
+    void deleted(final String key, final long nowNanos) {
+        final Long scheduledNanos = deletes.remove(key);
+        if (scheduledNanos != null) {
+            applied(key, scheduledNanos, nowNanos);
+        }
+    }
+
+    private void applied(final String key, final long scheduledNanos, final long nowNanos) {
+        if (scheduledNanos < startNanos) {
+            return;
+        }
+        // redeliveries and later snapshots of the same change count once
+        applied.compute(key, (k, previous) -> {
+            if (previous == null || scheduledNanos > previous) {
+                record(scheduledNanos, nowNanos - scheduledNanos);
+                return scheduledNanos;
+            }
+            return previous;
+        });
+    }
+
+    private synchronized void record(final long scheduledNanos, final long latencyNanos) {
+        if (size + 2 > samples.length) {
+            samples = Arrays.copyOf(samples, samples.length * 2);
+        }
+        samples[size++] = scheduledNanos;
+        samples[size++] = latencyNanos;
+    }
+
+    /**
+     * Keys whose latest change has not reached the replica yet.
+     */
+    long pending() {
+        return sent.entrySet().stream()
+                .filter(entry -> {
+                    final Long latest = applied.get(entry.getKey());
+                    return latest == null || latest < entry.getValue();
+                })
+                .count();
+    }
+
+    /**
+     * Latencies in nanoseconds, in the order their changes were scheduled.
+     */
+    synchronized long[] latencies() {
+        final List<long[]> pairs = new ArrayList<>(size / 2);
+        for (int i = 0; i < size; i += 2) {
+            pairs.add(new long[] {samples[i], samples[i + 1]});
+        }
+        pairs.sort((a, b) -> Long.compare(a[0], b[0]));
+        return pairs.stream().mapToLong(pair -> pair[1]).toArray();
+    }
+
+}
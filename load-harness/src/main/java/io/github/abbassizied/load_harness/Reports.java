@@ -0,0 +1,60 @@
+package io.github.abbassizied.load_harness;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import java.io.File;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Options and report helpers shared by the harnesses.
+ */
+final class Reports {
+
+    private Reports() {
+    }
+
+    /**
+     * {@code --name=value} arguments by name.
+     */
+    static Map<String, String> options(final String[] args) {
+        final Map<String, String> options = new LinkedHashMap<>();
+        for (String arg : args) {
+            final int equals = arg.indexOf('=');
+            if (!arg.startsWith("--") || equals < 0) {
+                throw new IllegalArgumentException("Expected --name=value, was " + arg);
+            }
+            options.put(arg.substring(2, equals), arg.substring(equals + 1));
+        }
+        return options;
+    }
+
+    /**
+     * Nearest-rank percentile of ascending values, 0 for none.
+     */
+    static long percentile(final long[] sorted, final double quantile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        return sorted[(int) Math.max(0, Math.min(sorted.length - 1, Math.ceil(quantile * sorted.length) - 1))];
+    }
+
+    // to tenths of a millisecond
+    static double millis(final long nanos) {
+        return Math.round(nanos / 100_000.0) / 10.0;
+    }
+
+    static String rate(final double rate) {
+        return rate == Math.rint(rate) ? String.valueOf((long) rate) : String.valueOf(rate);
+    }
+
+    static void write(final File out, final Object report) throws IOException {
+        if (out.getParentFile() != null) {
+            out.getParentFile().mkdirs();
+        }
+        new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(out, report);
+        System.out.println("report written to " + out.getPath());
+    }
+
+}
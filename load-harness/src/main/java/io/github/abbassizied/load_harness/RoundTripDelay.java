@@ -0,0 +1,90 @@
+package io.github.abbassizied.load_harness;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import javax.sql.DataSource;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+/**
+ * Registered in a service: adds a fixed delay to every statement executed and every commit, as
+ * if the in-memory database were a network round trip away. Connections are then held about as
+ * long as against a real server, so the pool, not the CPU, is what requests wait for.
+ */
+final class RoundTripDelay implements BeanPostProcessor {
+
+    private final long delayNanos;
+
+    RoundTripDelay(final long delayNanos) {
+        this.delayNanos = delayNanos;
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(final Object bean, final String beanName) {
+        if (bean instanceof DataSource dataSource && !(bean instanceof Delayed)) {
+            return new Delayed(dataSource);
+        }
+        return bean;
+    }
+
+    private void delay() {
+        try {
+            Thread.sleep(delayNanos / 1_000_000, (int) (delayNanos % 1_000_000));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> T delaying(final T target, final Class<T> type, final boolean executes) {
+        final InvocationHandler handler = (proxy, method, args) -> {
+            final String name = method.getName();
+            if (executes ? name.startsWith("execute") : name.equals("commit")) {
+                delay();
+            }
+            final Object result;
+            try {
+                result = method.invoke(target, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+            // statements of a delaying connection delay too
+            if (result instanceof CallableStatement statement) {
+                return delaying(statement, CallableStatement.class, true);
+            }
+            if (result instanceof PreparedStatement statement) {
+                return delaying(statement, PreparedStatement.class, true);
+            }
+            if (result instanceof Statement statement && !(result instanceof Connection)) {
+                return delaying(statement, Statement.class, true);
+            }
+            return result;
+        };
+        return (T) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[] {type}, handler);
+    }
+
+    private final class Delayed extends DelegatingDataSource {
+
+        Delayed(final DataSource target) {
+            super(target);
+        }
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            return delaying(super.getConnection(), Connection.class, false);
+        }
+
+        @Override
+        public Connection getConnection(final String username, final String password) throws SQLException {
+            return delaying(super.getConnection(username, password), Connection.class, false);
+        }
+
+    }
+
+}
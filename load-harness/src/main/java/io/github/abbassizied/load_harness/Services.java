@@ -0,0 +1,42 @@
+package io.github.abbassizied.load_harness;
+
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.List;
+import org.springframework.boot.Banner;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ApplicationContextInitializer;
+import org.springframework.context.ConfigurableApplicationContext;
+
+/**
+ * Starts the services of this repository side by side in the current JVM. Each gets its own
+ * application.yml, overridden by the "test" configuration of test-support (a private in-memory
+ * H2 database), the given Kafka broker and a random port.
+ */
+final class Services {
+
+    private Services() {
+    }
+
+    static ConfigurableApplicationContext start(final Class<?> application, final String bootstrapServers,
+            final List<String> properties, final ApplicationContextInitializer<?>... initializers) {
+        final List<String> args = new ArrayList<>(List.of(
+                "--spring.config.location=" + configLocation(application) + ",classpath:/application-test.yml",
+                "--spring.kafka.bootstrap-servers=" + bootstrapServers,
+                "--server.port=0"));
+        args.addAll(properties);
+        return new SpringApplicationBuilder(application)
+                .bannerMode(Banner.Mode.OFF)
+                .logStartupInfo(false)
+                .initializers(initializers)
+                .run(args.toArray(String[]::new));
+    }
+
+    // the application.yml next to the service's classes: every service jar has one at its root
+    private static String configLocation(final Class<?> application) {
+        final URL location = application.getProtectionDomain().getCodeSource().getLocation();
+        final String path = location.toString();
+        return path.endsWith(".jar") ? "jar:" + path + "!/application.yml" : path + "application.yml";
+    }
+
+}
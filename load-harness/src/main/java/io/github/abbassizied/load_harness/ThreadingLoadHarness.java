@@ -0,0 +1,234 @@
+package io.github.abbassizied.load_harness;
+
+import io.github.abbassizied.product_service.ProductServiceApplication;
+import io.github.abbassizied.product_service.model.ProductDTO;
+import io.github.abbassizied.product_service.service.ProductService;
+import java.io.File;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.kafka.test.EmbeddedKafkaBroker;
+import org.springframework.kafka.test.EmbeddedKafkaKraftBroker;
+
+/**
+ * Compares product-service on platform threads with product-service on virtual threads
+ * (spring.threads.virtual.enabled, with DataSourceBulkhead in front of the pool) over HTTP.
+ * <p>
+ * Each mode gets a fresh instance against the same embedded KRaft broker, {@code --products}
+ * seeded products and {@code --query-delay-ms} added to every statement and commit (see
+ * {@link RoundTripDelay}), so requests that need a connection hold it about as long as against
+ * a real database. {@code --concurrency} clients then send requests back to back: GETs of a
+ * product, answered from the catalog cache, and PUTs of one ({@code --write-percent}), which
+ * need a connection. After {@code --warmup-s} the harness measures for {@code --duration-s} and
+ * reports the throughput and the p50/p99/p99.9 latency of reads and writes per mode. A closed
+ * loop measures the throughput at that concurrency; its latencies leave out the time a request
+ * would have waited to be sent.
+ * <p>
+ * Options, with their defaults:
+ * <pre>
+ * --concurrency=1000
+ * --write-percent=20
+ * --products=1000
+ * --query-delay-ms=2
+ * --warmup-s=5
+ * --duration-s=20
+ * --modes=platform,virtual
+ * --out=target/threading-load.json
+ * </pre>
+ */
+public final class ThreadingLoadHarness {
+
+    private ThreadingLoadHarness() {
+    }
+
+    public static void main(final String[] args) throws Exception {
+        final Map<String, String> options = Reports.options(args);
+        final int concurrency = Integer.parseInt(options.getOrDefault("concurrency", "1000"));
+        final int writePercent = Integer.parseInt(options.getOrDefault("write-percent", "20"));
+        final int products = Integer.parseInt(options.getOrDefault("products", "1000"));
+        final long queryDelayNanos = (long) (Double.parseDouble(options.getOrDefault("query-delay-ms", "2"))
+                * TimeUnit.MILLISECONDS.toNanos(1));
+        final long warmupNanos = TimeUnit.SECONDS.toNanos(Long.parseLong(options.getOrDefault("warmup-s", "5")));
+        final long durationNanos = TimeUnit.SECONDS.toNanos(Long.parseLong(options.getOrDefault("duration-s", "20")));
+        final List<String> modes = List.of(options.getOrDefault("modes", "platform,virtual").split(","));
+        final File out = new File(options.getOrDefault("out", "target/threading-load.json"));
+
+        final EmbeddedKafkaBroker broker = new EmbeddedKafkaKraftBroker(1, 1);
+        broker.afterPropertiesSet();
+        final Map<String, Object> report = new LinkedHashMap<>();
+        final HttpClient client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .build();
+        try {
+            for (String mode : modes) {
+                if (!mode.equals("platform") && !mode.equals("virtual")) {
+                    throw new IllegalArgumentException("Unknown mode " + mode + ", expected platform or virtual");
+                }
+                final RoundTripDelay delay = new RoundTripDelay(queryDelayNanos);
+                try (ConfigurableApplicationContext context = Services.start(ProductServiceApplication.class,
+                        broker.getBrokersAsString(),
+                        List.of("--spring.threads.virtual.enabled=" + mode.equals("virtual")),
+                        ctx -> ctx.getBeanFactory().addBeanPostProcessor(delay))) {
+                    final List<Long> ids = seed(context.getBean(ProductService.class), products);
+                    final URI base = URI.create("http://localhost:"
+                            + ((WebServerApplicationContext) context).getWebServer().getPort() + "/api/products/");
+                    final Load load = new Load(client, base, ids, writePercent);
+                    load.run(concurrency, warmupNanos, durationNanos);
+                    final Map<String, Object> run = load.report(durationNanos);
+                    report.put(mode, run);
+                    System.out.printf("%s threads: %s requests/s (%s errors), reads p50 %s ms, p99 %s ms, p99.9 %s ms,"
+                                    + " writes p50 %s ms, p99 %s ms, p99.9 %s ms%n",
+                            mode, run.get("requestsPerSecond"), run.get("errors"),
+                            run.get("readP50Ms"), run.get("readP99Ms"), run.get("readP999Ms"),
+                            run.get("writeP50Ms"), run.get("writeP99Ms"), run.get("writeP999Ms"));
+                }
+            }
+        } finally {
+            client.close();
+            broker.destroy();
+        }
+        Reports.write(out, report);
+        System.exit(0);
+    }
+
+    private static List<Long> seed(final ProductService productService, final int products) {
+        final List<Long> ids = new ArrayList<>(products);
+        for (int i = 0; i < products; i++) {
+            ids.add(productService.create(product(i, i)));
+        }
+        return ids;
+    }
+
+    private static ProductDTO product(final long id, final int quantity) {
+        final ProductDTO productDTO = new ProductDTO();
+        productDTO.setName("product " + id);
+        productDTO.setQuantity(quantity);
+        productDTO.setPrice(9.99);
+        return productDTO;
+    }
+
+    // closed loop: every client sends its next request once the previous one was answered
+    private static final class Load {
+
+        private final HttpClient client;
+        private final URI base;
+        private final List<Long> ids;
+        private final int writePercent;
+        private final LatencyLog reads = new LatencyLog();
+        private final LatencyLog writes = new LatencyLog();
+        private final LongAdder errors = new LongAdder();
+        private volatile boolean measuring;
+        private volatile boolean stopped;
+
+        Load(final HttpClient client, final URI base, final List<Long> ids, final int writePercent) {
+            this.client = client;
+            this.base = base;
+            this.ids = ids;
+            this.writePercent = writePercent;
+        }
+
+        void run(final int concurrency, final long warmupNanos, final long durationNanos)
+                throws InterruptedException {
+            final List<Thread> clients = new ArrayList<>(concurrency);
+            for (int i = 0; i < concurrency; i++) {
+                clients.add(Thread.ofVirtual().start(this::loop));
+            }
+            TimeUnit.NANOSECONDS.sleep(warmupNanos);
+            measuring = true;
+            TimeUnit.NANOSECONDS.sleep(durationNanos);
+            measuring = false;
+            stopped = true;
+            for (Thread thread : clients) {
+                thread.join();
+            }
+        }
+
+        private void loop() {
+            final ThreadLocalRandom random = ThreadLocalRandom.current();
+            while (!stopped) {
+                final Long id = ids.get(random.nextInt(ids.size()));
+                final boolean write = random.nextInt(100) < writePercent;
+                final HttpRequest request = write
+                        ? HttpRequest.newBuilder(base.resolve(id.toString()))
+                                .header("Content-Type", "application/json")
+                                .PUT(HttpRequest.BodyPublishers.ofString("{\"name\":\"product " + id
+                                        + "\",\"quantity\":" + random.nextInt(1000) + ",\"price\":9.99}"))
+                                .timeout(Duration.ofSeconds(60))
+                                .build()
+                        : HttpRequest.newBuilder(base.resolve(id.toString()))
+                                .timeout(Duration.ofSeconds(60))
+                                .build();
+                final boolean counted = measuring;
+                final long start = System.nanoTime();
+                boolean failed;
+                try {
+                    failed = client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode() >= 400;
+                } catch (Exception e) {
+                    failed = true;
+                }
+                final long latency = System.nanoTime() - start;
+                if (counted && measuring) {
+                    if (failed) {
+                        errors.increment();
+                    } else {
+                        (write ? writes : reads).add(latency);
+                    }
+                }
+            }
+        }
+
+        Map<String, Object> report(final long durationNanos) {
+            final long[] readLatencies = reads.sorted();
+            final long[] writeLatencies = writes.sorted();
+            final Map<String, Object> run = new LinkedHashMap<>();
+            run.put("requestsPerSecond", Math.round((readLatencies.length + writeLatencies.length)
+                    * (double) TimeUnit.SECONDS.toNanos(1) / durationNanos));
+            run.put("reads", readLatencies.length);
+            run.put("writes", writeLatencies.length);
+            run.put("errors", errors.sum());
+            run.put("readP50Ms", Reports.millis(Reports.percentile(readLatencies, 0.50)));
+            run.put("readP99Ms", Reports.millis(Reports.percentile(readLatencies, 0.99)));
+            run.put("readP999Ms", Reports.millis(Reports.percentile(readLatencies, 0.999)));
+            run.put("writeP50Ms", Reports.millis(Reports.percentile(writeLatencies, 0.50)));
+            run.put("writeP99Ms", Reports.millis(Reports.percentile(writeLatencies, 0.99)));
+            run.put("writeP999Ms", Reports.millis(Reports.percentile(writeLatencies, 0.999)));
+            return run;
+        }
+
+    }
+
+    private static final class LatencyLog {
+
+        private long[] values = new long[1 << 16];
+        private int size;
+
+        synchronized void add(final long value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        synchronized long[] sorted() {
+            final long[] sorted = Arrays.copyOf(values, size);
+            Arrays.sort(sorted);
+            return sorted;
+        }
+
+    }
+
+}
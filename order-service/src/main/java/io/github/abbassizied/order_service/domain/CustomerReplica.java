@@ -47,6 +47,10 @@ public class CustomerReplica {
     @AttributeOverride(name = "country", column = @Column(name = "billing_country"))
     private Address billingAddress;
 
+    // Kafka offset of the event that produced this state; older or replayed events are ignored
+    @Column
+    private Long sourceOffset;
+
     @CreatedDate
     @Column(nullable = false, updatable = false)
     private OffsetDateTime dateCreated;
@@ -31,6 +31,10 @@ public class ProductReplica {
     @Column(nullable = false)
     private Double price;
 
+    // Kafka offset of the event that produced this state; older or replayed events are ignored
+    @Column
+    private Long sourceOffset;
+
     @CreatedDate
     @Column(nullable = false, updatable = false)
     private OffsetDateTime dateCreated;
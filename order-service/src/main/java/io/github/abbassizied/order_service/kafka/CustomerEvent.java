@@ -2,15 +2,47 @@
 package io.github.abbassizied.order_service.kafka;
 
 import io.github.abbassizied.order_service.domain.Address;
+import io.github.abbassizied.event_schema.EventSchema;
 import lombok.Data;
 
 @Data
 public class CustomerEvent {
-    private String eventType; // CREATED, UPDATED, DELETED
+
+    public static final EventSchema<CustomerEvent> SCHEMA = EventSchema.builder("CustomerEvent", CustomerEvent::new)
+            .string("eventType", CustomerEvent::getEventType, CustomerEvent::setEventType)
+            .int64("customerId", CustomerEvent::getCustomerId, CustomerEvent::setCustomerId)
+            .string("name", CustomerEvent::getName, CustomerEvent::setName)
+            .string("email", CustomerEvent::getEmail, CustomerEvent::setEmail)
+            .string("phone", CustomerEvent::getPhone, CustomerEvent::setPhone)
+            .nested("shippingAddress", CustomerEvent::getShippingAddress, CustomerEvent::setShippingAddress, Address::new,
+                    b -> b.string("street", Address::getStreet, Address::setStreet)
+                            .string("city", Address::getCity, Address::setCity)
+                            .string("state", Address::getState, Address::setState)
+                            .string("postalCode", Address::getPostalCode, Address::setPostalCode)
+                            .string("country", Address::getCountry, Address::setCountry))
+            .nested("billingAddress", CustomerEvent::getBillingAddress, CustomerEvent::setBillingAddress, Address::new,
+                    b -> b.string("street", Address::getStreet, Address::setStreet)
+                            .string("city", Address::getCity, Address::setCity)
+                            .string("state", Address::getState, Address::setState)
+                            .string("postalCode", Address::getPostalCode, Address::setPostalCode)
+                            .string("country", Address::getCountry, Address::setCountry))
+            .int32("changedFields", CustomerEvent::getChangedFields, CustomerEvent::setChangedFields)
+            .build();
+
+    // changedFields bits of a PATCHED event
+    public static final int NAME = 1;
+    public static final int EMAIL = 1 << 1;
+    public static final int PHONE = 1 << 2;
+    public static final int SHIPPING_ADDRESS = 1 << 3;
+    public static final int BILLING_ADDRESS = 1 << 4;
+
+    private String eventType; // CREATED, UPDATED, PATCHED, DELETED
     private Long customerId;
     private String name;
     private String email;
     private String phone;
     private Address shippingAddress;
     private Address billingAddress;
+    // PATCHED only: which of the fields above are carried, the others are null and unchanged
+    private Integer changedFields;
 }
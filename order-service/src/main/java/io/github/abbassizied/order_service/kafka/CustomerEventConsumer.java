@@ -3,11 +3,18 @@ package io.github.abbassizied.order_service.kafka;
 
 import io.github.abbassizied.order_service.domain.CustomerReplica;
 import io.github.abbassizied.order_service.repos.CustomerReplicaRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.kafka.annotation.KafkaListener;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 @Service
 @SuppressWarnings("java:S1068") // Suppress SonarQube unused field warning
@@ -15,50 +22,169 @@ public class CustomerEventConsumer {
 
     private static final Logger log = LoggerFactory.getLogger(CustomerEventConsumer.class);
     private final CustomerReplicaRepository repository;
+    private final KeyOrderedExecutor workerPool;
+    private final TransactionTemplate transactionTemplate;
+    private final ListenerMetrics metrics;
 
     @SuppressWarnings("unused") // Suppress IDE warning
     private final KafkaTopicsConfig topicsConfig;
 
-    public CustomerEventConsumer(CustomerReplicaRepository repository, KafkaTopicsConfig topicsConfig) {
+    public CustomerEventConsumer(CustomerReplicaRepository repository, KeyOrderedExecutor workerPool,
+                                 TransactionTemplate transactionTemplate, KafkaTopicsConfig topicsConfig,
+                                 MeterRegistry meterRegistry) {
         this.repository = repository;
+        this.workerPool = workerPool;
+        this.transactionTemplate = transactionTemplate;
         this.topicsConfig = topicsConfig;
+        this.metrics = new ListenerMetrics(meterRegistry, topicsConfig.getCustomerEvents());
     }
 
-    @Transactional
+    /**
+     * Collapses a poll to the latest state per customerId (patches are folded into the record
+     * before them) and spreads it over the worker lanes; each lane writes one offset-guarded
+     * multi-row upsert, one partial update batch per set of changed fields and one bulk
+     * delete in its own transaction. As for products, a lane whose transaction fails applies
+     * its records one at a time and the earliest record still failing across all lanes is
+     * reported to the error handler.
+     */
     @KafkaListener(
         topics = "#{@kafkaTopicsConfig.customerEvents}", // SpEL expression
         groupId = "order-service-customer", // ← This sets the group ID
-        // Specific factory
+        // Specific factory (batch mode)
         containerFactory = "customerKafkaListenerContainerFactory")
-    public void onMessage(CustomerEvent event) {
-        if (event == null || event.getCustomerId() == null) {
-            log.warn("Received invalid CustomerEvent: {}", event);
-            return;
+    public void onMessage(List<ConsumerRecord<String, CustomerEvent>> records) {
+        metrics.received(records);
+
+        // keep only the last record per customerId, preserving arrival order
+        final Map<Long, ConsumerRecord<String, CustomerEvent>> latest = new LinkedHashMap<>();
+        for (ConsumerRecord<String, CustomerEvent> record : records) {
+            final Long customerId = customerId(record);
+            if (customerId == null) {
+                log.warn("Received invalid CustomerEvent: {}", record.value());
+                continue;
+            }
+            final ConsumerRecord<String, CustomerEvent> previous = latest.remove(customerId);
+            latest.put(customerId, previous == null ? record : fold(previous, record));
         }
 
-        switch (String.valueOf(event.getEventType())) {
-            case "CREATED", "UPDATED": {
-                CustomerReplica replica = repository.findById(event.getCustomerId())
-                        .orElseGet(CustomerReplica::new);
-                if (replica.getId() == null) {
-                    replica.setId(event.getCustomerId());
-                }
-                replica.setName(event.getName());
-                replica.setEmail(event.getEmail());
-                replica.setPhone(event.getPhone());
-                replica.setShippingAddress(event.getShippingAddress());
-                replica.setBillingAddress(event.getBillingAddress());
-                repository.save(replica);
-                log.info("Upserted CustomerReplica id={}", replica.getId());
-                break;
+        try {
+            workerPool.executeAll(new ArrayList<>(latest.values()), CustomerEventConsumer::customerId,
+                    lane -> FailedRecords.applyOrIsolate(lane, this::apply));
+        } catch (RuntimeException e) {
+            throw FailedRecords.earliest(records, e);
+        }
+    }
+
+    private void apply(final List<ConsumerRecord<String, CustomerEvent>> records) {
+        final List<CustomerReplica> upserts = new ArrayList<>();
+        final Map<Integer, List<CustomerReplica>> patches = new HashMap<>();
+        final List<Long> deletes = new ArrayList<>();
+        for (ConsumerRecord<String, CustomerEvent> record : records) {
+            final CustomerEvent event = record.value();
+            if (event == null) {
+                // tombstone on the compacted topic: the customer was deleted
+                deletes.add(Long.valueOf(record.key()));
+                continue;
             }
-            case "DELETED": {
-                repository.deleteById(event.getCustomerId());
-                log.info("Deleted CustomerReplica id={}", event.getCustomerId());
-                break;
+            switch (String.valueOf(event.getEventType())) {
+                case "CREATED", "UPDATED":
+                    upserts.add(mapToReplica(event, record.offset()));
+                    break;
+                case "PATCHED":
+                    patches.computeIfAbsent(event.getChangedFields(), changed -> new ArrayList<>())
+                            .add(mapToReplica(event, record.offset()));
+                    break;
+                case "DELETED":
+                    deletes.add(event.getCustomerId());
+                    break;
+                default:
+                    log.warn("Unknown CustomerEvent type: {}", event.getEventType());
             }
-            default:
-                log.warn("Unknown CustomerEvent type: {}", event.getEventType());
         }
+
+        transactionTemplate.executeWithoutResult(status -> {
+            repository.upsertAll(upserts);
+            patches.forEach((changedFields, replicas) -> repository.patchAll(properties(changedFields), replicas));
+            if (!deletes.isEmpty()) {
+                repository.deleteAllByIdInBatch(deletes);
+            }
+        });
+        log.info("Upserted {}, patched {} and deleted {} CustomerReplicas", upserts.size(),
+                patches.values().stream().mapToInt(List::size).sum(), deletes.size());
+    }
+
+    private static Long customerId(final ConsumerRecord<String, CustomerEvent> record) {
+        if (record.value() != null) {
+            return record.value().getCustomerId();
+        }
+        return record.key() == null ? null : Long.valueOf(record.key());
+    }
+
+    /**
+     * Combines two records of the same customer in offset order: a PATCHED event is applied
+     * on top of a snapshot or patch before it, anything else simply replaces it.
+     */
+    static ConsumerRecord<String, CustomerEvent> fold(final ConsumerRecord<String, CustomerEvent> previous,
+            final ConsumerRecord<String, CustomerEvent> record) {
+        final CustomerEvent base = previous.value();
+        final CustomerEvent patch = record.value();
+        if (!isPatch(patch) || base == null || "DELETED".equals(base.getEventType())) {
+            return record;
+        }
+        return new ConsumerRecord<>(record.topic(), record.partition(), record.offset(), record.key(),
+                merge(base, patch));
+    }
+
+    static boolean isPatch(final CustomerEvent event) {
+        return event != null && "PATCHED".equals(event.getEventType()) && event.getChangedFields() != null;
+    }
+
+    private static CustomerEvent merge(final CustomerEvent base, final CustomerEvent patch) {
+        final int changed = patch.getChangedFields();
+        final CustomerEvent merged = new CustomerEvent();
+        merged.setEventType(base.getEventType());
+        merged.setCustomerId(patch.getCustomerId());
+        merged.setName((changed & CustomerEvent.NAME) != 0 ? patch.getName() : base.getName());
+        merged.setEmail((changed & CustomerEvent.EMAIL) != 0 ? patch.getEmail() : base.getEmail());
+        merged.setPhone((changed & CustomerEvent.PHONE) != 0 ? patch.getPhone() : base.getPhone());
+        merged.setShippingAddress((changed & CustomerEvent.SHIPPING_ADDRESS) != 0
+                ? patch.getShippingAddress() : base.getShippingAddress());
+        merged.setBillingAddress((changed & CustomerEvent.BILLING_ADDRESS) != 0
+                ? patch.getBillingAddress() : base.getBillingAddress());
+        // a snapshot stays a snapshot, two patches carry the union of their fields
+        merged.setChangedFields(base.getChangedFields() == null ? null : base.getChangedFields() | changed);
+        return merged;
+    }
+
+    private static List<String> properties(final int changedFields) {
+        final List<String> properties = new ArrayList<>(5);
+        if ((changedFields & CustomerEvent.NAME) != 0) {
+            properties.add("name");
+        }
+        if ((changedFields & CustomerEvent.EMAIL) != 0) {
+            properties.add("email");
+        }
+        if ((changedFields & CustomerEvent.PHONE) != 0) {
+            properties.add("phone");
+        }
+        if ((changedFields & CustomerEvent.SHIPPING_ADDRESS) != 0) {
+            properties.add("shippingAddress");
+        }
+        if ((changedFields & CustomerEvent.BILLING_ADDRESS) != 0) {
+            properties.add("billingAddress");
+        }
+        return properties;
+    }
+
+    static CustomerReplica mapToReplica(final CustomerEvent event, final long offset) {
+        final CustomerReplica replica = new CustomerReplica();
+        replica.setId(event.getCustomerId());
+        replica.setName(event.getName());
+        replica.setEmail(event.getEmail());
+        replica.setPhone(event.getPhone());
+        replica.setShippingAddress(event.getShippingAddress());
+        replica.setBillingAddress(event.getBillingAddress());
+        replica.setSourceOffset(offset);
+        return replica;
     }
 }
@@ -0,0 +1,220 @@
+package io.github.abbassizied.order_service.kafka;
+
+import io.github.abbassizied.order_service.domain.CustomerReplica;
+import io.github.abbassizied.order_service.repos.CustomerReplicaRepository;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.KafkaException;
+import org.apache.kafka.common.PartitionInfo;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.errors.TimeoutException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.stereotype.Component;
+
+/**
+ * Cold-start loader for the customer replica.
+ * <p>
+ * Reads the compacted customer-events topic up to its end offsets, keeps the latest state per
+ * customerId (patches are folded into it, tombstones remove it) and writes the live customers
+ * in bulk. Partitions on which the listener's group has committed offsets are left to
+ * {@link CustomerEventConsumer}, unless the Customers table is empty. Runs before the web
+ * server and the Kafka listener containers are started, and commits its positions for the
+ * listener's group so the listener resumes where the snapshot ended.
+ * <p>
+ * Bounded by app.kafka.customer-bootstrap.timeout-ms: should the broker not answer or the
+ * topic not be read by then, nothing is written or committed and the listener replays the
+ * topic itself, slower but just as complete.
+ */
+@Component
+public class CustomerSnapshotBootstrap implements SmartLifecycle {
+
+    private static final Logger log = LoggerFactory.getLogger(CustomerSnapshotBootstrap.class);
+
+    // the embedded web server starts at DEFAULT_PHASE - 2048, listener containers even later
+    private static final int PHASE = SmartLifecycle.DEFAULT_PHASE - 4096;
+    private static final String GROUP_ID = "order-service-customer";
+    private static final Duration POLL_TIMEOUT = Duration.ofMillis(500);
+    private static final int WRITE_CHUNK_SIZE = 1000;
+
+    private final ConsumerFactory<String, CustomerEvent> customerConsumerFactory;
+    private final CustomerReplicaRepository repository;
+    private final KafkaTopicsConfig topicsConfig;
+    private final boolean enabled;
+    private final Duration timeout;
+    private volatile boolean running;
+
+    public CustomerSnapshotBootstrap(ConsumerFactory<String, CustomerEvent> customerConsumerFactory,
+                                     CustomerReplicaRepository repository,
+                                     KafkaTopicsConfig topicsConfig,
+                                     @Value("${app.kafka.customer-bootstrap.enabled:true}") boolean enabled,
+                                     @Value("${app.kafka.customer-bootstrap.timeout-ms:120000}") long timeoutMs) {
+        this.customerConsumerFactory = customerConsumerFactory;
+        this.repository = repository;
+        this.topicsConfig = topicsConfig;
+        this.enabled = enabled;
+        this.timeout = Duration.ofMillis(timeoutMs);
+    }
+
+    @Override
+    public void start() {
+        running = true;
+        if (!enabled) {
+            return;
+        }
+        try {
+            load();
+        } catch (TimeoutException e) {
+            log.warn("Customer snapshot bootstrap gave up after {} ms, the listener replays {} instead: {}",
+                    timeout.toMillis(), topicsConfig.getCustomerEvents(), e.getMessage());
+        }
+    }
+
+    private void load() {
+        final long start = System.nanoTime();
+        final long deadline = start + timeout.toNanos();
+        final String topic = topicsConfig.getCustomerEvents();
+        final Properties overrides = new Properties();
+        overrides.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, false);
+        overrides.put(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, 5000);
+
+        try (Consumer<String, CustomerEvent> consumer =
+                     customerConsumerFactory.createConsumer(GROUP_ID, null, "-bootstrap", overrides)) {
+            final List<PartitionInfo> partitionInfos = consumer.partitionsFor(topic, timeout);
+            if (partitionInfos == null || partitionInfos.isEmpty()) {
+                log.info("Topic {} has no partitions yet, nothing to bootstrap", topic);
+                return;
+            }
+            final List<TopicPartition> partitions = unread(consumer, partitionInfos.stream()
+                    .map(info -> new TopicPartition(topic, info.partition()))
+                    .toList());
+            if (partitions.isEmpty()) {
+                log.info("Group {} has committed offsets on all partitions of {}, skipping snapshot bootstrap",
+                        GROUP_ID, topic);
+                return;
+            }
+            consumer.assign(partitions);
+            consumer.seekToBeginning(partitions);
+            final Map<TopicPartition, Long> endOffsets = consumer.endOffsets(partitions, timeout);
+
+            // latest state per customerId; a tombstone or DELETED drops the key
+            final Map<Long, ConsumerRecord<String, CustomerEvent>> live = new LinkedHashMap<>();
+            final Set<Long> deleted = new HashSet<>();
+            long records = 0;
+            while (!caughtUp(consumer, endOffsets)) {
+                if (System.nanoTime() - deadline > 0) {
+                    throw new TimeoutException("read " + records + " records of " + topic + " before the deadline");
+                }
+                for (ConsumerRecord<String, CustomerEvent> record : consumer.poll(POLL_TIMEOUT)) {
+                    records++;
+                    if (record.key() == null) {
+                        continue;
+                    }
+                    final Long customerId = Long.valueOf(record.key());
+                    final CustomerEvent event = record.value();
+                    if (event == null || "DELETED".equals(event.getEventType())) {
+                        live.remove(customerId);
+                        deleted.add(customerId);
+                    } else {
+                        deleted.remove(customerId);
+                        final ConsumerRecord<String, CustomerEvent> previous = live.get(customerId);
+                        live.put(customerId, previous == null ? record : CustomerEventConsumer.fold(previous, record));
+                    }
+                }
+            }
+
+            final List<CustomerReplica> replicas = new ArrayList<>(live.size());
+            int patchOnly = 0;
+            for (ConsumerRecord<String, CustomerEvent> record : live.values()) {
+                if (CustomerEventConsumer.isPatch(record.value())) {
+                    // the snapshot was compacted away; customer-service republishes it in full shortly
+                    patchOnly++;
+                    continue;
+                }
+                replicas.add(CustomerEventConsumer.mapToReplica(record.value(), record.offset()));
+            }
+            if (patchOnly > 0) {
+                log.warn("Skipped {} customers with only patches left on {}", patchOnly, topic);
+            }
+            for (int from = 0; from < replicas.size(); from += WRITE_CHUNK_SIZE) {
+                repository.upsertAll(replicas.subList(from, Math.min(from + WRITE_CHUNK_SIZE, replicas.size())));
+            }
+            // rows of a populated table whose customer was deleted since
+            final List<Long> deletes = List.copyOf(deleted);
+            for (int from = 0; from < deletes.size(); from += WRITE_CHUNK_SIZE) {
+                final Set<Long> existing = repository.findExistingIds(
+                        deletes.subList(from, Math.min(from + WRITE_CHUNK_SIZE, deletes.size())));
+                if (!existing.isEmpty()) {
+                    repository.deleteAllByIdInBatch(existing);
+                }
+            }
+
+            commitPositions(consumer, partitions);
+            log.info("Bootstrapped {} CustomerReplicas from {} records of {} in {} ms",
+                    replicas.size(), records, topic, (System.nanoTime() - start) / 1_000_000);
+        }
+    }
+
+    // partitions the listener would otherwise replay: all of them for an empty table
+    private List<TopicPartition> unread(final Consumer<?, ?> consumer, final List<TopicPartition> partitions) {
+        if (repository.count() == 0) {
+            return partitions;
+        }
+        final Map<TopicPartition, OffsetAndMetadata> committed = consumer.committed(Set.copyOf(partitions), timeout);
+        return partitions.stream()
+                .filter(partition -> committed.get(partition) == null)
+                .toList();
+    }
+
+    private boolean caughtUp(final Consumer<?, ?> consumer, final Map<TopicPartition, Long> endOffsets) {
+        for (Map.Entry<TopicPartition, Long> entry : endOffsets.entrySet()) {
+            if (consumer.position(entry.getKey(), timeout) < entry.getValue()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void commitPositions(final Consumer<?, ?> consumer, final List<TopicPartition> partitions) {
+        final Map<TopicPartition, OffsetAndMetadata> offsets = new HashMap<>();
+        for (TopicPartition partition : partitions) {
+            offsets.put(partition, new OffsetAndMetadata(consumer.position(partition, timeout)));
+        }
+        try {
+            consumer.commitSync(offsets, timeout);
+        } catch (KafkaException e) {
+            // e.g. the group already has active members; the listener then replays from
+            // its own committed offsets, which is safe because upserts are idempotent
+            log.warn("Could not commit snapshot offsets for group {}: {}", GROUP_ID, e.getMessage());
+        }
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public int getPhase() {
+        return PHASE;
+    }
+}
@@ -0,0 +1,108 @@
+package io.github.abbassizied.order_service.kafka;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.kafka.listener.BatchListenerFailedException;
+
+/**
+ * Turns the per-record failures of a replica batch into the one failure the container's
+ * {@code DefaultErrorHandler} acts on: a {@link BatchListenerFailedException} at the earliest
+ * failed position of the poll. The handler commits every offset before it and retries or
+ * dead-letters from there, instead of replaying and finally skipping the whole poll.
+ */
+final class FailedRecords {
+
+    private static final Logger log = LoggerFactory.getLogger(FailedRecords.class);
+
+    private FailedRecords() {
+    }
+
+    /**
+     * Applies a lane's records with {@code apply} in one go and, should that fail, once more one
+     * record at a time. Records that fail on their own are thrown as record failures, the first
+     * one carrying the others as suppressed exceptions.
+     */
+    static <R extends ConsumerRecord<?, ?>> void applyOrIsolate(final List<R> records, final Consumer<List<R>> apply) {
+        try {
+            apply.accept(records);
+        } catch (RuntimeException e) {
+            if (records.size() == 1) {
+                throw failed(records.get(0), e);
+            }
+            log.warn("Applying {} records of {} in one transaction failed, applying them one by one",
+                    records.size(), records.get(0).topic(), e);
+            RuntimeException failure = null;
+            for (R record : records) {
+                try {
+                    apply.accept(List.of(record));
+                } catch (RuntimeException recordFailure) {
+                    final RuntimeException failed = failed(record, recordFailure);
+                    if (failure == null) {
+                        failure = failed;
+                    } else {
+                        failure.addSuppressed(failed);
+                    }
+                }
+            }
+            if (failure != null) {
+                throw failure;
+            }
+        }
+    }
+
+    static BatchListenerFailedException failed(final ConsumerRecord<?, ?> record, final RuntimeException cause) {
+        return new BatchListenerFailedException("Could not apply " + record.topic() + "-" + record.partition()
+                + "@" + record.offset() + " (key " + record.key() + ")", cause, record);
+    }
+
+    /**
+     * Returns the failure to rethrow from the listener: the earliest of the record failures
+     * in {@code failure} and its (nested) suppressed exceptions, located in {@code batch} by topic,
+     * partition and offset, or {@code failure} itself if none names a record of the batch.
+     */
+    static RuntimeException earliest(final List<? extends ConsumerRecord<?, ?>> batch,
+            final RuntimeException failure) {
+        final List<Throwable> failures = new ArrayList<>();
+        collect(failure, failures);
+
+        BatchListenerFailedException earliest = null;
+        int earliestIndex = Integer.MAX_VALUE;
+        for (Throwable candidate : failures) {
+            if (candidate instanceof BatchListenerFailedException failed && failed.getRecord() != null) {
+                final int index = indexOf(batch, failed.getRecord());
+                if (index >= 0 && index < earliestIndex) {
+                    earliest = failed;
+                    earliestIndex = index;
+                }
+            }
+        }
+        if (earliest == null) {
+            return failure;
+        }
+        // the records behind it, failed or not, are applied again when the poll is redelivered from there
+        return new BatchListenerFailedException(earliest.getMessage(), earliest.getCause(), earliestIndex);
+    }
+
+    // the failure and everything suppressed in it, at any depth
+    private static void collect(final Throwable failure, final List<Throwable> failures) {
+        failures.add(failure);
+        for (Throwable suppressed : failure.getSuppressed()) {
+            collect(suppressed, failures);
+        }
+    }
+
+    private static int indexOf(final List<? extends ConsumerRecord<?, ?>> batch, final ConsumerRecord<?, ?> record) {
+        for (int i = 0; i < batch.size(); i++) {
+            final ConsumerRecord<?, ?> candidate = batch.get(i);
+            if (candidate.offset() == record.offset() && candidate.partition() == record.partition()
+                    && candidate.topic().equals(record.topic())) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
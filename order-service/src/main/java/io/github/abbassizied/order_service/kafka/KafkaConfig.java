@@ -1,61 +1,147 @@
 package io.github.abbassizied.order_service.kafka;
 
-import org.apache.kafka.clients.consumer.ConsumerConfig;
+import io.github.abbassizied.event_schema.EventDeserializer;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.apache.kafka.common.TopicPartition;
 import org.apache.kafka.common.serialization.StringDeserializer;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
 import org.springframework.kafka.core.ConsumerFactory;
 import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
+import org.springframework.kafka.core.DefaultKafkaProducerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.core.MicrometerConsumerListener;
+import org.springframework.kafka.core.MicrometerProducerListener;
+import org.springframework.kafka.listener.DeadLetterPublishingRecoverer;
+import org.springframework.kafka.listener.DefaultErrorHandler;
 import org.springframework.kafka.support.serializer.JsonDeserializer;
+import org.springframework.kafka.support.serializer.JsonSerializer;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.boot.autoconfigure.kafka.KafkaProperties;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.core.env.Environment;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.util.backoff.ExponentialBackOff;
 
 import java.util.Map;
 
 @Configuration
 public class KafkaConfig {
 
+    /** Suffix of the topic a replica record goes to once retrying it is given up. */
+    public static final String DEAD_LETTER_SUFFIX = "-dlt";
+
     private final KafkaProperties kafkaProperties;
+    private final MeterRegistry meterRegistry;
+    private final Environment environment;
 
-    public KafkaConfig(KafkaProperties kafkaProperties) {
+    public KafkaConfig(KafkaProperties kafkaProperties, MeterRegistry meterRegistry, Environment environment) {
         this.kafkaProperties = kafkaProperties;
+        this.meterRegistry = meterRegistry;
+        this.environment = environment;
     }
 
     @Bean
-    public ConcurrentKafkaListenerContainerFactory<String, ProductEvent> productKafkaListenerContainerFactory() {
+    public ConcurrentKafkaListenerContainerFactory<String, ProductEvent> productKafkaListenerContainerFactory(
+            DefaultErrorHandler replicaErrorHandler) {
         ConcurrentKafkaListenerContainerFactory<String, ProductEvent> factory = 
             new ConcurrentKafkaListenerContainerFactory<>();
         factory.setConsumerFactory(productConsumerFactory());
+        configureThreading(factory, "product-listener-");
+        // deliver each poll as one List<ProductEvent> (size bounded by max.poll.records)
+        factory.setBatchListener(true);
+        factory.setCommonErrorHandler(replicaErrorHandler);
         return factory;
     }
 
     @Bean
-    public ConcurrentKafkaListenerContainerFactory<String, CustomerEvent> customerKafkaListenerContainerFactory() {
+    public ConcurrentKafkaListenerContainerFactory<String, CustomerEvent> customerKafkaListenerContainerFactory(
+            DefaultErrorHandler replicaErrorHandler) {
         ConcurrentKafkaListenerContainerFactory<String, CustomerEvent> factory = 
             new ConcurrentKafkaListenerContainerFactory<>();
         factory.setConsumerFactory(customerConsumerFactory());
+        configureThreading(factory, "customer-listener-");
+        // each poll is handed over as a list and fanned out by key in CustomerEventConsumer
+        factory.setBatchListener(true);
+        factory.setCommonErrorHandler(replicaErrorHandler);
         return factory;
     }
 
+    /**
+     * Retries the failed record of a replica batch (see {@link FailedRecords}) with exponential
+     * back off, then publishes it to {@code <topic>-dlt} and carries on with the rest of the poll.
+     * Constraint violations fail the same way on every attempt and are dead-lettered right away.
+     */
+    @Bean
+    public DefaultErrorHandler replicaErrorHandler(
+            @Value("${app.kafka.retry.initial-interval-ms:1000}") long initialInterval,
+            @Value("${app.kafka.retry.max-interval-ms:30000}") long maxInterval,
+            @Value("${app.kafka.retry.max-elapsed-ms:600000}") long maxElapsed) {
+        // partition -1: the dead letter topic's own partitioner places the record by key
+        DeadLetterPublishingRecoverer recoverer = new DeadLetterPublishingRecoverer(deadLetterKafkaTemplate(),
+                (record, e) -> new TopicPartition(record.topic() + DEAD_LETTER_SUFFIX, -1));
+        ExponentialBackOff backOff = new ExponentialBackOff(initialInterval, 2);
+        backOff.setMaxInterval(maxInterval);
+        backOff.setMaxElapsedTime(maxElapsed);
+        DefaultErrorHandler errorHandler = new DefaultErrorHandler(recoverer, backOff);
+        errorHandler.addNotRetryableExceptions(DataIntegrityViolationException.class);
+        return errorHandler;
+    }
+
+    // JSON without type headers, which EventDeserializer reads back if a dead letter is replayed
+    @Bean
+    public KafkaTemplate<String, Object> deadLetterKafkaTemplate() {
+        Map<String, Object> configs = kafkaProperties.buildProducerProperties();
+        DefaultKafkaProducerFactory<String, Object> factory = new DefaultKafkaProducerFactory<>(configs,
+                new StringSerializer(), new JsonSerializer<Object>().noTypeInfo());
+        factory.addListener(new MicrometerProducerListener<>(meterRegistry));
+        return new KafkaTemplate<>(factory);
+    }
+
+    /**
+     * Worker lanes shared by the replica consumers; keep it below the Hikari pool size
+     * since every busy lane holds a connection.
+     */
+    @Bean(destroyMethod = "shutdown")
+    public KeyOrderedExecutor replicaWorkerPool(@Value("${app.kafka.replica-workers:1}") int workers) {
+        return new KeyOrderedExecutor(workers);
+    }
+
+    // same as Boot does for its own factory: one virtual thread per listener container
+    private void configureThreading(ConcurrentKafkaListenerContainerFactory<?, ?> factory, String threadPrefix) {
+        if (Threading.VIRTUAL.isActive(environment)) {
+            SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor(threadPrefix);
+            executor.setVirtualThreads(true);
+            factory.getContainerProperties().setListenerTaskExecutor(executor);
+        }
+    }
+
     @Bean
     public ConsumerFactory<String, ProductEvent> productConsumerFactory() {
         Map<String, Object> configs = kafkaProperties.buildConsumerProperties();
-        configs.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class);
-        configs.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, JsonDeserializer.class);
         configs.put(JsonDeserializer.VALUE_DEFAULT_TYPE, ProductEvent.class.getName());
         configs.put(JsonDeserializer.TRUSTED_PACKAGES, "*");
         
-        return new DefaultKafkaConsumerFactory<>(configs);
+        DefaultKafkaConsumerFactory<String, ProductEvent> factory = new DefaultKafkaConsumerFactory<>(configs,
+                StringDeserializer::new, () -> new EventDeserializer<>(ProductEvent.SCHEMA));
+        // client metrics, among them kafka.consumer.fetch.manager.records.lag(.max) per group
+        factory.addListener(new MicrometerConsumerListener<>(meterRegistry));
+        return factory;
     }
 
     @Bean
     public ConsumerFactory<String, CustomerEvent> customerConsumerFactory() {
         Map<String, Object> configs = kafkaProperties.buildConsumerProperties();
-        configs.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class);
-        configs.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, JsonDeserializer.class);
         configs.put(JsonDeserializer.VALUE_DEFAULT_TYPE, CustomerEvent.class.getName());
         configs.put(JsonDeserializer.TRUSTED_PACKAGES, "*");
         
-        return new DefaultKafkaConsumerFactory<>(configs);
+        DefaultKafkaConsumerFactory<String, CustomerEvent> factory = new DefaultKafkaConsumerFactory<>(configs,
+                StringDeserializer::new, () -> new EventDeserializer<>(CustomerEvent.SCHEMA));
+        // client metrics, among them kafka.consumer.fetch.manager.records.lag(.max) per group
+        factory.addListener(new MicrometerConsumerListener<>(meterRegistry));
+        return factory;
     }
 }
\ No newline at end of file
@@ -0,0 +1,97 @@
+package io.github.abbassizied.order_service.kafka;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Fans the records of one poll out to a fixed set of single-threaded lanes.
+ * <p>
+ * Every key is always routed to the same lane, so records sharing a key are applied in
+ * their partition order while different keys run in parallel. {@link #executeAll} only
+ * returns once every lane has finished, so the container commits the batch offsets after
+ * all lower offsets are done. Failures of all lanes are reported together: the first one
+ * is thrown with the others attached as suppressed exceptions, so the caller can pick the
+ * earliest failed record rather than whichever lane happened to fail first.
+ */
+public class KeyOrderedExecutor {
+
+    private final ExecutorService[] lanes;
+
+    public KeyOrderedExecutor(final int workers) {
+        if (workers < 1) {
+            throw new IllegalArgumentException("workers must be >= 1");
+        }
+        this.lanes = new ExecutorService[workers];
+        for (int i = 0; i < workers; i++) {
+            final String threadName = "replica-worker-" + i;
+            lanes[i] = Executors.newSingleThreadExecutor(runnable -> new Thread(runnable, threadName));
+        }
+    }
+
+    public int getWorkers() {
+        return lanes.length;
+    }
+
+    public <T> void executeAll(final List<T> items, final Function<T, ?> keyFn, final Consumer<List<T>> work) {
+        if (items.isEmpty()) {
+            return;
+        }
+        if (lanes.length == 1) {
+            // serial mode, stay on the listener thread
+            work.accept(items);
+            return;
+        }
+
+        final List<List<T>> byLane = new ArrayList<>(lanes.length);
+        for (int i = 0; i < lanes.length; i++) {
+            byLane.add(new ArrayList<>());
+        }
+        for (T item : items) {
+            byLane.get(Math.floorMod(Objects.hashCode(keyFn.apply(item)), lanes.length)).add(item);
+        }
+
+        final List<Future<?>> futures = new ArrayList<>(lanes.length);
+        for (int i = 0; i < lanes.length; i++) {
+            final List<T> laneItems = byLane.get(i);
+            if (!laneItems.isEmpty()) {
+                futures.add(lanes[i].submit(() -> work.accept(laneItems)));
+            }
+        }
+
+        // wait for every lane, even after a failure, so nothing is still running when
+        // the container's error handler redelivers the batch
+        RuntimeException failure = null;
+        for (Future<?> future : futures) {
+            try {
+                future.get();
+            } catch (ExecutionException e) {
+                final RuntimeException laneFailure = e.getCause() instanceof RuntimeException runtime
+                        ? runtime : new IllegalStateException(e.getCause());
+                if (failure == null) {
+                    failure = laneFailure;
+                } else {
+                    failure.addSuppressed(laneFailure);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while waiting for replica workers", e);
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    public void shutdown() {
+        for (ExecutorService lane : lanes) {
+            lane.shutdown();
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package io.github.abbassizied.order_service.kafka;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+
+/**
+ * Per-topic throughput and replication lag of a replica listener: {@code replica.records}
+ * counts received records (rate = records/sec), {@code replica.lag} is the time from the
+ * record's producer timestamp until it reaches the listener.
+ */
+class ListenerMetrics {
+
+    private final Counter records;
+    private final Timer lag;
+
+    ListenerMetrics(final MeterRegistry meterRegistry, final String topic) {
+        this.records = Counter.builder("replica.records")
+                .description("Records received by the replica listener")
+                .tag("topic", topic)
+                .register(meterRegistry);
+        this.lag = Timer.builder("replica.lag")
+                .description("Time from producing a record until the replica listener receives it")
+                .tag("topic", topic)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+
+    void received(final List<? extends ConsumerRecord<?, ?>> batch) {
+        records.increment(batch.size());
+        final long now = System.currentTimeMillis();
+        for (ConsumerRecord<?, ?> record : batch) {
+            lag.record(Math.max(0, now - record.timestamp()), TimeUnit.MILLISECONDS);
+        }
+    }
+}
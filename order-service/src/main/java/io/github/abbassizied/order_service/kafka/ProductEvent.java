@@ -1,10 +1,20 @@
 // src/main/java/io/github/abbassizied/order_service/kafka/ProductEvent.java
 package io.github.abbassizied.order_service.kafka;
 
+import io.github.abbassizied.event_schema.EventSchema;
 import lombok.Data;
 
 @Data
 public class ProductEvent {
+
+    public static final EventSchema<ProductEvent> SCHEMA = EventSchema.builder("ProductEvent", ProductEvent::new)
+            .string("eventType", ProductEvent::getEventType, ProductEvent::setEventType)
+            .int64("productId", ProductEvent::getProductId, ProductEvent::setProductId)
+            .string("name", ProductEvent::getName, ProductEvent::setName)
+            .int32("quantity", ProductEvent::getQuantity, ProductEvent::setQuantity)
+            .float64("price", ProductEvent::getPrice, ProductEvent::setPrice)
+            .build();
+
     private String eventType; // CREATED, UPDATED, DELETED
     private Long productId;
     private String name;
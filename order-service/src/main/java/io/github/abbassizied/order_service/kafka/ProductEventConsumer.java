@@ -3,11 +3,19 @@ package io.github.abbassizied.order_service.kafka;
 
 import io.github.abbassizied.order_service.domain.ProductReplica;
 import io.github.abbassizied.order_service.repos.ProductReplicaRepository;
+import io.github.abbassizied.order_service.service.ProductReplicaCache;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.kafka.annotation.KafkaListener;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 @Service
 @SuppressWarnings("java:S1068") // Suppress SonarQube unused field warning
@@ -15,48 +23,108 @@ public class ProductEventConsumer {
 
     private static final Logger log = LoggerFactory.getLogger(ProductEventConsumer.class);
     private final ProductReplicaRepository repository;
+    // absent when the Kafka Streams product store answers lookups
+    private final Optional<ProductReplicaCache> productCache;
+    private final KeyOrderedExecutor workerPool;
+    private final TransactionTemplate transactionTemplate;
+    private final ListenerMetrics metrics;
     @SuppressWarnings("unused") // Suppress IDE warning
     private final KafkaTopicsConfig topicsConfig;
 
-    public ProductEventConsumer(ProductReplicaRepository repository, KafkaTopicsConfig topicsConfig) {
+    public ProductEventConsumer(ProductReplicaRepository repository, Optional<ProductReplicaCache> productCache,
+                                KeyOrderedExecutor workerPool, TransactionTemplate transactionTemplate,
+                                KafkaTopicsConfig topicsConfig, MeterRegistry meterRegistry) {
         this.repository = repository;
+        this.productCache = productCache;
+        this.workerPool = workerPool;
+        this.transactionTemplate = transactionTemplate;
         this.topicsConfig = topicsConfig;
+        this.metrics = new ListenerMetrics(meterRegistry, topicsConfig.getProductEvents());
     }
 
-    @Transactional
+    /**
+     * Applies a whole poll at once: events are collapsed to the latest one per product,
+     * spread over the worker lanes by productId, and each lane writes its share with one
+     * offset-guarded multi-row upsert and one bulk delete in its own transaction.
+     * <p>
+     * If a lane's transaction fails (a delete still referenced by order items, for instance),
+     * the lane applies its records one at a time and the earliest record that still fails is
+     * reported as a {@link org.springframework.kafka.listener.BatchListenerFailedException}, so
+     * the error handler only retries, and finally dead-letters, from that record on.
+     */
     @KafkaListener(
         topics = "#{@kafkaTopicsConfig.productEvents}", // SpEL expression
         groupId = "order-service-product",  // ← This sets the group ID
-        // Specific factory
+        // Specific factory (batch mode)
         containerFactory = "productKafkaListenerContainerFactory")
-    public void onMessage(ProductEvent event) {
-        if (event == null || event.getProductId() == null) {
-            log.warn("Received invalid ProductEvent: {}", event);
-            return;
-        }
+    public void onMessage(List<ConsumerRecord<String, ProductEvent>> records) {
+        final long start = System.nanoTime();
+        metrics.received(records);
 
-        switch (String.valueOf(event.getEventType())) {
-            case "CREATED", "UPDATED": {
-                ProductReplica replica = repository.findById(event.getProductId())
-                        .orElseGet(ProductReplica::new);
-                // assign ID if new
-                if (replica.getId() == null) {
-                    replica.setId(event.getProductId());
-                }
-                replica.setName(event.getName());
-                replica.setQuantity(event.getQuantity());
-                replica.setPrice(event.getPrice());
-                repository.save(replica);
-                log.info("Upserted ProductReplica id={}", replica.getId());
-                break;
+        // keep only the last record per productId, preserving arrival order
+        final Map<Long, ConsumerRecord<String, ProductEvent>> latest = new LinkedHashMap<>();
+        for (ConsumerRecord<String, ProductEvent> record : records) {
+            final ProductEvent event = record.value();
+            if (event == null || event.getProductId() == null) {
+                log.warn("Received invalid ProductEvent: {}", event);
+                continue;
             }
-            case "DELETED": {
-                repository.deleteById(event.getProductId());
-                log.info("Deleted ProductReplica id={}", event.getProductId());
-                break;
+            latest.remove(event.getProductId());
+            latest.put(event.getProductId(), record);
+        }
+
+        try {
+            workerPool.executeAll(new ArrayList<>(latest.values()), record -> record.value().getProductId(),
+                    this::applyAll);
+        } catch (RuntimeException e) {
+            throw FailedRecords.earliest(records, e);
+        }
+        log.info("Applied {} ProductEvents ({} products) on {} workers in {} ms",
+                records.size(), latest.size(), workerPool.getWorkers(), (System.nanoTime() - start) / 1_000_000);
+    }
+
+    private void applyAll(final List<ConsumerRecord<String, ProductEvent>> records) {
+        FailedRecords.applyOrIsolate(records, this::apply);
+    }
+
+    private void apply(final List<ConsumerRecord<String, ProductEvent>> records) {
+        final List<ProductReplica> upserts = new ArrayList<>();
+        final List<Long> deletes = new ArrayList<>();
+        for (ConsumerRecord<String, ProductEvent> record : records) {
+            final ProductEvent event = record.value();
+            switch (String.valueOf(event.getEventType())) {
+                case "CREATED", "UPDATED":
+                    upserts.add(mapToReplica(event, record.offset()));
+                    break;
+                case "DELETED":
+                    deletes.add(event.getProductId());
+                    break;
+                default:
+                    log.warn("Unknown ProductEvent type: {}", event.getEventType());
             }
-            default:
-                log.warn("Unknown ProductEvent type: {}", event.getEventType());
         }
+
+        transactionTemplate.executeWithoutResult(status -> {
+            repository.upsertAll(upserts);
+            if (!deletes.isEmpty()) {
+                repository.deleteAllByIdInBatch(deletes);
+            }
+        });
+
+        // write through once committed
+        productCache.ifPresent(cache -> {
+            upserts.forEach(cache::put);
+            deletes.forEach(cache::evict);
+        });
+    }
+
+    private ProductReplica mapToReplica(final ProductEvent event, final long offset) {
+        final ProductReplica replica = new ProductReplica();
+        replica.setId(event.getProductId());
+        replica.setName(event.getName());
+        replica.setQuantity(event.getQuantity());
+        replica.setPrice(event.getPrice());
+        replica.setSourceOffset(offset);
+        return replica;
     }
 }
@@ -0,0 +1,73 @@
+package io.github.abbassizied.order_service.kafka;
+
+import io.github.abbassizied.event_schema.EventDeserializer;
+import java.util.Map;
+import org.apache.kafka.common.serialization.Serde;
+import org.apache.kafka.common.serialization.Serdes;
+import org.apache.kafka.common.utils.Bytes;
+import org.apache.kafka.streams.StreamsBuilder;
+import org.apache.kafka.streams.kstream.Consumed;
+import org.apache.kafka.streams.kstream.GlobalKTable;
+import org.apache.kafka.streams.kstream.Materialized;
+import org.apache.kafka.streams.state.KeyValueStore;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.kafka.KafkaProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.annotation.EnableKafkaStreams;
+import org.springframework.kafka.config.StreamsBuilderFactoryBean;
+import org.springframework.kafka.streams.KafkaStreamsInteractiveQueryService;
+import org.springframework.kafka.support.serializer.JsonDeserializer;
+
+/**
+ * Optional product store: materializes product-events into a local persistent (RocksDB)
+ * key-value store that {@link io.github.abbassizied.order_service.service.ProductStoreLookup}
+ * queries in-process.
+ * <p>
+ * A GlobalKTable rather than a partitioned KTable, so every instance holds every product.
+ * product-events itself is the changelog: after a restart the store resumes from its local
+ * checkpoint and only reads what was published since. DELETED events stay in the store
+ * and are filtered out on read, since the topic carries them as values, not tombstones.
+ */
+@Configuration
+@EnableKafkaStreams
+@ConditionalOnProperty(name = "app.product-store.streams.enabled", havingValue = "true")
+public class ProductStreamsConfig {
+
+    public static final String PRODUCT_STORE = "product-replicas";
+
+    private final KafkaProperties kafkaProperties;
+    private final KafkaTopicsConfig topicsConfig;
+
+    public ProductStreamsConfig(KafkaProperties kafkaProperties, KafkaTopicsConfig topicsConfig) {
+        this.kafkaProperties = kafkaProperties;
+        this.topicsConfig = topicsConfig;
+    }
+
+    @Bean
+    public GlobalKTable<String, ProductEvent> productTable(StreamsBuilder streamsBuilder) {
+        final Serde<ProductEvent> productEventSerde = productEventSerde();
+        return streamsBuilder.globalTable(topicsConfig.getProductEvents(),
+                Consumed.with(Serdes.String(), productEventSerde),
+                Materialized.<String, ProductEvent, KeyValueStore<Bytes, byte[]>>as(PRODUCT_STORE)
+                        .withKeySerde(Serdes.String())
+                        .withValueSerde(productEventSerde));
+    }
+
+    @Bean
+    public KafkaStreamsInteractiveQueryService kafkaStreamsInteractiveQueryService(
+            StreamsBuilderFactoryBean streamsBuilderFactoryBean) {
+        return new KafkaStreamsInteractiveQueryService(streamsBuilderFactoryBean);
+    }
+
+    // stored binary encoded; reads either format, since a restore copies the topic's bytes as they are
+    private Serde<ProductEvent> productEventSerde() {
+        Map<String, Object> configs = kafkaProperties.buildConsumerProperties();
+        configs.put(JsonDeserializer.VALUE_DEFAULT_TYPE, ProductEvent.class.getName());
+        configs.put(JsonDeserializer.TRUSTED_PACKAGES, "*");
+        final EventDeserializer<ProductEvent> deserializer = new EventDeserializer<>(ProductEvent.SCHEMA);
+        deserializer.configure(configs, false);
+        return Serdes.serdeFrom((topic, event) -> event == null ? null : ProductEvent.SCHEMA.encode(event),
+                deserializer);
+    }
+}
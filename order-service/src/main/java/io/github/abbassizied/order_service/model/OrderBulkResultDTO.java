@@ -0,0 +1,16 @@
+package io.github.abbassizied.order_service.model;
+
+import lombok.Getter;
+import lombok.Setter;
+
+@Getter
+@Setter
+public class OrderBulkResultDTO {
+
+    // position of the order in the uploaded array / stream
+    private int index;
+
+    private Long id;
+
+    private String error;
+}
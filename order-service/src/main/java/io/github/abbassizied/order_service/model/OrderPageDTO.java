@@ -0,0 +1,16 @@
+package io.github.abbassizied.order_service.model;
+
+import java.util.List;
+
+import lombok.Getter;
+import lombok.Setter;
+
+@Getter
+@Setter
+public class OrderPageDTO {
+
+    private List<OrderDTO> orders;
+
+    // id of the last order, null when there is no further page
+    private Long nextCursor;
+}
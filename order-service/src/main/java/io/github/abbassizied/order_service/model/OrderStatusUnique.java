@@ -56,7 +56,7 @@ public @interface OrderStatusUnique {
             @SuppressWarnings("unchecked") final Map<String, String> pathVariables =
                     ((Map<String, String>)request.getAttribute(HandlerMapping.URI_TEMPLATE_VARIABLES_ATTRIBUTE));
             final String currentId = pathVariables.get("id");
-            if (currentId != null && value.equals(orderService.get(Long.parseLong(currentId)).getStatus())) {
+            if (currentId != null && value.equals(orderService.getStatus(Long.parseLong(currentId)))) {
                 // value hasn't changed
                 return true;
             }
@@ -2,7 +2,15 @@
 package io.github.abbassizied.order_service.repos;
 
 import io.github.abbassizied.order_service.domain.CustomerReplica;
+import java.util.Collection;
+import java.util.Set;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
-public interface CustomerReplicaRepository extends JpaRepository<CustomerReplica, Long> {
+public interface CustomerReplicaRepository extends JpaRepository<CustomerReplica, Long>, CustomerReplicaRepositoryCustom {
+
+    // Which of the given ids exist, without loading the rows
+    @Query("select c.id from CustomerReplica c where c.id in :ids")
+    Set<Long> findExistingIds(@Param("ids") Collection<Long> ids);
 }
@@ -0,0 +1,22 @@
+package io.github.abbassizied.order_service.repos;
+
+import io.github.abbassizied.order_service.domain.CustomerReplica;
+import java.util.Collection;
+
+
+public interface CustomerReplicaRepositoryCustom {
+
+    /**
+     * Insert or update all given replicas with a single multi-row statement. An existing
+     * row is only overwritten when the incoming sourceOffset is newer than the stored one.
+     */
+    void upsertAll(Collection<CustomerReplica> replicas);
+
+    /**
+     * Update only the columns of the given properties (name, email, phone, shippingAddress,
+     * billingAddress) with one batched statement, guarded by sourceOffset like upsertAll.
+     * Replicas that do not exist yet are left alone.
+     */
+    void patchAll(Collection<String> properties, Collection<CustomerReplica> replicas);
+
+}
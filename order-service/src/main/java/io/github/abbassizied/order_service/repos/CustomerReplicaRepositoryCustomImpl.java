@@ -0,0 +1,118 @@
+package io.github.abbassizied.order_service.repos;
+
+import io.github.abbassizied.order_service.domain.Address;
+import io.github.abbassizied.order_service.domain.CustomerReplica;
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import org.springframework.jdbc.core.ArgumentPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+
+public class CustomerReplicaRepositoryCustomImpl implements CustomerReplicaRepositoryCustom {
+
+    private static final List<String> INSERT_COLUMNS = List.of("id", "name", "email", "phone",
+            "shipping_street", "shipping_city", "shipping_state", "shipping_postal_code", "shipping_country",
+            "billing_street", "billing_city", "billing_state", "billing_postal_code", "billing_country",
+            "date_created", "last_updated");
+    private static final List<String> UPDATE_COLUMNS = List.of("name", "email", "phone",
+            "shipping_street", "shipping_city", "shipping_state", "shipping_postal_code", "shipping_country",
+            "billing_street", "billing_city", "billing_state", "billing_postal_code", "billing_country",
+            "last_updated");
+    private static final Map<String, List<String>> PATCH_COLUMNS = Map.of(
+            "name", List.of("name"),
+            "email", List.of("email"),
+            "phone", List.of("phone"),
+            "shippingAddress", List.of("shipping_street", "shipping_city", "shipping_state",
+                    "shipping_postal_code", "shipping_country"),
+            "billingAddress", List.of("billing_street", "billing_city", "billing_state",
+                    "billing_postal_code", "billing_country"));
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public CustomerReplicaRepositoryCustomImpl(final JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public void upsertAll(final Collection<CustomerReplica> replicas) {
+        if (replicas.isEmpty()) {
+            return;
+        }
+        final Timestamp now = Timestamp.from(Instant.now());
+        final List<Object> params = new ArrayList<>(replicas.size() * (INSERT_COLUMNS.size() + 1));
+        for (CustomerReplica replica : replicas) {
+            params.add(replica.getId());
+            params.add(replica.getName());
+            params.add(replica.getEmail());
+            params.add(replica.getPhone());
+            addAddress(params, replica.getShippingAddress());
+            addAddress(params, replica.getBillingAddress());
+            params.add(now);
+            params.add(now);
+            params.add(replica.getSourceOffset());
+        }
+        jdbcTemplate.update(connection -> {
+            final PreparedStatement statement = connection.prepareStatement(ReplicaUpsertSql.multiRow(
+                    connection.getMetaData().getDatabaseProductName(),
+                    "customers", INSERT_COLUMNS, UPDATE_COLUMNS, replicas.size()));
+            new ArgumentPreparedStatementSetter(params.toArray()).setValues(statement);
+            return statement;
+        });
+    }
+
+    @Override
+    public void patchAll(final Collection<String> properties, final Collection<CustomerReplica> replicas) {
+        if (properties.isEmpty() || replicas.isEmpty()) {
+            return;
+        }
+        final List<String> columns = new ArrayList<>();
+        for (String property : properties) {
+            final List<String> propertyColumns = PATCH_COLUMNS.get(property);
+            if (propertyColumns == null) {
+                throw new IllegalArgumentException("unknown CustomerReplica property " + property);
+            }
+            columns.addAll(propertyColumns);
+        }
+        final String sql = "UPDATE customers SET "
+                + columns.stream().map(column -> column + " = ?").collect(Collectors.joining(", "))
+                + ", last_updated = ?, source_offset = ?"
+                + " WHERE id = ? AND (source_offset IS NULL OR source_offset < ?)";
+
+        final Timestamp now = Timestamp.from(Instant.now());
+        final List<Object[]> batchArgs = new ArrayList<>(replicas.size());
+        for (CustomerReplica replica : replicas) {
+            final List<Object> params = new ArrayList<>(columns.size() + 4);
+            for (String property : properties) {
+                switch (property) {
+                    case "name" -> params.add(replica.getName());
+                    case "email" -> params.add(replica.getEmail());
+                    case "phone" -> params.add(replica.getPhone());
+                    case "shippingAddress" -> addAddress(params, replica.getShippingAddress());
+                    case "billingAddress" -> addAddress(params, replica.getBillingAddress());
+                    default -> throw new IllegalStateException(property);
+                }
+            }
+            params.add(now);
+            params.add(replica.getSourceOffset());
+            params.add(replica.getId());
+            params.add(replica.getSourceOffset());
+            batchArgs.add(params.toArray());
+        }
+        jdbcTemplate.batchUpdate(sql, batchArgs);
+    }
+
+    private static void addAddress(final List<Object> params, final Address address) {
+        params.add(address == null ? null : address.getStreet());
+        params.add(address == null ? null : address.getCity());
+        params.add(address == null ? null : address.getState());
+        params.add(address == null ? null : address.getPostalCode());
+        params.add(address == null ? null : address.getCountry());
+    }
+
+}
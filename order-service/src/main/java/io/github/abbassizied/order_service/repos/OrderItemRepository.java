@@ -2,14 +2,18 @@ package io.github.abbassizied.order_service.repos;
 
 import io.github.abbassizied.order_service.domain.OrderItem;
 
+import java.util.Collection;
 import java.util.List;
 
 import org.springframework.data.jpa.repository.JpaRepository;
 
-public interface OrderItemRepository extends JpaRepository<OrderItem, Long> {
+public interface OrderItemRepository extends JpaRepository<OrderItem, Long>, OrderItemRepositoryCustom {
     // Find by order ID
     List<OrderItem> findByOrderId(Long orderId);
 
+    // Load the items of several orders with one IN query
+    List<OrderItem> findByOrderIdIn(Collection<Long> orderIds);
+
     // Check if product exists in any order item
     boolean existsByProductId(Long productId);
 
@@ -0,0 +1,14 @@
+package io.github.abbassizied.order_service.repos;
+
+import io.github.abbassizied.order_service.domain.OrderItem;
+import java.util.Collection;
+
+
+public interface OrderItemRepositoryCustom {
+
+    /**
+     * Insert all given items as one JDBC batch. Generated ids are not read back.
+     */
+    void insertAll(Collection<OrderItem> orderItems);
+
+}
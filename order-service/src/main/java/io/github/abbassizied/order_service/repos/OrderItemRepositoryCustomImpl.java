@@ -0,0 +1,43 @@
+package io.github.abbassizied.order_service.repos;
+
+import io.github.abbassizied.order_service.domain.OrderItem;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+
+public class OrderItemRepositoryCustomImpl implements OrderItemRepositoryCustom {
+
+    // with rewriteBatchedStatements=true the driver sends the batch as one multi-row INSERT
+    private static final String INSERT_SQL = "INSERT INTO order_items "
+            + "(quantity, order_id, product_id, date_created, last_updated) VALUES (?, ?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public OrderItemRepositoryCustomImpl(final JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public void insertAll(final Collection<OrderItem> orderItems) {
+        if (orderItems.isEmpty()) {
+            return;
+        }
+        final Timestamp now = Timestamp.from(Instant.now());
+        final List<Object[]> batchArgs = new ArrayList<>(orderItems.size());
+        for (OrderItem orderItem : orderItems) {
+            batchArgs.add(new Object[] {
+                    orderItem.getQuantity(),
+                    orderItem.getOrder().getId(),
+                    orderItem.getProduct() != null ? orderItem.getProduct().getId() : null,
+                    now,
+                    now
+            });
+        }
+        jdbcTemplate.batchUpdate(INSERT_SQL, batchArgs);
+    }
+
+}
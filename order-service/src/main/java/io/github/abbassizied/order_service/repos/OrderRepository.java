@@ -2,11 +2,43 @@ package io.github.abbassizied.order_service.repos;
 
 import io.github.abbassizied.order_service.domain.Order;
 import io.github.abbassizied.order_service.model.OrderStatus;
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.Optional;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 
-public interface OrderRepository extends JpaRepository<Order, Long> {
+public interface OrderRepository extends JpaRepository<Order, Long>, OrderRepositoryCustom {
 
     boolean existsByStatus(OrderStatus status);
 
+    // status only, without loading the order or its items
+    @Query("select o.status from Order o where o.id = :id")
+    Optional<OrderStatus> findStatusById(@Param("id") Long id);
+
+    // [status, count] rows
+    @Query("select o.status, count(o) from Order o group by o.status")
+    List<Object[]> countByStatus();
+
+    // what an order's ETag is derived from: its own row and the state of its items
+    interface Version {
+
+        OffsetDateTime getLastUpdated();
+
+        long getItemCount();
+
+        OffsetDateTime getItemsLastUpdated();
+
+    }
+
+    @Query("select o.lastUpdated as lastUpdated, count(i) as itemCount, max(i.lastUpdated) as itemsLastUpdated"
+            + " from Order o left join OrderItem i on i.order = o where o.id = :id group by o.id, o.lastUpdated")
+    Optional<Version> findVersionById(@Param("id") Long id);
+
+    // keyset page: orders after the given id, in id order
+    List<Order> findByIdGreaterThanOrderByIdAsc(Long id, Limit limit);
+
 }
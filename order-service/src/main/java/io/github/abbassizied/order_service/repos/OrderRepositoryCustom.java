@@ -0,0 +1,22 @@
+package io.github.abbassizied.order_service.repos;
+
+import io.github.abbassizied.order_service.domain.Order;
+import io.github.abbassizied.order_service.model.OrderDTO;
+import java.util.List;
+import java.util.function.Consumer;
+
+
+public interface OrderRepositoryCustom {
+
+    /**
+     * Stream every order with its items, in id order, from a forward-only cursor. Each
+     * order is handed to the sink as soon as its last row has been read.
+     */
+    void streamAll(Consumer<OrderDTO> sink);
+
+    /**
+     * Insert all given orders as one JDBC batch and assign the generated ids to them.
+     */
+    void insertAll(List<Order> orders);
+
+}
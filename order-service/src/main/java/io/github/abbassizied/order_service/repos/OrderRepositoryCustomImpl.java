@@ -0,0 +1,134 @@
+package io.github.abbassizied.order_service.repos;
+
+import io.github.abbassizied.order_service.domain.Order;
+import io.github.abbassizied.order_service.model.OrderDTO;
+import io.github.abbassizied.order_service.model.OrderItemDTO;
+import io.github.abbassizied.order_service.model.OrderStatus;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+
+
+public class OrderRepositoryCustomImpl implements OrderRepositoryCustom {
+
+    private static final String STREAM_SQL = "SELECT o.id, o.status, o.customer_id, "
+            + "i.id AS item_id, i.quantity, i.product_id "
+            + "FROM orders o LEFT JOIN order_items i ON i.order_id = o.id "
+            + "ORDER BY o.id, i.id";
+
+    private static final String INSERT_SQL =
+            "INSERT INTO orders (status, customer_id, date_created, last_updated) VALUES (?, ?, ?, ?)";
+
+    // Connector/J streams the result set row by row for this fetch size instead of
+    // buffering it, so memory stays flat whatever the table size
+    private static final int STREAMING_FETCH_SIZE = Integer.MIN_VALUE;
+
+    // other drivers reject the value above; a positive one makes them fetch through a cursor
+    private static final int CURSOR_FETCH_SIZE = 1000;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public OrderRepositoryCustomImpl(final JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public void streamAll(final Consumer<OrderDTO> sink) {
+        final OrderRowHandler handler = new OrderRowHandler(sink);
+        jdbcTemplate.query(connection -> {
+            final PreparedStatement statement = connection.prepareStatement(STREAM_SQL,
+                    ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            statement.setFetchSize("MySQL".equals(connection.getMetaData().getDatabaseProductName())
+                    ? STREAMING_FETCH_SIZE : CURSOR_FETCH_SIZE);
+            return statement;
+        }, handler);
+        handler.flush();
+    }
+
+    @Override
+    public void insertAll(final List<Order> orders) {
+        if (orders.isEmpty()) {
+            return;
+        }
+        final Timestamp now = Timestamp.from(Instant.now());
+        final KeyHolder keyHolder = new GeneratedKeyHolder();
+        jdbcTemplate.batchUpdate(
+                connection -> connection.prepareStatement(INSERT_SQL, Statement.RETURN_GENERATED_KEYS),
+                new BatchPreparedStatementSetter() {
+                    @Override
+                    public void setValues(final PreparedStatement ps, final int i) throws SQLException {
+                        final Order order = orders.get(i);
+                        ps.setString(1, order.getStatus().name());
+                        ps.setLong(2, order.getCustomer().getId());
+                        ps.setTimestamp(3, now);
+                        ps.setTimestamp(4, now);
+                    }
+
+                    @Override
+                    public int getBatchSize() {
+                        return orders.size();
+                    }
+                },
+                keyHolder);
+
+        final List<Map<String, Object>> keys = keyHolder.getKeyList();
+        for (int i = 0; i < orders.size(); i++) {
+            orders.get(i).setId(((Number) keys.get(i).values().iterator().next()).longValue());
+        }
+    }
+
+    /**
+     * Groups the joined rows of one order; rows arrive ordered by order id.
+     */
+    private static final class OrderRowHandler implements RowCallbackHandler {
+
+        private final Consumer<OrderDTO> sink;
+        private OrderDTO current;
+
+        private OrderRowHandler(final Consumer<OrderDTO> sink) {
+            this.sink = sink;
+        }
+
+        @Override
+        public void processRow(final ResultSet rs) throws SQLException {
+            final long orderId = rs.getLong("id");
+            if (current == null || current.getId() != orderId) {
+                flush();
+                current = new OrderDTO();
+                current.setId(orderId);
+                current.setStatus(OrderStatus.valueOf(rs.getString("status")));
+                current.setCustomer(rs.getLong("customer_id"));
+                current.setOrderItems(new ArrayList<>());
+            }
+            final long itemId = rs.getLong("item_id");
+            if (!rs.wasNull()) {
+                final OrderItemDTO item = new OrderItemDTO();
+                item.setId(itemId);
+                item.setQuantity(rs.getInt("quantity"));
+                item.setOrder(orderId);
+                item.setProduct(rs.getLong("product_id"));
+                current.getOrderItems().add(item);
+            }
+        }
+
+        private void flush() {
+            if (current != null) {
+                sink.accept(current);
+                current = null;
+            }
+        }
+    }
+
+}
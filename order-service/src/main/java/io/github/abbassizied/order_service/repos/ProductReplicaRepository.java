@@ -4,4 +4,4 @@ package io.github.abbassizied.order_service.repos;
 import io.github.abbassizied.order_service.domain.ProductReplica;
 import org.springframework.data.jpa.repository.JpaRepository;
 
-public interface ProductReplicaRepository extends JpaRepository<ProductReplica, Long> {}
+public interface ProductReplicaRepository extends JpaRepository<ProductReplica, Long>, ProductReplicaRepositoryCustom {}
@@ -0,0 +1,15 @@
+package io.github.abbassizied.order_service.repos;
+
+import io.github.abbassizied.order_service.domain.ProductReplica;
+import java.util.Collection;
+
+
+public interface ProductReplicaRepositoryCustom {
+
+    /**
+     * Insert or update all given replicas with a single multi-row statement. An existing
+     * row is only overwritten when the incoming sourceOffset is newer than the stored one.
+     */
+    void upsertAll(Collection<ProductReplica> replicas);
+
+}
@@ -0,0 +1,52 @@
+package io.github.abbassizied.order_service.repos;
+
+import io.github.abbassizied.order_service.domain.ProductReplica;
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import org.springframework.jdbc.core.ArgumentPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+
+public class ProductReplicaRepositoryCustomImpl implements ProductReplicaRepositoryCustom {
+
+    private static final List<String> INSERT_COLUMNS =
+            List.of("id", "name", "quantity", "price", "date_created", "last_updated");
+    private static final List<String> UPDATE_COLUMNS =
+            List.of("name", "quantity", "price", "last_updated");
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public ProductReplicaRepositoryCustomImpl(final JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public void upsertAll(final Collection<ProductReplica> replicas) {
+        if (replicas.isEmpty()) {
+            return;
+        }
+        final Timestamp now = Timestamp.from(Instant.now());
+        final List<Object> params = new ArrayList<>(replicas.size() * (INSERT_COLUMNS.size() + 1));
+        for (ProductReplica replica : replicas) {
+            params.add(replica.getId());
+            params.add(replica.getName());
+            params.add(replica.getQuantity());
+            params.add(replica.getPrice());
+            params.add(now);
+            params.add(now);
+            params.add(replica.getSourceOffset());
+        }
+        jdbcTemplate.update(connection -> {
+            final PreparedStatement statement = connection.prepareStatement(ReplicaUpsertSql.multiRow(
+                    connection.getMetaData().getDatabaseProductName(),
+                    "products", INSERT_COLUMNS, UPDATE_COLUMNS, replicas.size()));
+            new ArgumentPreparedStatementSetter(params.toArray()).setValues(statement);
+            return statement;
+        });
+    }
+
+}
@@ -1,11 +1,16 @@
 package io.github.abbassizied.order_service.rest;
 
+import io.github.abbassizied.order_service.model.OrderBulkResultDTO;
 import io.github.abbassizied.order_service.model.OrderDTO;
+import io.github.abbassizied.order_service.model.OrderPageDTO;
+import io.github.abbassizied.order_service.service.OrderBulkService;
 import io.github.abbassizied.order_service.service.OrderService;
 import io.github.abbassizied.order_service.util.ReferencedException;
 import io.github.abbassizied.order_service.util.ReferencedWarning;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import jakarta.validation.Valid;
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.List;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
@@ -17,27 +22,61 @@ import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 
 @RestController
 @RequestMapping(value = "/api/orders", produces = MediaType.APPLICATION_JSON_VALUE)
 public class OrderResource {
 
+    private static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
     private final OrderService orderService;
+    private final OrderBulkService orderBulkService;
 
-    public OrderResource(final OrderService orderService) {
+    public OrderResource(final OrderService orderService, final OrderBulkService orderBulkService) {
         this.orderService = orderService;
+        this.orderBulkService = orderBulkService;
     }
 
+    /**
+     * Keyset-paginated list of orders, capped at app.orders.max-page-size. The cursor for
+     * the following page is returned in the X-Next-Cursor header (absent on the last page).
+     */
     @GetMapping
-    public ResponseEntity<List<OrderDTO>> getAllOrders() {
-        return ResponseEntity.ok(orderService.findAll());
+    public ResponseEntity<List<OrderDTO>> getAllOrders(
+            @RequestParam(name = "after", required = false) final Long after,
+            @RequestParam(name = "limit", required = false) final Integer limit) {
+        final OrderPageDTO orderPage = orderService.findPage(after, limit);
+        final ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (orderPage.getNextCursor() != null) {
+            response.header(NEXT_CURSOR_HEADER, orderPage.getNextCursor().toString());
+        }
+        return response.body(orderPage.getOrders());
+    }
+
+    /**
+     * Streams all orders with their items as NDJSON, one order per line.
+     */
+    @GetMapping(value = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> exportOrders() {
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(orderService::exportAll);
     }
 
     @GetMapping("/{id}")
-    public ResponseEntity<OrderDTO> getOrder(@PathVariable(name = "id") final Long id) {
-        return ResponseEntity.ok(orderService.get(id));
+    public ResponseEntity<OrderDTO> getOrder(@PathVariable(name = "id") final Long id,
+            final WebRequest request) {
+        // unchanged since the client's copy: 304 without loading or serializing it
+        final String eTag = orderService.getETag(id);
+        if (request.checkNotModified(eTag)) {
+            return null;
+        }
+        return ResponseEntity.ok().eTag(eTag).body(orderService.get(id));
     }
 
     @PostMapping
@@ -47,6 +86,15 @@ public class OrderResource {
         return new ResponseEntity<>(createdId, HttpStatus.CREATED);
     }
 
+    /**
+     * Creates many orders from a JSON array or an NDJSON stream. Returns one result per
+     * order, in input order, holding either the new id or the reason it was rejected.
+     */
+    @PostMapping(value = "/bulk", consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    public ResponseEntity<List<OrderBulkResultDTO>> createOrders(final InputStream inputStream) throws IOException {
+        return ResponseEntity.ok(orderBulkService.createAll(inputStream));
+    }
+
     @PutMapping("/{id}")
     public ResponseEntity<Long> updateOrder(@PathVariable(name = "id") final Long id,
             @RequestBody @Valid final OrderDTO orderDTO) {
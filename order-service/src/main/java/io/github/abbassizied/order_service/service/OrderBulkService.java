@@ -0,0 +1,211 @@
+package io.github.abbassizied.order_service.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.github.abbassizied.order_service.domain.Order;
+import io.github.abbassizied.order_service.domain.OrderItem;
+import io.github.abbassizied.order_service.domain.ProductReplica;
+import io.github.abbassizied.order_service.model.OrderBulkResultDTO;
+import io.github.abbassizied.order_service.model.OrderDTO;
+import io.github.abbassizied.order_service.model.OrderItemDTO;
+import io.github.abbassizied.order_service.repos.CustomerReplicaRepository;
+import io.github.abbassizied.order_service.repos.OrderItemRepository;
+import io.github.abbassizied.order_service.repos.OrderRepository;
+import io.github.abbassizied.order_service.repos.ProductReplicaRepository;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Ingests large uploads of orders chunk by chunk. Customers and products of a chunk are
+ * resolved with set-based queries, valid orders and their items are inserted as JDBC
+ * batches in one transaction per chunk, and every order gets its own id or error.
+ */
+@Service
+public class OrderBulkService {
+
+    private static final Logger log = LoggerFactory.getLogger(OrderBulkService.class);
+
+    private final OrderRepository orderRepository;
+    private final OrderItemRepository orderItemRepository;
+    private final CustomerReplicaRepository customerRepository;
+    private final ProductReplicaRepository productRepository;
+    private final ProductLookup productLookup;
+    private final OrderStatusIndex statusIndex;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final int chunkSize;
+
+    public OrderBulkService(final OrderRepository orderRepository,
+                            final OrderItemRepository orderItemRepository,
+                            final CustomerReplicaRepository customerRepository,
+                            final ProductReplicaRepository productRepository,
+                            final ProductLookup productLookup,
+                            final OrderStatusIndex statusIndex,
+                            final TransactionTemplate transactionTemplate,
+                            final ObjectMapper objectMapper,
+                            @Value("${app.orders.bulk-chunk-size:500}") final int chunkSize) {
+        this.orderRepository = orderRepository;
+        this.orderItemRepository = orderItemRepository;
+        this.customerRepository = customerRepository;
+        this.productRepository = productRepository;
+        this.productLookup = productLookup;
+        this.statusIndex = statusIndex;
+        this.transactionTemplate = transactionTemplate;
+        this.objectMapper = objectMapper;
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * Reads a JSON array or an NDJSON stream of orders from the given input.
+     */
+    public List<OrderBulkResultDTO> createAll(final InputStream inputStream) throws IOException {
+        final List<OrderBulkResultDTO> results = new ArrayList<>();
+        final List<OrderDTO> chunk = new ArrayList<>(chunkSize);
+        int index = 0;
+        try (MappingIterator<OrderDTO> orders = objectMapper.readerFor(OrderDTO.class).readValues(inputStream)) {
+            while (orders.hasNextValue()) {
+                chunk.add(orders.nextValue());
+                index++;
+                if (chunk.size() == chunkSize) {
+                    results.addAll(createChunk(results.size(), chunk));
+                    chunk.clear();
+                }
+            }
+        } catch (JsonProcessingException | UncheckedIOException e) {
+            // keep what was already ingested, report where the input broke
+            results.addAll(createChunk(results.size(), chunk));
+            results.add(result(index, null, "malformed input: " + e.getMessage()));
+            return results;
+        }
+        results.addAll(createChunk(results.size(), chunk));
+        return results;
+    }
+
+    private List<OrderBulkResultDTO> createChunk(final int firstIndex, final List<OrderDTO> orderDTOs) {
+        if (orderDTOs.isEmpty()) {
+            return List.of();
+        }
+        final OrderBulkResultDTO[] results = new OrderBulkResultDTO[orderDTOs.size()];
+
+        // 1) resolve everything the chunk references with one query each
+        final Set<Long> customerIds = orderDTOs.stream()
+                .map(OrderDTO::getCustomer)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+        final Set<Long> existingCustomers = customerIds.isEmpty() ? Set.of()
+                : customerRepository.findExistingIds(customerIds);
+        final Set<Long> productIds = orderDTOs.stream()
+                .filter(orderDTO -> orderDTO.getOrderItems() != null)
+                .flatMap(orderDTO -> orderDTO.getOrderItems().stream())
+                .map(OrderItemDTO::getProduct)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+        final Map<Long, ProductReplica> products = productLookup.getAll(productIds);
+
+        // 2) validate each order on its own
+        final List<Integer> accepted = new ArrayList<>();
+        for (int i = 0; i < orderDTOs.size(); i++) {
+            final String error = validate(orderDTOs.get(i), existingCustomers, products);
+            if (error != null) {
+                results[i] = result(firstIndex + i, null, error);
+            } else {
+                accepted.add(i);
+            }
+        }
+
+        // 3) insert the valid orders and all their items as batches
+        try {
+            final List<Order> orders = transactionTemplate.execute(status -> insert(orderDTOs, accepted));
+            for (int j = 0; j < accepted.size(); j++) {
+                final int i = accepted.get(j);
+                results[i] = result(firstIndex + i, orders.get(j).getId(), null);
+            }
+        } catch (RuntimeException e) {
+            log.warn("Bulk chunk starting at index {} failed", firstIndex, e);
+            for (int i : accepted) {
+                results[i] = result(firstIndex + i, null, "chunk failed: " + e.getMessage());
+            }
+        }
+        return List.of(results);
+    }
+
+    private List<Order> insert(final List<OrderDTO> orderDTOs, final List<Integer> accepted) {
+        final List<Order> orders = new ArrayList<>(accepted.size());
+        for (int i : accepted) {
+            final OrderDTO orderDTO = orderDTOs.get(i);
+            final Order order = new Order();
+            order.setStatus(orderDTO.getStatus());
+            order.setCustomer(customerRepository.getReferenceById(orderDTO.getCustomer()));
+            orders.add(order);
+        }
+        orderRepository.insertAll(orders);
+
+        final List<OrderItem> orderItems = new ArrayList<>();
+        for (int j = 0; j < accepted.size(); j++) {
+            final List<OrderItemDTO> itemDTOs = orderDTOs.get(accepted.get(j)).getOrderItems();
+            if (itemDTOs == null) {
+                continue;
+            }
+            for (OrderItemDTO itemDTO : itemDTOs) {
+                final OrderItem orderItem = new OrderItem();
+                orderItem.setQuantity(itemDTO.getQuantity());
+                orderItem.setOrder(orders.get(j));
+                orderItem.setProduct(productRepository.getReferenceById(itemDTO.getProduct()));
+                orderItems.add(orderItem);
+            }
+        }
+        orderItemRepository.insertAll(orderItems);
+        orders.forEach(order -> statusIndex.added(order.getStatus()));
+        return orders;
+    }
+
+    private static String validate(final OrderDTO orderDTO, final Set<Long> existingCustomers,
+                                   final Map<Long, ProductReplica> products) {
+        if (orderDTO.getStatus() == null) {
+            return "status must not be null";
+        }
+        if (orderDTO.getCustomer() == null) {
+            return "customer must not be null";
+        }
+        if (!existingCustomers.contains(orderDTO.getCustomer())) {
+            return "customer not found: " + orderDTO.getCustomer();
+        }
+        if (orderDTO.getOrderItems() == null) {
+            return null;
+        }
+        for (OrderItemDTO itemDTO : orderDTO.getOrderItems()) {
+            if (itemDTO.getQuantity() == null || itemDTO.getQuantity() < 1) {
+                return "quantity must be at least 1";
+            }
+            if (itemDTO.getProduct() == null) {
+                return "product must not be null";
+            }
+            if (!products.containsKey(itemDTO.getProduct())) {
+                return "product not found: " + itemDTO.getProduct();
+            }
+        }
+        return null;
+    }
+
+    private static OrderBulkResultDTO result(final int index, final Long id, final String error) {
+        final OrderBulkResultDTO result = new OrderBulkResultDTO();
+        result.setIndex(index);
+        result.setId(id);
+        result.setError(error);
+        return result;
+    }
+
+}
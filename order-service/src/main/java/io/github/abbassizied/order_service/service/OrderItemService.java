@@ -10,6 +10,7 @@ import io.github.abbassizied.order_service.repos.ProductReplicaRepository;
 import io.github.abbassizied.order_service.util.NotFoundException;
 
 import java.util.List;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -21,13 +22,16 @@ public class OrderItemService {
     private final OrderItemRepository orderItemRepository;
     private final OrderRepository orderRepository;
     private final ProductReplicaRepository productRepository;
+    private final ProductLookup productLookup;
 
     public OrderItemService(final OrderItemRepository orderItemRepository,
                             final OrderRepository orderRepository,
-                            final ProductReplicaRepository productRepository) {
+                            final ProductReplicaRepository productRepository,
+                            final ProductLookup productLookup) {
         this.orderItemRepository = orderItemRepository;
         this.orderRepository = orderRepository;
         this.productRepository = productRepository;
+        this.productLookup = productLookup;
     }
 
     public List<OrderItemDTO> findAll() {
@@ -46,14 +50,14 @@ public class OrderItemService {
     public Long create(final OrderItemDTO orderItemDTO) {
         final OrderItem orderItem = new OrderItem();
         mapToEntity(orderItemDTO, orderItem);
-        return orderItemRepository.save(orderItem).getId();
+        return saveAndFlush(orderItem).getId();
     }
 
     public void update(final Long id, final OrderItemDTO orderItemDTO) {
         final OrderItem orderItem = orderItemRepository.findById(id)
                 .orElseThrow(() -> new NotFoundException("OrderItem with id " + id + " not found"));
         mapToEntity(orderItemDTO, orderItem);
-        orderItemRepository.save(orderItem);
+        saveAndFlush(orderItem);
     }
 
     public void delete(final Long id) {
@@ -63,6 +67,18 @@ public class OrderItemService {
         orderItemRepository.deleteById(id);
     }
 
+    // flushed here so a product the lookup knows before its row is written fails as not found
+    private OrderItem saveAndFlush(final OrderItem orderItem) {
+        try {
+            return orderItemRepository.saveAndFlush(orderItem);
+        } catch (DataIntegrityViolationException e) {
+            if (!ProductLookup.isMissingProductRow(e)) {
+                throw e;
+            }
+            throw new NotFoundException("Product with id " + orderItem.getProduct().getId() + " not found");
+        }
+    }
+
     private OrderItemDTO mapToDTO(final OrderItem orderItem) {
         OrderItemDTO dto = new OrderItemDTO();
         dto.setId(orderItem.getId());
@@ -81,7 +97,8 @@ public class OrderItemService {
         entity.setOrder(order);
 
         final ProductReplica product = dto.getProduct() == null ? null :
-                productRepository.findById(dto.getProduct())
+                productLookup.get(dto.getProduct())
+                        .map(cached -> productRepository.getReferenceById(cached.getId()))
                         .orElseThrow(() -> new NotFoundException("Product with id " + dto.getProduct() + " not found"));
         entity.setProduct(product);
 
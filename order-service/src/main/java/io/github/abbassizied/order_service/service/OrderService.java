@@ -1,11 +1,14 @@
 package io.github.abbassizied.order_service.service;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
 import io.github.abbassizied.order_service.domain.CustomerReplica;
 import io.github.abbassizied.order_service.domain.Order;
 import io.github.abbassizied.order_service.domain.OrderItem;
 import io.github.abbassizied.order_service.domain.ProductReplica;
 import io.github.abbassizied.order_service.model.OrderDTO;
 import io.github.abbassizied.order_service.model.OrderItemDTO;
+import io.github.abbassizied.order_service.model.OrderPageDTO;
 import io.github.abbassizied.order_service.model.OrderStatus;
 import io.github.abbassizied.order_service.repos.CustomerReplicaRepository;
 import io.github.abbassizied.order_service.repos.OrderItemRepository;
@@ -13,11 +16,30 @@ import io.github.abbassizied.order_service.repos.OrderRepository;
 import io.github.abbassizied.order_service.repos.ProductReplicaRepository;
 import io.github.abbassizied.order_service.util.NotFoundException;
 import io.github.abbassizied.order_service.util.ReferencedWarning;
-import org.springframework.data.domain.Sort;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
@@ -28,23 +50,69 @@ public class OrderService {
     private final CustomerReplicaRepository customerRepository;
     private final ProductReplicaRepository productRepository;
     private final OrderItemRepository orderItemRepository;
+    private final ProductLookup productLookup;
+    private final OrderStatusIndex statusIndex;
+    private final ObjectMapper objectMapper;
+    private final int maxPageSize;
 
     public OrderService(final OrderRepository orderRepository,
                         final CustomerReplicaRepository customerRepository,
                         final ProductReplicaRepository productRepository,
-                        final OrderItemRepository orderItemRepository) {
+                        final OrderItemRepository orderItemRepository,
+                        final ProductLookup productLookup,
+                        final OrderStatusIndex statusIndex,
+                        final ObjectMapper objectMapper,
+                        @Value("${app.orders.max-page-size:500}") final int maxPageSize) {
         this.orderRepository = orderRepository;
         this.customerRepository = customerRepository;
         this.productRepository = productRepository;
         this.orderItemRepository = orderItemRepository;
+        this.productLookup = productLookup;
+        this.statusIndex = statusIndex;
+        this.objectMapper = objectMapper;
+        this.maxPageSize = maxPageSize;
     }
 
+    /**
+     * Keyset page of orders with id greater than {@code after}. Orders and their items are
+     * loaded with two queries regardless of the page size.
+     */
     @Transactional(readOnly = true)
-    public List<OrderDTO> findAll() {
-        final List<Order> orders = orderRepository.findAll(Sort.by("id"));
-        return orders.stream()
-                .map(this::mapToDTO)
-                .collect(Collectors.toList());
+    public OrderPageDTO findPage(final Long after, final Integer limit) {
+        final int pageSize = limit == null ? maxPageSize : Math.max(1, Math.min(limit, maxPageSize));
+        // fetch one extra row to know whether another page follows
+        final List<Order> orders = orderRepository.findByIdGreaterThanOrderByIdAsc(
+                after == null ? 0L : after, Limit.of(pageSize + 1));
+        final boolean hasNext = orders.size() > pageSize;
+        final List<Order> page = hasNext ? orders.subList(0, pageSize) : orders;
+
+        final Map<Long, List<OrderItem>> itemsByOrder = page.isEmpty() ? Map.of()
+                : orderItemRepository.findByOrderIdIn(page.stream().map(Order::getId).toList()).stream()
+                .collect(Collectors.groupingBy(orderItem -> orderItem.getOrder().getId()));
+
+        final OrderPageDTO orderPageDTO = new OrderPageDTO();
+        orderPageDTO.setOrders(page.stream()
+                .map(order -> mapToDTO(order, itemsByOrder.getOrDefault(order.getId(), List.of())))
+                .toList());
+        orderPageDTO.setNextCursor(hasNext ? page.get(page.size() - 1).getId() : null);
+        return orderPageDTO;
+    }
+
+    /**
+     * Writes every order with its items as newline-delimited JSON while the rows are read,
+     * so memory use does not depend on the number of orders.
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void exportAll(final OutputStream outputStream) {
+        final ObjectWriter writer = objectMapper.writerFor(OrderDTO.class);
+        orderRepository.streamAll(orderDTO -> {
+            try {
+                outputStream.write(writer.writeValueAsBytes(orderDTO));
+                outputStream.write('\n');
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
     }
 
     @Transactional(readOnly = true)
@@ -54,29 +122,32 @@ public class OrderService {
                 .orElseThrow(NotFoundException::new);
     }
 
+    /**
+     * Strong ETag value of the order and its items, without loading either. Item edits do not
+     * touch the order row, so the item count and their latest lastUpdated are part of it.
+     */
+    @Transactional(readOnly = true)
+    public String getETag(final Long id) {
+        return orderRepository.findVersionById(id)
+                .map(version -> id + "-" + epochMicros(version.getLastUpdated()) + "-" + version.getItemCount()
+                        + "-" + (version.getItemsLastUpdated() == null ? 0 : epochMicros(version.getItemsLastUpdated())))
+                .orElseThrow(NotFoundException::new);
+    }
+
     public Long create(final OrderDTO orderDTO) {
         final Order order = new Order();
         mapToEntity(orderDTO, order);
 
-        // 1) Save order first to get an ID
+        // 1) Resolve all products up front, failing before anything is written
+        final List<OrderItemDTO> itemDTOs = orderDTO.getOrderItems() == null ? List.of() : orderDTO.getOrderItems();
+        final Map<Long, ProductReplica> products = resolveProducts(itemDTOs);
+
+        // 2) Save order first to get an ID
         Order savedOrder = orderRepository.save(order);
 
-        // 2) Persist order items (if any)
-        if (orderDTO.getOrderItems() != null) {
-            for (OrderItemDTO itemDTO : orderDTO.getOrderItems()) {
-                OrderItem orderItem = new OrderItem();
-                orderItem.setQuantity(itemDTO.getQuantity());
-                orderItem.setOrder(savedOrder);
-
-                // Resolve product from local replica (required)
-                ProductReplica product = itemDTO.getProduct() == null ? null :
-                        productRepository.findById(itemDTO.getProduct())
-                                .orElseThrow(() -> new NotFoundException("product not found"));
-                orderItem.setProduct(product);
-
-                orderItemRepository.save(orderItem);
-            }
-        }
+        // 3) Persist order items (if any) as one batch
+        writeOrderItems(() -> insertOrderItems(savedOrder, itemDTOs, products), products);
+        statusIndex.added(savedOrder.getStatus());
 
         return savedOrder.getId();
     }
@@ -84,30 +155,18 @@ public class OrderService {
     public void update(final Long id, final OrderDTO orderDTO) {
         final Order order = orderRepository.findById(id)
                 .orElseThrow(NotFoundException::new);
+        final Map<Long, ProductReplica> products = orderDTO.getOrderItems() == null ? Map.of()
+                : resolveProducts(orderDTO.getOrderItems());
 
         // Update top-level fields (status, customer)
+        final OrderStatus previousStatus = order.getStatus();
         mapToEntity(orderDTO, order);
         Order savedOrder = orderRepository.save(order);
+        statusIndex.changed(previousStatus, savedOrder.getStatus());
 
-        // Rebuild items if provided: delete existing then add fresh
+        // Reconcile items if provided: only changed, added and removed lines are written
         if (orderDTO.getOrderItems() != null) {
-            List<OrderItem> existing = orderItemRepository.findByOrderId(id);
-            if (!existing.isEmpty()) {
-                orderItemRepository.deleteAll(existing);
-            }
-
-            for (OrderItemDTO itemDTO : orderDTO.getOrderItems()) {
-                OrderItem orderItem = new OrderItem();
-                orderItem.setQuantity(itemDTO.getQuantity());
-                orderItem.setOrder(savedOrder);
-
-                ProductReplica product = itemDTO.getProduct() == null ? null :
-                        productRepository.findById(itemDTO.getProduct())
-                                .orElseThrow(() -> new NotFoundException("product not found"));
-                orderItem.setProduct(product);
-
-                orderItemRepository.save(orderItem);
-            }
+            writeOrderItems(() -> reconcileOrderItems(savedOrder, orderDTO.getOrderItems(), products), products);
         }
     }
 
@@ -118,18 +177,26 @@ public class OrderService {
             orderItemRepository.deleteAll(orderItems);
         }
         // Then delete the order
-        orderRepository.deleteById(id);
+        orderRepository.findStatusById(id).ifPresent(status -> {
+            orderRepository.deleteById(id);
+            statusIndex.removed(status);
+        });
     }
 
     private OrderDTO mapToDTO(final Order order) {
+        return mapToDTO(order, order.getOrderItems());
+    }
+
+    // package-private, like mapOrderItemToDTO, for the mapping benchmark
+    OrderDTO mapToDTO(final Order order, final Collection<OrderItem> orderItems) {
         OrderDTO orderDTO = new OrderDTO();
         orderDTO.setId(order.getId());
         orderDTO.setStatus(order.getStatus());
         orderDTO.setCustomer(order.getCustomer() == null ? null : order.getCustomer().getId());
 
         // Map order items
-        if (order.getOrderItems() != null) {
-            List<OrderItemDTO> itemDTOs = order.getOrderItems().stream()
+        if (orderItems != null) {
+            List<OrderItemDTO> itemDTOs = orderItems.stream()
                     .map(this::mapOrderItemToDTO)
                     .collect(Collectors.toList());
             orderDTO.setOrderItems(itemDTOs);
@@ -138,7 +205,7 @@ public class OrderService {
         return orderDTO;
     }
 
-    private OrderItemDTO mapOrderItemToDTO(final OrderItem orderItem) {
+    OrderItemDTO mapOrderItemToDTO(final OrderItem orderItem) {
         OrderItemDTO orderItemDTO = new OrderItemDTO();
         orderItemDTO.setId(orderItem.getId());
         orderItemDTO.setQuantity(orderItem.getQuantity());
@@ -159,9 +226,121 @@ public class OrderService {
         return order;
     }
 
-    @Transactional(readOnly = true)
+    private void insertOrderItems(final Order order, final List<OrderItemDTO> itemDTOs,
+                                  final Map<Long, ProductReplica> products) {
+        final List<OrderItem> orderItems = new ArrayList<>(itemDTOs.size());
+        for (OrderItemDTO itemDTO : itemDTOs) {
+            OrderItem orderItem = new OrderItem();
+            orderItem.setQuantity(itemDTO.getQuantity());
+            orderItem.setOrder(order);
+            orderItem.setProduct(itemDTO.getProduct() == null ? null : products.get(itemDTO.getProduct()));
+            orderItems.add(orderItem);
+        }
+        orderItemRepository.insertAll(orderItems);
+    }
+
+    // flushed here so a product the lookup knows before its row is written fails as not found
+    private void writeOrderItems(final Runnable write, final Map<Long, ProductReplica> products) {
+        try {
+            write.run();
+            orderItemRepository.flush();
+        } catch (DataIntegrityViolationException e) {
+            if (!ProductLookup.isMissingProductRow(e)) {
+                throw e;
+            }
+            throw new NotFoundException("products not found, one of: " + products.keySet().stream().sorted().toList());
+        }
+    }
+
+    /**
+     * Diffs the incoming lines against the stored ones. Lines are matched on id first and
+     * then on product; matched lines are updated in place (dirty checking only writes the
+     * changed ones), unmatched incoming lines are batch-inserted and the remaining stored
+     * lines are removed with one bulk delete.
+     */
+    private void reconcileOrderItems(final Order order, final List<OrderItemDTO> itemDTOs,
+                                     final Map<Long, ProductReplica> products) {
+        final Map<Long, OrderItem> remaining = orderItemRepository.findByOrderId(order.getId()).stream()
+                .collect(Collectors.toMap(OrderItem::getId, Function.identity(), (a, b) -> a, LinkedHashMap::new));
+
+        // 1) match on line id
+        final List<OrderItemDTO> unmatched = new ArrayList<>();
+        for (OrderItemDTO itemDTO : itemDTOs) {
+            final OrderItem orderItem = itemDTO.getId() == null ? null : remaining.remove(itemDTO.getId());
+            if (orderItem == null) {
+                unmatched.add(itemDTO);
+            } else {
+                applyItemChanges(orderItem, itemDTO, products);
+            }
+        }
+
+        // 2) match the rest on product
+        final Map<Long, Deque<OrderItem>> remainingByProduct = new HashMap<>();
+        for (OrderItem orderItem : remaining.values()) {
+            remainingByProduct.computeIfAbsent(orderItem.getProduct().getId(), productId -> new ArrayDeque<>())
+                    .add(orderItem);
+        }
+        final List<OrderItemDTO> added = new ArrayList<>();
+        for (OrderItemDTO itemDTO : unmatched) {
+            final Deque<OrderItem> candidates = remainingByProduct.get(itemDTO.getProduct());
+            final OrderItem orderItem = candidates == null ? null : candidates.poll();
+            if (orderItem == null) {
+                added.add(itemDTO);
+            } else {
+                remaining.remove(orderItem.getId());
+                applyItemChanges(orderItem, itemDTO, products);
+            }
+        }
+
+        // 3) whatever is left has been removed from the order
+        if (!remaining.isEmpty()) {
+            orderItemRepository.deleteAllByIdInBatch(remaining.keySet());
+        }
+        insertOrderItems(order, added, products);
+    }
+
+    private void applyItemChanges(final OrderItem orderItem, final OrderItemDTO itemDTO,
+                                  final Map<Long, ProductReplica> products) {
+        if (!Objects.equals(orderItem.getQuantity(), itemDTO.getQuantity())) {
+            orderItem.setQuantity(itemDTO.getQuantity());
+        }
+        if (itemDTO.getProduct() != null && !itemDTO.getProduct().equals(orderItem.getProduct().getId())) {
+            orderItem.setProduct(productRepository.getReferenceById(products.get(itemDTO.getProduct()).getId()));
+        }
+    }
+
+    private static long epochMicros(final OffsetDateTime timestamp) {
+        final Instant instant = timestamp.toInstant();
+        return TimeUnit.SECONDS.toMicros(instant.getEpochSecond()) + instant.getNano() / 1000;
+    }
+
+    // resolves every referenced product at once through the ProductLookup (cache or state store)
+    private Map<Long, ProductReplica> resolveProducts(final List<OrderItemDTO> itemDTOs) {
+        final Set<Long> productIds = itemDTOs.stream()
+                .map(OrderItemDTO::getProduct)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+        final Map<Long, ProductReplica> products = productLookup.getAll(productIds);
+        if (products.size() < productIds.size()) {
+            final List<Long> missing = productIds.stream()
+                    .filter(productId -> !products.containsKey(productId))
+                    .sorted()
+                    .toList();
+            throw new NotFoundException("products not found: " + missing);
+        }
+        return products;
+    }
+
+    // answered from memory, no transaction (and connection) needed
+    @Transactional(propagation = Propagation.SUPPORTS)
     public boolean statusExists(final OrderStatus status) {
-        return orderRepository.existsByStatus(status);
+        return statusIndex.exists(status);
+    }
+
+    @Transactional(readOnly = true)
+    public OrderStatus getStatus(final Long id) {
+        return orderRepository.findStatusById(id)
+                .orElseThrow(NotFoundException::new);
     }
 
     @Transactional(readOnly = true)
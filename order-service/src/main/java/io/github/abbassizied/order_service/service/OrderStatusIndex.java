@@ -0,0 +1,75 @@
+package io.github.abbassizied.order_service.service;
+
+import io.github.abbassizied.order_service.model.OrderStatus;
+import io.github.abbassizied.order_service.repos.OrderRepository;
+import jakarta.annotation.PostConstruct;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Number of orders per {@link OrderStatus}, so status checks need no query.
+ * <p>
+ * Seeded with one grouped count at startup; {@link OrderService} reports every status
+ * change and the counts are only adjusted once the surrounding transaction has committed.
+ * Changes made by other order-service instances are not seen until restart.
+ */
+@Component
+public class OrderStatusIndex {
+
+    private final OrderRepository orderRepository;
+    private final Map<OrderStatus, AtomicLong> counts = new EnumMap<>(OrderStatus.class);
+
+    public OrderStatusIndex(final OrderRepository orderRepository) {
+        this.orderRepository = orderRepository;
+        for (OrderStatus status : OrderStatus.values()) {
+            counts.put(status, new AtomicLong());
+        }
+    }
+
+    @PostConstruct
+    public void seed() {
+        for (Object[] row : orderRepository.countByStatus()) {
+            counts.get((OrderStatus) row[0]).set((Long) row[1]);
+        }
+    }
+
+    public boolean exists(final OrderStatus status) {
+        return counts.get(status).get() > 0;
+    }
+
+    public void added(final OrderStatus status) {
+        afterCommit(() -> counts.get(status).incrementAndGet());
+    }
+
+    public void removed(final OrderStatus status) {
+        afterCommit(() -> counts.get(status).decrementAndGet());
+    }
+
+    public void changed(final OrderStatus from, final OrderStatus to) {
+        if (from == to) {
+            return;
+        }
+        afterCommit(() -> {
+            counts.get(from).decrementAndGet();
+            counts.get(to).incrementAndGet();
+        });
+    }
+
+    private static void afterCommit(final Runnable change) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            change.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                change.run();
+            }
+        });
+    }
+
+}
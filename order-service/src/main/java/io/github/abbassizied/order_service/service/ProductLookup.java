@@ -0,0 +1,33 @@
+package io.github.abbassizied.order_service.service;
+
+import io.github.abbassizied.order_service.domain.ProductReplica;
+import java.util.Collection;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import org.springframework.dao.DataIntegrityViolationException;
+
+/**
+ * Read access to the product replica for order validation. Returned replicas are detached
+ * snapshots; associate order items through ProductReplicaRepository.getReferenceById.
+ */
+public interface ProductLookup {
+
+    Optional<ProductReplica> get(Long id);
+
+    /**
+     * Ids that don't exist are absent from the result.
+     */
+    Map<Long, ProductReplica> getAll(Collection<Long> ids);
+
+    /**
+     * Whether an order item write was rejected by its foreign key to Products. A lookup can
+     * know a product a moment before ProductEventConsumer has written its row; callers report
+     * this like any other missing product.
+     */
+    static boolean isMissingProductRow(final DataIntegrityViolationException e) {
+        final String message = e.getMostSpecificCause().getMessage();
+        return message != null && message.toLowerCase(Locale.ROOT).contains("product_id");
+    }
+
+}
@@ -0,0 +1,100 @@
+package io.github.abbassizied.order_service.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.github.abbassizied.order_service.domain.ProductReplica;
+import io.github.abbassizied.order_service.repos.ProductReplicaRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Component;
+
+/**
+ * Bounded in-memory copy of the product replica used to validate order lines.
+ * <p>
+ * Written through by the product event consumer, evicted on DELETED and warmed in bulk
+ * once the application is ready. Misses fall back to the database. Hit, miss and eviction
+ * counts are published as {@code cache.*} metrics with {@code cache=productReplicas}.
+ * Not created when app.product-store.streams.enabled makes {@link ProductStoreLookup} answer.
+ */
+@Component
+@ConditionalOnProperty(name = "app.product-store.streams.enabled", havingValue = "false", matchIfMissing = true)
+public class ProductReplicaCache implements ProductLookup {
+
+    private static final Logger log = LoggerFactory.getLogger(ProductReplicaCache.class);
+    private static final int WARM_PAGE_SIZE = 1000;
+
+    private final ProductReplicaRepository productRepository;
+    private final Cache<Long, ProductReplica> cache;
+    private final long maxSize;
+
+    public ProductReplicaCache(final ProductReplicaRepository productRepository,
+                               final MeterRegistry meterRegistry,
+                               @Value("${app.product-cache.max-size:100000}") final long maxSize) {
+        this.productRepository = productRepository;
+        this.maxSize = maxSize;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "productReplicas");
+    }
+
+    @Override
+    public Optional<ProductReplica> get(final Long id) {
+        return Optional.ofNullable(cache.get(id, key -> productRepository.findById(key).orElse(null)));
+    }
+
+    /**
+     * Returns the cached replicas for the given ids; all misses are loaded with one query.
+     * Ids that don't exist are absent from the result.
+     */
+    @Override
+    public Map<Long, ProductReplica> getAll(final Collection<Long> ids) {
+        return cache.getAll(ids, missing -> productRepository.findAllById(List.copyOf(missing)).stream()
+                .collect(Collectors.toMap(ProductReplica::getId, Function.identity())));
+    }
+
+    /**
+     * Stores the given state unless the cached one comes from a newer event.
+     */
+    public void put(final ProductReplica replica) {
+        cache.asMap().merge(replica.getId(), replica, (cached, incoming) ->
+                cached.getSourceOffset() != null && incoming.getSourceOffset() != null
+                        && cached.getSourceOffset() > incoming.getSourceOffset() ? cached : incoming);
+    }
+
+    public void evict(final Long id) {
+        cache.invalidate(id);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warm() {
+        final long start = System.nanoTime();
+        Page<ProductReplica> page = productRepository.findAll(PageRequest.of(0, WARM_PAGE_SIZE, Sort.by("id")));
+        while (true) {
+            page.forEach(replica -> cache.asMap().putIfAbsent(replica.getId(), replica));
+            if (!page.hasNext() || cache.estimatedSize() >= maxSize) {
+                break;
+            }
+            page = productRepository.findAll(page.nextPageable());
+        }
+        log.info("Warmed product cache with {} entries in {} ms",
+                cache.estimatedSize(), (System.nanoTime() - start) / 1_000_000);
+    }
+
+}
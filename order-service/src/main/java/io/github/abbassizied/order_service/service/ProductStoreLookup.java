@@ -0,0 +1,86 @@
+package io.github.abbassizied.order_service.service;
+
+import io.github.abbassizied.order_service.domain.ProductReplica;
+import io.github.abbassizied.order_service.kafka.ProductEvent;
+import io.github.abbassizied.order_service.kafka.ProductStreamsConfig;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import org.apache.kafka.streams.errors.InvalidStateStoreException;
+import org.apache.kafka.streams.state.QueryableStoreTypes;
+import org.apache.kafka.streams.state.ReadOnlyKeyValueStore;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.kafka.streams.KafkaStreamsInteractiveQueryService;
+import org.springframework.stereotype.Component;
+
+/**
+ * {@link ProductLookup} answered from the local Kafka Streams product store (interactive
+ * queries), replacing the cache and its database fallback when
+ * app.product-store.streams.enabled is set.
+ * <p>
+ * Lookups never touch the database. The Products table is still maintained by
+ * ProductEventConsumer, since order items reference it, and both follow the same topic
+ * independently: a product created a moment ago can be found here before its row exists.
+ * The order item's foreign key then rejects the insert, which OrderService and
+ * OrderItemService report as a missing product ({@link ProductLookup#isMissingProductRow}).
+ */
+@Component
+@ConditionalOnProperty(name = "app.product-store.streams.enabled", havingValue = "true")
+public class ProductStoreLookup implements ProductLookup {
+
+    private final KafkaStreamsInteractiveQueryService queryService;
+    private volatile ReadOnlyKeyValueStore<String, ProductEvent> store;
+
+    public ProductStoreLookup(final KafkaStreamsInteractiveQueryService queryService) {
+        this.queryService = queryService;
+    }
+
+    @Override
+    public Optional<ProductReplica> get(final Long id) {
+        return Optional.ofNullable(read(id));
+    }
+
+    @Override
+    public Map<Long, ProductReplica> getAll(final Collection<Long> ids) {
+        final Map<Long, ProductReplica> products = new HashMap<>();
+        for (Long id : ids) {
+            final ProductReplica product = read(id);
+            if (product != null) {
+                products.put(id, product);
+            }
+        }
+        return products;
+    }
+
+    private ProductReplica read(final Long id) {
+        ProductEvent event;
+        try {
+            event = store().get(id.toString());
+        } catch (InvalidStateStoreException e) {
+            // the streams instance was restarted or rebalanced; look the store up again
+            store = null;
+            event = store().get(id.toString());
+        }
+        if (event == null || "DELETED".equals(event.getEventType())) {
+            return null;
+        }
+        final ProductReplica product = new ProductReplica();
+        product.setId(event.getProductId());
+        product.setName(event.getName());
+        product.setQuantity(event.getQuantity());
+        product.setPrice(event.getPrice());
+        return product;
+    }
+
+    private ReadOnlyKeyValueStore<String, ProductEvent> store() {
+        ReadOnlyKeyValueStore<String, ProductEvent> current = store;
+        if (current == null) {
+            // retries while the store is still restoring
+            current = queryService.retrieveQueryableStore(ProductStreamsConfig.PRODUCT_STORE,
+                    QueryableStoreTypes.keyValueStore());
+            store = current;
+        }
+        return current;
+    }
+}
@@ -0,0 +1,123 @@
+package io.github.abbassizied.order_service.kafka;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import io.github.abbassizied.order_service.domain.CustomerReplica;
+import io.github.abbassizied.order_service.repos.CustomerReplicaRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.StreamSupport;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.kafka.listener.BatchListenerFailedException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+class CustomerEventConsumerTest {
+
+    private final CustomerReplicaRepository repository = mock(CustomerReplicaRepository.class);
+    // customer ids 2 and 4 share lane 0, 1 and 3 lane 1
+    private final KeyOrderedExecutor workerPool = new KeyOrderedExecutor(2);
+    private final CustomerEventConsumer consumer;
+
+    CustomerEventConsumerTest() {
+        final KafkaTopicsConfig topics = new KafkaTopicsConfig();
+        topics.setCustomerEvents("customer-events");
+        consumer = new CustomerEventConsumer(repository, workerPool,
+                new TransactionTemplate(mock(PlatformTransactionManager.class)), topics, new SimpleMeterRegistry());
+    }
+
+    @AfterEach
+    void shutdown() {
+        workerPool.shutdown();
+    }
+
+    private static ConsumerRecord<String, CustomerEvent> record(final long offset, final String type,
+            final long customerId, final String name, final Integer changedFields) {
+        final CustomerEvent event = new CustomerEvent();
+        event.setEventType(type);
+        event.setCustomerId(customerId);
+        event.setName(name);
+        event.setEmail("c" + customerId + "@example.com");
+        event.setChangedFields(changedFields);
+        return new ConsumerRecord<>("customer-events", 0, offset, String.valueOf(customerId), event);
+    }
+
+    private static ConsumerRecord<String, CustomerEvent> tombstone(final long offset, final long customerId) {
+        return new ConsumerRecord<>("customer-events", 0, offset, String.valueOf(customerId), null);
+    }
+
+    @Test
+    void foldsPatchesIntoTheSnapshotBeforeThem() {
+        consumer.onMessage(List.of(
+                record(0, "CREATED", 1, "Ada", null),
+                record(1, "PATCHED", 1, "Ada L.", CustomerEvent.NAME)));
+
+        @SuppressWarnings("unchecked")
+        final ArgumentCaptor<Collection<CustomerReplica>> upserts = ArgumentCaptor.forClass(Collection.class);
+        verify(repository).upsertAll(upserts.capture());
+        assertThat(upserts.getValue()).singleElement().satisfies(replica -> {
+            assertThat(replica.getName()).isEqualTo("Ada L.");
+            assertThat(replica.getEmail()).isEqualTo("c1@example.com");
+            assertThat(replica.getSourceOffset()).isEqualTo(1L);
+        });
+    }
+
+    @Test
+    void appliesALonePatchToTheChangedColumnsOnly() {
+        consumer.onMessage(List.of(record(5, "PATCHED", 2, "Grace", CustomerEvent.NAME)));
+
+        verify(repository).patchAll(eq(List.of("name")), argThat(replicas -> replicas.size() == 1));
+    }
+
+    @Test
+    void blamesTheEarliestFailureOfAllLanes() {
+        // lane 0 fails at index 3 and is awaited first, lane 1 fails earlier at index 2
+        doThrow(new QueryTimeoutException("lock wait timeout"))
+                .when(repository).upsertAll(argThat(replicas -> replicas.stream().anyMatch(r -> r.getId() == 4L)));
+        doThrow(new DataIntegrityViolationException("fk_orders_customer"))
+                .when(repository).deleteAllByIdInBatch(argThat(ids -> contains(ids, 3L)));
+
+        final List<ConsumerRecord<String, CustomerEvent>> records = List.of(
+                record(20, "CREATED", 1, "Ada", null),
+                record(21, "CREATED", 2, "Grace", null),
+                tombstone(22, 3),
+                record(23, "UPDATED", 4, "Barbara", null));
+
+        assertThatThrownBy(() -> consumer.onMessage(records))
+                .isInstanceOfSatisfying(BatchListenerFailedException.class, e -> {
+                    assertThat(e.getIndex()).isEqualTo(2);
+                    assertThat(e.getCause()).isInstanceOf(DataIntegrityViolationException.class);
+                });
+        // customer 1 and 2 were applied on their own (1 first went with the failing delete of lane 1)
+        verify(repository, times(2)).upsertAll(argThat(replicas -> replicas.size() == 1
+                && replicas.iterator().next().getId() == 1L));
+        verify(repository).upsertAll(argThat(replicas -> replicas.size() == 1
+                && replicas.iterator().next().getId() == 2L));
+    }
+
+    @Test
+    void leavesOtherExceptionsToTheErrorHandler() {
+        doThrow(new IllegalStateException("boom")).when(repository).upsertAll(anyCollection());
+
+        assertThatThrownBy(() -> consumer.onMessage(List.of(record(0, "CREATED", 2, "Grace", null))))
+                .isInstanceOfSatisfying(BatchListenerFailedException.class, e -> assertThat(e.getIndex()).isZero());
+    }
+
+    private static boolean contains(final Iterable<Long> ids, final Long id) {
+        return ids != null && StreamSupport.stream(ids.spliterator(), false).anyMatch(id::equals);
+    }
+}
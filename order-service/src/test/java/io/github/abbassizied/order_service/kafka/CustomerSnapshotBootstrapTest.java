@@ -0,0 +1,148 @@
+package io.github.abbassizied.order_service.kafka;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import io.github.abbassizied.order_service.domain.CustomerReplica;
+import io.github.abbassizied.order_service.repos.CustomerReplicaRepository;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.MockConsumer;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.clients.consumer.OffsetResetStrategy;
+import org.apache.kafka.common.Node;
+import org.apache.kafka.common.PartitionInfo;
+import org.apache.kafka.common.TopicPartition;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.kafka.core.ConsumerFactory;
+
+class CustomerSnapshotBootstrapTest {
+
+    private static final String TOPIC = "customer-events";
+    private static final TopicPartition P0 = new TopicPartition(TOPIC, 0);
+    private static final TopicPartition P1 = new TopicPartition(TOPIC, 1);
+
+    // stays usable once the bootstrap is done with it, to read what it committed
+    private final MockConsumer<String, CustomerEvent> consumer = new MockConsumer<>(OffsetResetStrategy.EARLIEST) {
+        @Override
+        public void close() {
+            closed = true;
+        }
+
+        @Override
+        public void close(final Duration timeout) {
+            closed = true;
+        }
+    };
+    private boolean closed;
+    private final CustomerReplicaRepository repository = mock(CustomerReplicaRepository.class);
+
+    @BeforeEach
+    void twoPartitions() {
+        final Node node = new Node(0, "localhost", 9092);
+        consumer.updatePartitions(TOPIC, List.of(
+                new PartitionInfo(TOPIC, 0, node, new Node[] {node}, new Node[] {node}),
+                new PartitionInfo(TOPIC, 1, node, new Node[] {node}, new Node[] {node})));
+        consumer.updateBeginningOffsets(Map.of(P0, 0L, P1, 0L));
+    }
+
+    @Test
+    void readsOnlyPartitionsTheListenerHasNoOffsetsFor() {
+        when(repository.count()).thenReturn(3L);
+        consumer.commitSync(Map.of(P0, new OffsetAndMetadata(5)));
+        consumer.updateEndOffsets(Map.of(P0, 5L, P1, 2L));
+        consumer.schedulePollTask(() -> {
+            consumer.addRecord(record(P1, 0, 7, event("CREATED", 7)));
+            consumer.addRecord(record(P1, 1, 8, null));
+        });
+        when(repository.findExistingIds(any())).thenReturn(Set.of(8L));
+
+        bootstrap(60_000).start();
+
+        assertThat(consumer.assignment()).containsExactly(P1);
+        @SuppressWarnings("unchecked")
+        final ArgumentCaptor<List<CustomerReplica>> upserts = ArgumentCaptor.forClass(List.class);
+        verify(repository).upsertAll(upserts.capture());
+        assertThat(upserts.getValue()).extracting(CustomerReplica::getId).containsExactly(7L);
+        verify(repository).deleteAllByIdInBatch(Set.of(8L));
+        assertThat(consumer.committed(Set.of(P1))).containsEntry(P1, new OffsetAndMetadata(2));
+    }
+
+    @Test
+    void skipsWhenTheListenerHasOffsetsForEveryPartition() {
+        when(repository.count()).thenReturn(3L);
+        consumer.commitSync(Map.of(P0, new OffsetAndMetadata(5), P1, new OffsetAndMetadata(2)));
+
+        bootstrap(60_000).start();
+
+        assertThat(consumer.assignment()).isEmpty();
+        verify(repository, never()).upsertAll(anyCollection());
+    }
+
+    @Test
+    void readsEveryPartitionIntoAnEmptyTable() {
+        when(repository.count()).thenReturn(0L);
+        consumer.commitSync(Map.of(P0, new OffsetAndMetadata(1), P1, new OffsetAndMetadata(1)));
+        consumer.updateEndOffsets(Map.of(P0, 1L, P1, 1L));
+        consumer.schedulePollTask(() -> {
+            consumer.addRecord(record(P0, 0, 1, event("CREATED", 1)));
+            consumer.addRecord(record(P1, 0, 2, event("CREATED", 2)));
+        });
+
+        bootstrap(60_000).start();
+
+        verify(repository).upsertAll(anyList());
+        assertThat(consumer.assignment()).containsExactlyInAnyOrder(P0, P1);
+    }
+
+    @Test
+    void givesUpWithoutWritingOrCommittingAtTheDeadline() {
+        when(repository.count()).thenReturn(0L);
+        // records that never arrive
+        consumer.updateEndOffsets(Map.of(P0, 10L, P1, 0L));
+
+        bootstrap(300).start();
+
+        verify(repository, never()).upsertAll(anyCollection());
+        assertThat(consumer.committed(Set.of(P0, P1))).isEmpty();
+        assertThat(closed).isTrue();
+    }
+
+    @SuppressWarnings("unchecked")
+    private CustomerSnapshotBootstrap bootstrap(final long timeoutMs) {
+        final ConsumerFactory<String, CustomerEvent> consumerFactory = mock(ConsumerFactory.class);
+        when(consumerFactory.createConsumer(eq("order-service-customer"), any(), eq("-bootstrap"), any()))
+                .thenReturn(consumer);
+        final KafkaTopicsConfig topics = new KafkaTopicsConfig();
+        topics.setCustomerEvents(TOPIC);
+        return new CustomerSnapshotBootstrap(consumerFactory, repository, topics, true, timeoutMs);
+    }
+
+    private static ConsumerRecord<String, CustomerEvent> record(final TopicPartition partition, final long offset,
+            final long customerId, final CustomerEvent event) {
+        return new ConsumerRecord<>(TOPIC, partition.partition(), offset, String.valueOf(customerId), event);
+    }
+
+    private static CustomerEvent event(final String type, final long customerId) {
+        final CustomerEvent event = new CustomerEvent();
+        event.setEventType(type);
+        event.setCustomerId(customerId);
+        event.setName("customer " + customerId);
+        event.setEmail("customer" + customerId + "@example.com");
+        event.setPhone("+1555" + customerId);
+        return event;
+    }
+
+}
@@ -0,0 +1,88 @@
+package io.github.abbassizied.order_service.kafka;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+class KeyOrderedExecutorTest {
+
+    private final KeyOrderedExecutor executor = new KeyOrderedExecutor(4);
+
+    @AfterEach
+    void shutdown() {
+        executor.shutdown();
+    }
+
+    // item = key * 1000 + sequence
+    private static List<Integer> items(final int keys, final int perKey) {
+        final List<Integer> items = new ArrayList<>();
+        for (int sequence = 0; sequence < perKey; sequence++) {
+            for (int key = 0; key < keys; key++) {
+                items.add(key * 1000 + sequence);
+            }
+        }
+        return items;
+    }
+
+    @Test
+    void keepsTheOrderOfEachKeyAcrossLanes() {
+        final Map<Integer, List<Integer>> seen = new ConcurrentHashMap<>();
+        final Set<String> threads = ConcurrentHashMap.newKeySet();
+
+        executor.executeAll(items(16, 50), item -> item / 1000, lane -> {
+            threads.add(Thread.currentThread().getName());
+            lane.forEach(item -> seen.computeIfAbsent(item / 1000, key -> Collections.synchronizedList(new ArrayList<>()))
+                    .add(item % 1000));
+        });
+
+        assertThat(threads).hasSize(4).allMatch(name -> name.startsWith("replica-worker-"));
+        assertThat(seen).hasSize(16);
+        seen.values().forEach(sequence -> assertThat(sequence).isEqualTo(IntStream.range(0, 50).boxed().toList()));
+    }
+
+    @Test
+    void waitsForEveryLaneAndReportsAllFailures() {
+        final AtomicInteger finished = new AtomicInteger();
+
+        assertThatThrownBy(() -> executor.executeAll(items(4, 1), item -> item / 1000, lane -> {
+            final int key = lane.get(0) / 1000;
+            if (key % 2 == 0) {
+                throw new IllegalStateException("lane of key " + key);
+            }
+            sleep();
+            finished.incrementAndGet();
+        }))
+                .isInstanceOf(IllegalStateException.class)
+                .satisfies(e -> assertThat(e.getSuppressed()).hasSize(1));
+        assertThat(finished).hasValue(2);
+    }
+
+    @Test
+    void runsOnTheCallingThreadWithOneWorker() {
+        final KeyOrderedExecutor serial = new KeyOrderedExecutor(1);
+        final List<String> threads = new ArrayList<>();
+
+        serial.executeAll(items(3, 2), item -> item / 1000, lane -> threads.add(Thread.currentThread().getName()));
+
+        assertThat(threads).containsExactly(Thread.currentThread().getName());
+        serial.shutdown();
+    }
+
+    private static void sleep() {
+        try {
+            Thread.sleep(50);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
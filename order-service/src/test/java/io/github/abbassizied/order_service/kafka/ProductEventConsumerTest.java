@@ -0,0 +1,112 @@
+package io.github.abbassizied.order_service.kafka;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import io.github.abbassizied.order_service.domain.ProductReplica;
+import io.github.abbassizied.order_service.repos.ProductReplicaRepository;
+import io.github.abbassizied.order_service.service.ProductReplicaCache;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.StreamSupport;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.kafka.listener.BatchListenerFailedException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+class ProductEventConsumerTest {
+
+    private final ProductReplicaRepository repository = mock(ProductReplicaRepository.class);
+    private final ProductReplicaCache productCache = mock(ProductReplicaCache.class);
+    private final KeyOrderedExecutor workerPool = new KeyOrderedExecutor(1);
+    private final ProductEventConsumer consumer = consumer(workerPool);
+
+    private ProductEventConsumer consumer(final KeyOrderedExecutor workers) {
+        final KafkaTopicsConfig topics = new KafkaTopicsConfig();
+        topics.setProductEvents("product-events");
+        return new ProductEventConsumer(repository, Optional.of(productCache), workers,
+                new TransactionTemplate(mock(PlatformTransactionManager.class)), topics, new SimpleMeterRegistry());
+    }
+
+    @AfterEach
+    void shutdown() {
+        workerPool.shutdown();
+    }
+
+    static ConsumerRecord<String, ProductEvent> record(final long offset, final String type, final long productId) {
+        final ProductEvent event = new ProductEvent();
+        event.setEventType(type);
+        event.setProductId(productId);
+        event.setName("product " + productId);
+        event.setQuantity(1);
+        event.setPrice(2.5);
+        return new ConsumerRecord<>("product-events", 0, offset, String.valueOf(productId), event);
+    }
+
+    @Test
+    void appliesTheLatestEventPerProductInOneUpsert() {
+        consumer.onMessage(List.of(
+                record(0, "CREATED", 1),
+                record(1, "CREATED", 2),
+                record(2, "UPDATED", 1),
+                record(3, "DELETED", 3)));
+
+        @SuppressWarnings("unchecked")
+        final ArgumentCaptor<List<ProductReplica>> upserts = ArgumentCaptor.forClass(List.class);
+        verify(repository).upsertAll(upserts.capture());
+        assertThat(upserts.getValue()).extracting(ProductReplica::getId, ProductReplica::getSourceOffset)
+                .containsExactly(tuple(2L, 1L), tuple(1L, 2L));
+        verify(repository).deleteAllByIdInBatch(List.of(3L));
+        verify(productCache).evict(3L);
+    }
+
+    @Test
+    void reportsOnlyTheRecordThatStillFailsOnItsOwn() {
+        // product 2 is still referenced by order items
+        doThrow(new DataIntegrityViolationException("fk_order_items_product"))
+                .when(repository).deleteAllByIdInBatch(argThat(ids -> contains(ids, 2L)));
+        final List<ConsumerRecord<String, ProductEvent>> records = List.of(
+                record(10, "UPDATED", 1),
+                record(11, "DELETED", 2),
+                record(12, "UPDATED", 3));
+
+        assertThatThrownBy(() -> consumer.onMessage(records))
+                .isInstanceOfSatisfying(BatchListenerFailedException.class, e -> {
+                    assertThat(e.getIndex()).isEqualTo(1);
+                    assertThat(e.getCause()).isInstanceOf(DataIntegrityViolationException.class);
+                });
+
+        // the others were applied on their own after the lane's transaction failed
+        final ArgumentCaptor<ProductReplica> cached = ArgumentCaptor.forClass(ProductReplica.class);
+        verify(productCache, times(2)).put(cached.capture());
+        assertThat(cached.getAllValues()).extracting(ProductReplica::getId).containsExactly(1L, 3L);
+        verify(productCache, never()).evict(any());
+    }
+
+    @Test
+    void doesNotBlameRecordsOfASuccessfulRetry() {
+        doThrow(new IllegalStateException("deadlock")).doNothing().when(repository).upsertAll(anyList());
+
+        consumer.onMessage(List.of(record(0, "UPDATED", 1), record(1, "UPDATED", 2)));
+
+        verify(productCache, times(2)).put(any());
+    }
+
+    private static boolean contains(final Iterable<Long> ids, final Long id) {
+        return ids != null && StreamSupport.stream(ids.spliterator(), false).anyMatch(id::equals);
+    }
+}
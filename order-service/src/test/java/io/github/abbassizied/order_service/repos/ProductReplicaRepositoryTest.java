@@ -0,0 +1,49 @@
+package io.github.abbassizied.order_service.repos;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+import io.github.abbassizied.order_service.config.DomainConfig;
+import io.github.abbassizied.order_service.domain.ProductReplica;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+
+/**
+ * The guarded upsert on H2, where it runs as a MERGE: rows are inserted, replaced by newer
+ * offsets and left alone by older ones.
+ */
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ActiveProfiles("test")
+@Import(DomainConfig.class)
+class ProductReplicaRepositoryTest {
+
+    @Autowired
+    private ProductReplicaRepository repository;
+
+    @Test
+    void keepsTheRowOfTheNewestOffset() {
+        repository.upsertAll(List.of(replica(9001, "first", 5), replica(9002, "second", 5)));
+        repository.upsertAll(List.of(replica(9001, "stale", 3), replica(9002, "newer", 7)));
+
+        assertThat(repository.findAllById(List.of(9001L, 9002L)))
+                .extracting(ProductReplica::getId, ProductReplica::getName, ProductReplica::getSourceOffset)
+                .containsExactlyInAnyOrder(tuple(9001L, "first", 5L), tuple(9002L, "newer", 7L));
+    }
+
+    private static ProductReplica replica(final long id, final String name, final long offset) {
+        final ProductReplica replica = new ProductReplica();
+        replica.setId(id);
+        replica.setName(name);
+        replica.setQuantity(1);
+        replica.setPrice(2.5);
+        replica.setSourceOffset(offset);
+        return replica;
+    }
+
+}
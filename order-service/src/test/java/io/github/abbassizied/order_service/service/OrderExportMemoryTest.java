@@ -0,0 +1,114 @@
+package io.github.abbassizied.order_service.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.github.abbassizied.order_service.config.DomainConfig;
+import io.github.abbassizied.order_service.model.OrderDTO;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Exports more NDJSON than the heap holds. Runs in its own surefire execution with a small
+ * -Xmx (tag {@code low-memory}, see the pom) against a file database, so neither the rows
+ * nor the output can live in memory; an export that collected either would fail with an
+ * OutOfMemoryError.
+ */
+@Tag("low-memory")
+@DataJpaTest(properties = "spring.datasource.url=jdbc:h2:file:./target/h2/order-export;"
+        + "MODE=MySQL;DATABASE_TO_LOWER=TRUE;CASE_INSENSITIVE_IDENTIFIERS=TRUE;CACHE_SIZE=4096")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ActiveProfiles("test")
+@ImportAutoConfiguration(JacksonAutoConfiguration.class)
+@Import({DomainConfig.class, OrderService.class, OrderStatusIndex.class, ProductReplicaCache.class,
+        SimpleMeterRegistry.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class OrderExportMemoryTest {
+
+    private static final int ORDERS = 400_000;
+    private static final int ITEMS_PER_ORDER = 3;
+    private static final int CHUNK = 10_000;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Test
+    void exportStreamsMoreThanTheHeap() throws Exception {
+        jdbcTemplate.update("INSERT INTO customers (id, name, email, phone, date_created, last_updated) "
+                + "VALUES (1, 'customer', 'customer@example.com', '+15550001', NOW(), NOW())");
+        jdbcTemplate.update("INSERT INTO products (id, name, quantity, price, date_created, last_updated) "
+                + "VALUES (1, 'product', 100, 9.99, NOW(), NOW())");
+        // in chunks that commit on their own, a single transaction would keep its undo log on the heap;
+        // every row references the two above, checking that for each would only slow the setup down
+        jdbcTemplate.execute("SET REFERENTIAL_INTEGRITY FALSE");
+        for (int first = 1; first <= ORDERS; first += CHUNK) {
+            final int last = Math.min(ORDERS, first + CHUNK - 1);
+            jdbcTemplate.update("INSERT INTO orders (id, status, customer_id, date_created, last_updated) "
+                    + "SELECT x, 'CREATED', 1, NOW(), NOW() FROM SYSTEM_RANGE(?, ?)", first, last);
+            jdbcTemplate.update("INSERT INTO order_items (quantity, order_id, product_id, date_created, last_updated) "
+                    + "SELECT l.x, o.x, 1, NOW(), NOW() FROM SYSTEM_RANGE(?, ?) o CROSS JOIN SYSTEM_RANGE(1, ?) l",
+                    first, last, ITEMS_PER_ORDER);
+        }
+        jdbcTemplate.execute("SET REFERENTIAL_INTEGRITY TRUE");
+
+        final LineCountingOutputStream output = new LineCountingOutputStream();
+        orderService.exportAll(output);
+
+        assertThat(output.lines).isEqualTo(ORDERS);
+        assertThat(output.bytes).isGreaterThan(Runtime.getRuntime().maxMemory());
+        final OrderDTO last = objectMapper.readValue(output.lastLine.toByteArray(), OrderDTO.class);
+        assertThat(last.getId()).isEqualTo(ORDERS);
+        assertThat(last.getOrderItems()).hasSize(ITEMS_PER_ORDER);
+    }
+
+    // counts the export and keeps only its last line
+    private static final class LineCountingOutputStream extends OutputStream {
+
+        private long bytes;
+        private long lines;
+        private ByteArrayOutputStream lastLine = new ByteArrayOutputStream();
+        private ByteArrayOutputStream line = new ByteArrayOutputStream();
+
+        @Override
+        public void write(final int b) {
+            bytes++;
+            if (b == '\n') {
+                lines++;
+                final ByteArrayOutputStream finished = line;
+                line = lastLine;
+                line.reset();
+                lastLine = finished;
+            } else {
+                line.write(b);
+            }
+        }
+
+        @Override
+        public void write(final byte[] b, final int off, final int len) {
+            for (int i = off; i < off + len; i++) {
+                write(b[i]);
+            }
+        }
+
+    }
+
+}
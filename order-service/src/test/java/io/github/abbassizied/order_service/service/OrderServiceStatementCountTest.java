@@ -0,0 +1,134 @@
+package io.github.abbassizied.order_service.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+import io.github.abbassizied.order_service.config.DomainConfig;
+import io.github.abbassizied.order_service.domain.CustomerReplica;
+import io.github.abbassizied.order_service.domain.ProductReplica;
+import io.github.abbassizied.order_service.model.OrderDTO;
+import io.github.abbassizied.order_service.model.OrderItemDTO;
+import io.github.abbassizied.order_service.model.OrderStatus;
+import io.github.abbassizied.order_service.repos.CustomerReplicaRepository;
+import io.github.abbassizied.order_service.repos.OrderItemRepository;
+import io.github.abbassizied.order_service.repos.ProductReplicaRepository;
+import io.github.abbassizied.test_support.StatementCounter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.LongStream;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Creating an order costs the same number of statements whatever its number of lines: the
+ * products are resolved with one query and the items go out as one JDBC batch.
+ */
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ActiveProfiles("test")
+@ImportAutoConfiguration(JacksonAutoConfiguration.class)
+@Import({DomainConfig.class, OrderService.class, OrderStatusIndex.class, ProductReplicaCache.class,
+        SimpleMeterRegistry.class, StatementCounter.class})
+// each call commits on its own, as it does behind the REST controller
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class OrderServiceStatementCountTest {
+
+    private static final AtomicLong ids = new AtomicLong();
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private CustomerReplicaRepository customerRepository;
+
+    @Autowired
+    private ProductReplicaRepository productRepository;
+
+    @Autowired
+    private OrderItemRepository orderItemRepository;
+
+    @Autowired
+    private StatementCounter statements;
+
+    @Test
+    void createIssuesTheSameStatementsForAnyNumberOfLines() {
+        final long customer = customer();
+        final long one = statementsToCreate(customer, 1);
+        final long ten = statementsToCreate(customer, 10);
+        final long hundred = statementsToCreate(customer, 100);
+
+        // customer lookup, product lookup, order insert, item batch
+        assertThat(one).isEqualTo(4);
+        assertThat(ten).isEqualTo(one);
+        assertThat(hundred).isEqualTo(one);
+    }
+
+    @Test
+    void createStoresEveryLine() {
+        final long customer = customer();
+        final List<OrderItemDTO> lines = lines(25);
+        final OrderDTO orderDTO = order(customer, lines);
+
+        final Long id = orderService.create(orderDTO);
+
+        assertThat(orderItemRepository.findByOrderId(id))
+                .extracting(item -> item.getProduct().getId(), item -> item.getQuantity())
+                .containsExactlyInAnyOrderElementsOf(lines.stream()
+                        .map(line -> tuple(line.getProduct(), line.getQuantity()))
+                        .toList());
+    }
+
+    private long statementsToCreate(final long customer, final int lineCount) {
+        // fresh products each time, so the replica cache cannot answer without a query
+        final OrderDTO orderDTO = order(customer, lines(lineCount));
+        return statements.countDuring(() -> orderService.create(orderDTO));
+    }
+
+    private long customer() {
+        final long id = ids.incrementAndGet();
+        final CustomerReplica customer = new CustomerReplica();
+        customer.setId(id);
+        customer.setName("customer " + id);
+        customer.setEmail("customer" + id + "@example.com");
+        customer.setPhone("+1555" + id);
+        customerRepository.save(customer);
+        return id;
+    }
+
+    private List<OrderItemDTO> lines(final int count) {
+        final List<OrderItemDTO> lines = new ArrayList<>(count);
+        LongStream.range(0, count).forEach(i -> {
+            final ProductReplica product = new ProductReplica();
+            product.setId(ids.incrementAndGet());
+            product.setName("product " + product.getId());
+            product.setQuantity(100);
+            product.setPrice(9.99);
+            productRepository.save(product);
+
+            final OrderItemDTO line = new OrderItemDTO();
+            line.setProduct(product.getId());
+            line.setQuantity((int) i + 1);
+            lines.add(line);
+        });
+        return lines;
+    }
+
+    private static OrderDTO order(final long customer, final List<OrderItemDTO> lines) {
+        final OrderDTO orderDTO = new OrderDTO();
+        orderDTO.setStatus(OrderStatus.CREATED);
+        orderDTO.setCustomer(customer);
+        orderDTO.setOrderItems(lines);
+        return orderDTO;
+    }
+
+}
@@ -0,0 +1,164 @@
+package io.github.abbassizied.order_service.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import io.github.abbassizied.order_service.config.DomainConfig;
+import io.github.abbassizied.order_service.domain.CustomerReplica;
+import io.github.abbassizied.order_service.domain.ProductReplica;
+import io.github.abbassizied.order_service.model.OrderDTO;
+import io.github.abbassizied.order_service.model.OrderItemDTO;
+import io.github.abbassizied.order_service.model.OrderStatus;
+import io.github.abbassizied.order_service.repos.CustomerReplicaRepository;
+import io.github.abbassizied.order_service.repos.OrderItemRepository;
+import io.github.abbassizied.order_service.repos.OrderRepository;
+import io.github.abbassizied.order_service.repos.ProductReplicaRepository;
+import io.github.abbassizied.order_service.util.NotFoundException;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * The product store can know a product before ProductEventConsumer has written its row. Order
+ * items referencing it are rejected by the foreign key and answered as a missing product.
+ */
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ActiveProfiles("test")
+@ImportAutoConfiguration(JacksonAutoConfiguration.class)
+@Import({DomainConfig.class, OrderService.class, OrderItemService.class, OrderStatusIndex.class,
+        ProductRowNotWrittenTest.StoreAheadOfRows.class})
+// each call commits on its own, as it does behind the REST controller
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class ProductRowNotWrittenTest {
+
+    // known to the lookup, but without a Products row
+    private static final long PENDING = 1_000_002L;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private OrderItemService orderItemService;
+
+    @Autowired
+    private CustomerReplicaRepository customerRepository;
+
+    @Autowired
+    private ProductReplicaRepository productRepository;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private OrderItemRepository orderItemRepository;
+
+    private long written;
+    private long customer;
+
+    @BeforeEach
+    void customerAndWrittenProduct() {
+        final CustomerReplica customerReplica = new CustomerReplica();
+        customerReplica.setId(1_000_000L);
+        customerReplica.setName("customer");
+        customerReplica.setEmail("customer@example.com");
+        customerReplica.setPhone("+15550000");
+        customer = customerRepository.save(customerReplica).getId();
+        written = productRepository.save(StoreAheadOfRows.product(1_000_001L)).getId();
+    }
+
+    @Test
+    void createWithProductWithoutRowIsNotFound() {
+        final long orders = orderRepository.count();
+
+        assertThatThrownBy(() -> orderService.create(order(line(written), line(PENDING))))
+                .isInstanceOf(NotFoundException.class)
+                .hasMessageContaining(String.valueOf(PENDING));
+        assertThat(orderRepository.count()).isEqualTo(orders);
+    }
+
+    @Test
+    void updateWithProductWithoutRowIsNotFound() {
+        final Long id = orderService.create(order(line(written)));
+
+        assertThatThrownBy(() -> orderService.update(id, order(line(PENDING))))
+                .isInstanceOf(NotFoundException.class);
+        assertThat(orderItemRepository.findByOrderId(id))
+                .extracting(item -> item.getProduct().getId())
+                .containsExactly(written);
+    }
+
+    @Test
+    void orderItemWithProductWithoutRowIsNotFound() {
+        final Long id = orderService.create(order());
+        final OrderItemDTO itemDTO = line(PENDING);
+        itemDTO.setOrder(id);
+
+        assertThatThrownBy(() -> orderItemService.create(itemDTO))
+                .isInstanceOf(NotFoundException.class)
+                .hasMessageContaining(String.valueOf(PENDING));
+        assertThat(orderItemRepository.findByOrderId(id)).isEmpty();
+    }
+
+    private OrderDTO order(final OrderItemDTO... lines) {
+        final OrderDTO orderDTO = new OrderDTO();
+        orderDTO.setStatus(OrderStatus.CREATED);
+        orderDTO.setCustomer(customer);
+        orderDTO.setOrderItems(List.of(lines));
+        return orderDTO;
+    }
+
+    private static OrderItemDTO line(final long product) {
+        final OrderItemDTO line = new OrderItemDTO();
+        line.setProduct(product);
+        line.setQuantity(1);
+        return line;
+    }
+
+    @TestConfiguration
+    static class StoreAheadOfRows {
+
+        @Bean
+        ProductLookup productLookup() {
+            return new ProductLookup() {
+
+                @Override
+                public Optional<ProductReplica> get(final Long id) {
+                    return Optional.of(product(id));
+                }
+
+                @Override
+                public Map<Long, ProductReplica> getAll(final Collection<Long> ids) {
+                    final Map<Long, ProductReplica> products = new HashMap<>();
+                    ids.forEach(id -> products.put(id, product(id)));
+                    return products;
+                }
+            };
+        }
+
+        static ProductReplica product(final long id) {
+            final ProductReplica product = new ProductReplica();
+            product.setId(id);
+            product.setName("product " + id);
+            product.setQuantity(100);
+            product.setPrice(9.99);
+            return product;
+        }
+    }
+
+}
@@ -0,0 +1,61 @@
+package io.github.abbassizied.order_service.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import io.github.abbassizied.order_service.domain.ProductReplica;
+import io.github.abbassizied.order_service.kafka.ProductEvent;
+import io.github.abbassizied.order_service.kafka.ProductStreamsConfig;
+import java.util.List;
+import org.apache.kafka.streams.state.ReadOnlyKeyValueStore;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.streams.KafkaStreamsInteractiveQueryService;
+
+class ProductStoreLookupTest {
+
+    private final KafkaStreamsInteractiveQueryService queryService = mock(KafkaStreamsInteractiveQueryService.class);
+    @SuppressWarnings("unchecked")
+    private final ReadOnlyKeyValueStore<String, ProductEvent> store = mock(ReadOnlyKeyValueStore.class);
+    private final ProductStoreLookup lookup = new ProductStoreLookup(queryService);
+
+    @BeforeEach
+    void storeHoldsProductsOneAndTwo() {
+        when(queryService.retrieveQueryableStore(any(String.class), any())).thenAnswer(invocation ->
+                ProductStreamsConfig.PRODUCT_STORE.equals(invocation.getArgument(0)) ? store : null);
+        when(store.get(anyString())).thenReturn(null);
+        when(store.get("1")).thenReturn(event(1));
+        when(store.get("2")).thenReturn(event(2));
+    }
+
+    @Test
+    void lookupsAreAnsweredFromTheStore() {
+        assertThat(lookup.get(1L)).map(ProductReplica::getName).contains("product 1");
+        assertThat(lookup.get(3L)).isEmpty();
+        assertThat(lookup.getAll(List.of(1L, 2L, 3L))).containsOnlyKeys(1L, 2L);
+    }
+
+    @Test
+    void deletedProductIsMissing() {
+        final ProductEvent deleted = event(2);
+        deleted.setEventType("DELETED");
+        when(store.get("2")).thenReturn(deleted);
+
+        assertThat(lookup.get(2L)).isEmpty();
+        assertThat(lookup.getAll(List.of(1L, 2L))).containsOnlyKeys(1L);
+    }
+
+    private static ProductEvent event(final long productId) {
+        final ProductEvent event = new ProductEvent();
+        event.setEventType("CREATED");
+        event.setProductId(productId);
+        event.setName("product " + productId);
+        event.setQuantity(1);
+        event.setPrice(2.5);
+        return event;
+    }
+
+}
@@ -0,0 +1,52 @@
+package io.github.abbassizied.product_service.domain;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EntityListeners;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import java.time.OffsetDateTime;
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.data.annotation.CreatedDate;
+import org.springframework.data.jpa.domain.support.AuditingEntityListener;
+
+
+/**
+ * A ProductEvent waiting to be published, written in the same transaction as the
+ * {@link Product} change it describes.
+ */
+@Entity
+@Table(name = "ProductOutbox")
+@EntityListeners(AuditingEntityListener.class)
+@Getter
+@Setter
+public class ProductOutboxEvent {
+
+    @Id
+    @Column(nullable = false, updatable = false)
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private String eventType;
+
+    @Column(nullable = false)
+    private Long productId;
+
+    @Column
+    private String name;
+
+    @Column
+    private Integer quantity;
+
+    @Column
+    private Double price;
+
+    @CreatedDate
+    @Column(nullable = false, updatable = false)
+    private OffsetDateTime dateCreated;
+
+}
@@ -0,0 +1,26 @@
+package io.github.abbassizied.product_service.domain;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.Getter;
+import lombok.Setter;
+
+
+/**
+ * One share of the product outbox, the events whose {@code productId % slots} equals the id.
+ * A relay instance publishes a slot only while holding its row lock, so the events of one
+ * product are never published by two instances at once.
+ */
+@Entity
+@Table(name = "ProductOutboxSlots")
+@Getter
+@Setter
+public class ProductOutboxSlot {
+
+    @Id
+    @Column(nullable = false, updatable = false)
+    private Integer id;
+
+}
@@ -0,0 +1,62 @@
+package io.github.abbassizied.product_service.kafka;
+
+import io.github.abbassizied.event_schema.EventDeserializer;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.Map;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.springframework.boot.autoconfigure.kafka.KafkaProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
+import org.springframework.kafka.core.MicrometerConsumerListener;
+import org.springframework.kafka.listener.ContainerProperties;
+import org.springframework.kafka.support.serializer.JsonDeserializer;
+
+@Configuration
+public class KafkaConfig {
+
+    private final KafkaProperties kafkaProperties;
+    private final MeterRegistry meterRegistry;
+
+    public KafkaConfig(KafkaProperties kafkaProperties, MeterRegistry meterRegistry) {
+        this.kafkaProperties = kafkaProperties;
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * Batch listeners over product-events that keep no committed position: each instance reads
+     * in a group of its own and starts from the end of the topic whenever it starts. The listener
+     * is taken lazily: registering its own @KafkaListener needs this factory.
+     */
+    @Bean
+    public ConcurrentKafkaListenerContainerFactory<String, ProductEvent> productChangeListenerContainerFactory(
+            @Lazy ProductChangeListener productChangeListener) {
+        ConcurrentKafkaListenerContainerFactory<String, ProductEvent> factory =
+                new ConcurrentKafkaListenerContainerFactory<>();
+        factory.setConsumerFactory(productChangeConsumerFactory());
+        factory.setBatchListener(true);
+        factory.getContainerProperties().setConsumerRebalanceListener(productChangeListener);
+        // never acknowledged, so the per-instance groups leave no offsets behind
+        factory.getContainerProperties().setAckMode(ContainerProperties.AckMode.MANUAL);
+        factory.getContainerProperties().setAssignmentCommitOption(ContainerProperties.AssignmentCommitOption.NEVER);
+        return factory;
+    }
+
+    @Bean
+    public ConsumerFactory<String, ProductEvent> productChangeConsumerFactory() {
+        Map<String, Object> configs = kafkaProperties.buildConsumerProperties();
+        configs.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "latest");
+        configs.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, false);
+        configs.put(JsonDeserializer.VALUE_DEFAULT_TYPE, ProductEvent.class.getName());
+        configs.put(JsonDeserializer.TRUSTED_PACKAGES, "*");
+
+        DefaultKafkaConsumerFactory<String, ProductEvent> factory = new DefaultKafkaConsumerFactory<>(configs,
+                StringDeserializer::new, () -> new EventDeserializer<>(ProductEvent.SCHEMA));
+        factory.addListener(new MicrometerConsumerListener<>(meterRegistry));
+        return factory;
+    }
+}
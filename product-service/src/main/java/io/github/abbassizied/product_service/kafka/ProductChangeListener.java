@@ -0,0 +1,67 @@
+package io.github.abbassizied.product_service.kafka;
+
+import io.github.abbassizied.product_service.service.ProductCatalogCache;
+import io.github.abbassizied.product_service.service.ProductNameIndex;
+import java.util.Collection;
+import java.util.List;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.listener.ConsumerAwareRebalanceListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * Follows the product changes committed by every product-service instance, this one included,
+ * evicting them from the {@link ProductCatalogCache} and applying them to the
+ * {@link ProductNameIndex}, so other instances stop serving a changed product once its event has
+ * been relayed. Each instance reads in a consumer group of its own (see
+ * {@link KafkaConfig#productChangeListenerContainerFactory}) and tells the name index when it
+ * starts and stops following the topic.
+ */
+@Component
+public class ProductChangeListener implements ConsumerAwareRebalanceListener {
+
+    private final ProductCatalogCache catalogCache;
+    private final ProductNameIndex nameIndex;
+
+    public ProductChangeListener(ProductCatalogCache catalogCache, ProductNameIndex nameIndex) {
+        this.catalogCache = catalogCache;
+        this.nameIndex = nameIndex;
+    }
+
+    @Override
+    public void onPartitionsAssigned(Consumer<?, ?> consumer, Collection<TopicPartition> partitions) {
+        // resolves the latest offsets now: every event relayed from here on is consumed
+        partitions.forEach(consumer::position);
+        nameIndex.following();
+    }
+
+    @Override
+    public void onPartitionsRevokedBeforeCommit(Consumer<?, ?> consumer, Collection<TopicPartition> partitions) {
+        if (!partitions.isEmpty()) {
+            nameIndex.lost();
+        }
+    }
+
+    @Override
+    public void onPartitionsLost(Consumer<?, ?> consumer, Collection<TopicPartition> partitions) {
+        nameIndex.lost();
+    }
+
+    @KafkaListener(topics = "${app.kafka.topics.product-events}",
+            groupId = "${spring.application.name}-changes-${random.uuid}",
+            containerFactory = "productChangeListenerContainerFactory")
+    public void onChanges(List<ProductEvent> events) {
+        for (ProductEvent event : events) {
+            if (event == null) {
+                continue;
+            }
+            catalogCache.evict(event.getProductId());
+            if ("DELETED".equals(event.getEventType())) {
+                nameIndex.remove(event.getProductId());
+            } else {
+                nameIndex.put(event.getProductId(), event.getName());
+            }
+        }
+    }
+}
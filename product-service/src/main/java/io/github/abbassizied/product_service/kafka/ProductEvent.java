@@ -1,5 +1,6 @@
 package io.github.abbassizied.product_service.kafka;
 
+import io.github.abbassizied.event_schema.EventSchema;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -8,6 +9,15 @@ import lombok.NoArgsConstructor;
 @NoArgsConstructor
 @AllArgsConstructor
 public class ProductEvent {
+
+    public static final EventSchema<ProductEvent> SCHEMA = EventSchema.builder("ProductEvent", ProductEvent::new)
+            .string("eventType", ProductEvent::getEventType, ProductEvent::setEventType)
+            .int64("productId", ProductEvent::getProductId, ProductEvent::setProductId)
+            .string("name", ProductEvent::getName, ProductEvent::setName)
+            .int32("quantity", ProductEvent::getQuantity, ProductEvent::setQuantity)
+            .float64("price", ProductEvent::getPrice, ProductEvent::setPrice)
+            .build();
+
     private String eventType; // CREATED, UPDATED, DELETED
     private Long productId;
     private String name;
@@ -0,0 +1,14 @@
+package io.github.abbassizied.product_service.kafka;
+
+import io.github.abbassizied.event_schema.EventSerializer;
+
+/**
+ * Binary encoding of {@link ProductEvent} (see {@link io.github.abbassizied.event_schema.EventSchema}).
+ * Selected per topic through DelegatingByTopicSerializer in application.yml.
+ */
+public class ProductEventSerializer extends EventSerializer<ProductEvent> {
+
+    public ProductEventSerializer() {
+        super(ProductEvent.SCHEMA);
+    }
+}
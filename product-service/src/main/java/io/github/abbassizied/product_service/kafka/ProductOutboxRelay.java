@@ -0,0 +1,138 @@
+package io.github.abbassizied.product_service.kafka;
+
+import io.github.abbassizied.product_service.domain.ProductOutboxEvent;
+import io.github.abbassizied.product_service.domain.ProductOutboxSlot;
+import io.github.abbassizied.product_service.repos.ProductOutboxRepository;
+import io.github.abbassizied.product_service.repos.ProductOutboxSlotRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Publishes the product outbox to Kafka.
+ * <p>
+ * The outbox is split into slots by {@code productId % slots} (see {@link ProductOutboxSlot}).
+ * Each round walks the slots; a slot whose lock another instance holds is skipped
+ * ({@code FOR UPDATE SKIP LOCKED}), so several instances relay side by side while the events
+ * of one product are only ever published by one of them, in outbox order. Per slot the oldest
+ * rows are sent without waiting in between, the batch is awaited for at most send-timeout-ms
+ * and the rows are deleted in bulk in the same transaction. A failed or timed out send rolls
+ * the batch back and it is retried (at-least-once). All instances must use the same number of
+ * slots.
+ */
+@Component
+public class ProductOutboxRelay {
+
+    private static final Logger log = LoggerFactory.getLogger(ProductOutboxRelay.class);
+
+    private final ProductOutboxRepository outboxRepository;
+    private final ProductOutboxSlotRepository slotRepository;
+    private final ProductProducer producer;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+    private final int slots;
+    private final long sendTimeoutMs;
+    private final Counter publishedCounter;
+    private final AtomicLong depth = new AtomicLong();
+
+    public ProductOutboxRelay(ProductOutboxRepository outboxRepository, ProductOutboxSlotRepository slotRepository,
+                              ProductProducer producer, TransactionTemplate transactionTemplate,
+                              MeterRegistry meterRegistry,
+                              @Value("${app.outbox.batch-size:1000}") int batchSize,
+                              @Value("${app.outbox.slots:4}") int slots,
+                              @Value("${app.outbox.send-timeout-ms:10000}") long sendTimeoutMs) {
+        this.outboxRepository = outboxRepository;
+        this.slotRepository = slotRepository;
+        this.producer = producer;
+        this.transactionTemplate = transactionTemplate;
+        this.batchSize = batchSize;
+        this.slots = slots;
+        this.sendTimeoutMs = sendTimeoutMs;
+        this.publishedCounter = Counter.builder("outbox.relay.published")
+                .description("ProductEvents published from the outbox")
+                .register(meterRegistry);
+        Gauge.builder("outbox.depth", depth, AtomicLong::get)
+                .description("ProductEvents waiting in the outbox")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void createSlots() {
+        for (int slot = 0; slot < slots; slot++) {
+            if (slotRepository.existsById(slot)) {
+                continue;
+            }
+            final ProductOutboxSlot outboxSlot = new ProductOutboxSlot();
+            outboxSlot.setId(slot);
+            try {
+                slotRepository.save(outboxSlot);
+            } catch (DataIntegrityViolationException e) {
+                // created by another instance meanwhile
+            }
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.outbox.poll-interval-ms:200}")
+    public void relay() {
+        for (int slot = 0; slot < slots; slot++) {
+            relay(slot);
+        }
+    }
+
+    private void relay(final int slot) {
+        try {
+            int published;
+            do {
+                published = transactionTemplate.execute(status -> publishBatch(slot));
+            } while (published == batchSize);
+        } catch (RuntimeException e) {
+            log.warn("Outbox relay of slot {} failed, will retry: {}", slot, e.getMessage());
+        }
+    }
+
+    // counting the table is not free, so the gauge is refreshed on its own, slower schedule
+    @Scheduled(fixedDelayString = "${app.outbox.depth-interval-ms:10000}")
+    public void sampleDepth() {
+        depth.set(outboxRepository.count());
+    }
+
+    private int publishBatch(final int slot) {
+        if (slotRepository.tryLock(slot).isEmpty()) {
+            return 0;
+        }
+        final List<ProductOutboxEvent> batch = outboxRepository.findNextBatch(slots, slot, batchSize);
+        if (batch.isEmpty()) {
+            return 0;
+        }
+        final CompletableFuture<?>[] sends = batch.stream()
+                .map(outboxEvent -> producer.sendEvent(mapToEvent(outboxEvent)))
+                .toArray(CompletableFuture[]::new);
+        // throws if any send failed or is still unacknowledged after the timeout, rolling back the delete below
+        CompletableFuture.allOf(sends).orTimeout(sendTimeoutMs, TimeUnit.MILLISECONDS).join();
+
+        outboxRepository.deleteAllByIdInBatch(batch.stream().map(ProductOutboxEvent::getId).toList());
+        publishedCounter.increment(batch.size());
+        return batch.size();
+    }
+
+    private static ProductEvent mapToEvent(final ProductOutboxEvent outboxEvent) {
+        return new ProductEvent(
+                outboxEvent.getEventType(),
+                outboxEvent.getProductId(),
+                outboxEvent.getName(),
+                outboxEvent.getQuantity(),
+                outboxEvent.getPrice());
+    }
+}
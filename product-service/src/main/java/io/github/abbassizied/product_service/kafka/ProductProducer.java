@@ -1,22 +1,92 @@
 package io.github.abbassizied.product_service.kafka;
 
+import io.github.abbassizied.product_service.util.ProducerBusyException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
 import org.springframework.stereotype.Service;
 
+/**
+ * Sends are asynchronous; batching, compression and idempotence come from spring.kafka.producer.
+ * At most max-in-flight sends may be unacknowledged at once, a caller that cannot get a permit
+ * within acquire-timeout-ms gets a {@link ProducerBusyException} instead of blocking in the client.
+ */
+@Slf4j
 @Service
 public class ProductProducer {
     private final KafkaTopicsConfig kafkaTopicsConfig;
 
     private final KafkaTemplate<String, ProductEvent> kafkaTemplate;
 
-    public ProductProducer(KafkaTemplate<String, ProductEvent> kafkaTemplate, KafkaTopicsConfig kafkaTopicsConfig) {
+    private final Semaphore inFlight;
+
+    private final long acquireTimeoutMs;
+
+    private final Timer sendSuccess;
+
+    private final Timer sendFailure;
+
+    public ProductProducer(KafkaTemplate<String, ProductEvent> kafkaTemplate, KafkaTopicsConfig kafkaTopicsConfig,
+            MeterRegistry meterRegistry,
+            @Value("${app.kafka.producer.max-in-flight:10000}") int maxInFlight,
+            @Value("${app.kafka.producer.acquire-timeout-ms:100}") long acquireTimeoutMs) {
         this.kafkaTemplate = kafkaTemplate;
         this.kafkaTopicsConfig = kafkaTopicsConfig;
+        this.inFlight = new Semaphore(maxInFlight);
+        this.acquireTimeoutMs = acquireTimeoutMs;
+        this.sendSuccess = sendTimer(meterRegistry, "success");
+        this.sendFailure = sendTimer(meterRegistry, "failure");
+    }
+
+    public CompletableFuture<SendResult<String, ProductEvent>> sendEvent(ProductEvent event) {
+        return send(event.getProductId().toString(), event);
+    }
+
+    private CompletableFuture<SendResult<String, ProductEvent>> send(String key, ProductEvent event) {
+        acquirePermit();
+        long start = System.nanoTime();
+        CompletableFuture<SendResult<String, ProductEvent>> future;
+        try {
+            future = kafkaTemplate.send(kafkaTopicsConfig.getProductEvents(), key, event);
+        } catch (RuntimeException e) {
+            inFlight.release();
+            sendFailure.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            throw e;
+        }
+        return future.whenComplete((result, ex) -> {
+            inFlight.release();
+            if (ex == null) {
+                sendSuccess.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            } else {
+                sendFailure.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                log.error("Failed to send product event key={}", key, ex);
+            }
+        });
+    }
+
+    private void acquirePermit() {
+        try {
+            if (inFlight.tryAcquire(acquireTimeoutMs, TimeUnit.MILLISECONDS)) {
+                return;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        throw new ProducerBusyException("too many product events in flight, retry later");
     }
 
-    public void sendEvent(ProductEvent event) {
-        String productTopic = kafkaTopicsConfig.getProductEvents();
-        System.out.println("Product topic: " + productTopic);
-        kafkaTemplate.send(productTopic, event.getProductId().toString(), event);
+    private Timer sendTimer(MeterRegistry meterRegistry, String result) {
+        return Timer.builder("kafka.producer.send")
+                .description("Time from send until broker acknowledgement")
+                .tag("topic", kafkaTopicsConfig.getProductEvents())
+                .tag("result", result)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
     }
 }
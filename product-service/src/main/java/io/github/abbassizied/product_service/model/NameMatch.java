@@ -0,0 +1,9 @@
+package io.github.abbassizied.product_service.model;
+
+
+public enum NameMatch {
+
+    PREFIX,
+    CONTAINS
+
+}
@@ -0,0 +1,17 @@
+package io.github.abbassizied.product_service.model;
+
+import java.util.List;
+import lombok.Getter;
+import lombok.Setter;
+
+
+@Getter
+@Setter
+public class ProductPageDTO {
+
+    private List<ProductDTO> products;
+
+    // opaque position of the last product, null when there is no further page
+    private String nextCursor;
+
+}
@@ -0,0 +1,38 @@
+package io.github.abbassizied.product_service.model;
+
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.PositiveOrZero;
+import jakarta.validation.constraints.Size;
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.data.domain.Sort;
+
+
+@Getter
+@Setter
+public class ProductSearchDTO {
+
+    // case and accent insensitive, matched as nameMatch says
+    @Size(max = 255)
+    private String name;
+
+    @NotNull
+    private NameMatch nameMatch = NameMatch.CONTAINS;
+
+    @PositiveOrZero
+    private Double minPrice;
+
+    @PositiveOrZero
+    private Double maxPrice;
+
+    // true: only products with quantity > 0
+    private Boolean inStock;
+
+    // ties are broken by id, in the same direction
+    @NotNull
+    private ProductSortField sort = ProductSortField.ID;
+
+    @NotNull
+    private Sort.Direction direction = Sort.Direction.ASC;
+
+}
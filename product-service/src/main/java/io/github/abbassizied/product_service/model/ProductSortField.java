@@ -0,0 +1,10 @@
+package io.github.abbassizied.product_service.model;
+
+
+public enum ProductSortField {
+
+    ID,
+    NAME,
+    PRICE
+
+}
@@ -0,0 +1,16 @@
+package io.github.abbassizied.product_service.model;
+
+import jakarta.validation.constraints.NotNull;
+import lombok.Getter;
+import lombok.Setter;
+
+
+@Getter
+@Setter
+public class StockAdjustmentDTO {
+
+    // positive to add stock, negative to take it; taking more than is in stock answers 409
+    @NotNull
+    private Integer delta;
+
+}
@@ -0,0 +1,18 @@
+package io.github.abbassizied.product_service.repos;
+
+import io.github.abbassizied.product_service.domain.ProductOutboxEvent;
+import java.util.List;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+
+public interface ProductOutboxRepository extends JpaRepository<ProductOutboxEvent, Long> {
+
+    // Oldest pending events of one outbox slot, see ProductOutboxSlot
+    @Query(value = "SELECT * FROM product_outbox WHERE MOD(product_id, :slots) = :slot ORDER BY id LIMIT :limit",
+            nativeQuery = true)
+    List<ProductOutboxEvent> findNextBatch(@Param("slots") int slots, @Param("slot") int slot,
+                                           @Param("limit") int limit);
+
+}
@@ -1,8 +1,29 @@
 package io.github.abbassizied.product_service.repos;
 
 import io.github.abbassizied.product_service.domain.Product;
+import jakarta.persistence.LockModeType;
+import java.time.OffsetDateTime;
+import java.util.Optional;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 
-public interface ProductRepository extends JpaRepository<Product, Long> {
+public interface ProductRepository extends JpaRepository<Product, Long>, ProductRepositoryCustom {
+
+    // atomic in the database, so concurrent writers never lose each other's changes;
+    // 0 when the product is gone or the result would be negative
+    @Modifying
+    @Query(value = "UPDATE products SET quantity = quantity + :delta, last_updated = :now "
+            + "WHERE id = :id AND quantity + :delta >= 0", nativeQuery = true)
+    int addToQuantity(@Param("id") Long id, @Param("delta") long delta, @Param("now") OffsetDateTime now);
+
+    @Query("select p.quantity from Product p where p.id = :id")
+    Optional<Integer> findQuantityById(@Param("id") Long id);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    Optional<Product> findWithLockById(Long id);
+
 }
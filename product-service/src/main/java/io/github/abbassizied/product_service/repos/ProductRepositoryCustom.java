@@ -0,0 +1,27 @@
+package io.github.abbassizied.product_service.repos;
+
+import io.github.abbassizied.product_service.domain.Product;
+import io.github.abbassizied.product_service.model.ProductSearchDTO;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.BiConsumer;
+
+
+public interface ProductRepositoryCustom {
+
+    /**
+     * Keyset page of products matching the search, in its sort order with ties broken by id.
+     * When {@code ids} is not null only those products are considered; the name filter is
+     * still applied. {@code afterValue} and {@code afterId} are the sort value and id of the
+     * last product of the previous page, both null for the first one. The returned products
+     * are detached and only carry id, name, quantity and price.
+     */
+    List<Product> search(ProductSearchDTO search, Collection<Long> ids, Object afterValue, Long afterId,
+            int limit);
+
+    /**
+     * Passes the id and name of every product to the consumer, in id order.
+     */
+    void forEachName(BiConsumer<Long, String> consumer);
+
+}
@@ -0,0 +1,107 @@
+package io.github.abbassizied.product_service.repos;
+
+import io.github.abbassizied.product_service.domain.Product;
+import io.github.abbassizied.product_service.model.NameMatch;
+import io.github.abbassizied.product_service.model.ProductSearchDTO;
+import io.github.abbassizied.product_service.model.ProductSortField;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+
+
+public class ProductRepositoryCustomImpl implements ProductRepositoryCustom {
+
+    // each backed by a (column, id) index, see Product
+    private static final Map<ProductSortField, String> SORT_COLUMNS = Map.of(
+            ProductSortField.ID, "id",
+            ProductSortField.NAME, "name",
+            ProductSortField.PRICE, "price");
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public ProductRepositoryCustomImpl(final JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public List<Product> search(final ProductSearchDTO search, final Collection<Long> ids, final Object afterValue,
+            final Long afterId, final int limit) {
+        final StringBuilder sql = new StringBuilder("SELECT id, name, quantity, price FROM products WHERE 1 = 1");
+        final List<Object> params = new ArrayList<>();
+        if (ids != null) {
+            if (ids.isEmpty()) {
+                return List.of();
+            }
+            sql.append(" AND id IN (").append(String.join(", ", Collections.nCopies(ids.size(), "?"))).append(')');
+            params.addAll(ids);
+        }
+        if (search.getName() != null) {
+            // the column collation makes LIKE case and accent insensitive; a prefix can use the name index
+            sql.append(" AND name LIKE ?");
+            final String literal = escapeLike(search.getName());
+            params.add(search.getNameMatch() == NameMatch.PREFIX ? literal + "%" : "%" + literal + "%");
+        }
+        if (search.getMinPrice() != null) {
+            sql.append(" AND price >= ?");
+            params.add(search.getMinPrice());
+        }
+        if (search.getMaxPrice() != null) {
+            sql.append(" AND price <= ?");
+            params.add(search.getMaxPrice());
+        }
+        if (Boolean.TRUE.equals(search.getInStock())) {
+            sql.append(" AND quantity > 0");
+        }
+
+        final String column = SORT_COLUMNS.get(search.getSort());
+        final boolean descending = search.getDirection() == Sort.Direction.DESC;
+        final String after = descending ? "<" : ">";
+        if (afterId != null) {
+            if (search.getSort() == ProductSortField.ID) {
+                sql.append(" AND id ").append(after).append(" ?");
+                params.add(afterId);
+            } else {
+                // expanded row comparison, the leading bound keeps it a range scan on (column, id)
+                sql.append(" AND ").append(column).append(' ').append(after).append("= ?")
+                        .append(" AND (").append(column).append(' ').append(after).append(" ? OR id ")
+                        .append(after).append(" ?)");
+                params.add(afterValue);
+                params.add(afterValue);
+                params.add(afterId);
+            }
+        }
+        final String direction = descending ? " DESC" : " ASC";
+        sql.append(" ORDER BY ");
+        if (search.getSort() != ProductSortField.ID) {
+            sql.append(column).append(direction).append(", ");
+        }
+        sql.append("id").append(direction).append(" LIMIT ?");
+        params.add(limit);
+
+        return jdbcTemplate.query(sql.toString(), (rs, rowNum) -> {
+            final Product product = new Product();
+            product.setId(rs.getLong("id"));
+            product.setName(rs.getString("name"));
+            product.setQuantity(rs.getInt("quantity"));
+            product.setPrice(rs.getDouble("price"));
+            return product;
+        }, params.toArray());
+    }
+
+    @Override
+    public void forEachName(final BiConsumer<Long, String> consumer) {
+        jdbcTemplate.query("SELECT id, name FROM products ORDER BY id",
+                (RowCallbackHandler) rs -> consumer.accept(rs.getLong("id"), rs.getString("name")));
+    }
+
+    private static String escapeLike(final String value) {
+        return value.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+
+}
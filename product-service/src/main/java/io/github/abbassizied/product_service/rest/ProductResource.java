@@ -1,10 +1,15 @@
 package io.github.abbassizied.product_service.rest;
 
 import io.github.abbassizied.product_service.model.ProductDTO;
+import io.github.abbassizied.product_service.model.ProductPageDTO;
+import io.github.abbassizied.product_service.model.ProductSearchDTO;
+import io.github.abbassizied.product_service.model.StockAdjustmentDTO;
 import io.github.abbassizied.product_service.service.ProductService;
+import io.github.abbassizied.product_service.service.StockAdjustmentBuffer;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import jakarta.validation.Valid;
 import java.util.List;
+import org.springdoc.core.annotations.ParameterObject;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
@@ -15,17 +20,24 @@ import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
 
 
 @RestController
 @RequestMapping(value = "/api/products", produces = MediaType.APPLICATION_JSON_VALUE)
 public class ProductResource {
 
+    private static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
     private final ProductService productService;
+    private final StockAdjustmentBuffer stockAdjustmentBuffer;
 
-    public ProductResource(final ProductService productService) {
+    public ProductResource(final ProductService productService,
+            final StockAdjustmentBuffer stockAdjustmentBuffer) {
         this.productService = productService;
+        this.stockAdjustmentBuffer = stockAdjustmentBuffer;
     }
 
     @GetMapping
@@ -33,9 +45,33 @@ public class ProductResource {
         return ResponseEntity.ok(productService.findAll());
     }
 
+    /**
+     * Filtered, sorted and keyset-paginated products, capped at app.product-search.max-page-size.
+     * The cursor for the following page is returned in the X-Next-Cursor header (absent on the
+     * last page) and is only valid with the same sort.
+     */
+    @GetMapping("/search")
+    public ResponseEntity<List<ProductDTO>> searchProducts(@ParameterObject @Valid final ProductSearchDTO search,
+            @RequestParam(name = "after", required = false) final String after,
+            @RequestParam(name = "limit", required = false) final Integer limit) {
+        final ProductPageDTO productPage = productService.search(search, after, limit);
+        final ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (productPage.getNextCursor() != null) {
+            response.header(NEXT_CURSOR_HEADER, productPage.getNextCursor());
+        }
+        return response.body(productPage.getProducts());
+    }
+
     @GetMapping("/{id}")
-    public ResponseEntity<ProductDTO> getProduct(@PathVariable(name = "id") final Long id) {
-        return ResponseEntity.ok(productService.get(id));
+    public ResponseEntity<ProductDTO> getProduct(@PathVariable(name = "id") final Long id,
+            final WebRequest request) {
+        // unchanged since the client's copy: 304 without serializing it
+        final ProductDTO productDTO = productService.get(id);
+        final String eTag = ProductService.getETag(productDTO);
+        if (request.checkNotModified(eTag)) {
+            return null;
+        }
+        return ResponseEntity.ok().eTag(eTag).body(productDTO);
     }
 
     @PostMapping
@@ -52,6 +88,14 @@ public class ProductResource {
         return ResponseEntity.ok(id);
     }
 
+    @PostMapping("/{id}/stock")
+    @ApiResponse(responseCode = "202")
+    public ResponseEntity<Void> adjustStock(@PathVariable(name = "id") final Long id,
+            @RequestBody @Valid final StockAdjustmentDTO stockAdjustmentDTO) {
+        stockAdjustmentBuffer.adjust(id, stockAdjustmentDTO.getDelta());
+        return ResponseEntity.accepted().build();
+    }
+
     @DeleteMapping("/{id}")
     @ApiResponse(responseCode = "204")
     public ResponseEntity<Void> deleteProduct(@PathVariable(name = "id") final Long id) {
@@ -0,0 +1,138 @@
+package io.github.abbassizied.product_service.service;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.github.abbassizied.product_service.kafka.ProductChangeListener;
+import io.github.abbassizied.product_service.model.ProductDTO;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Bounded in-memory copy of the product catalog served by {@link ProductService}.
+ * <p>
+ * Single products are loaded on read and written through by create, update and stock
+ * changes; Caffeine's W-TinyLFU policy keeps the frequently read ones when the cache is full.
+ * A miss is loaded once, on the thread that missed, while later readers of the same product
+ * wait for it. The load runs outside the map's locks: one waiting for a connection must not
+ * hold a monitor, which would pin a virtual thread's carrier (see the jdbc-bulkhead module).
+ * <p>
+ * The full list is kept as one immutable snapshot that any change marks stale and the next
+ * {@code findAll} rebuilds. Writes are applied once the surrounding transaction has committed,
+ * so a rollback never leaves uncommitted state behind. Changes made by other product-service
+ * instances evict the entry when their event arrives ({@link ProductChangeListener}); entries
+ * and the snapshot also expire after app.product-cache.expire-after-write-ms, bounding how
+ * stale they get should events stop arriving.
+ * <p>
+ * Hits, misses and load latency are published as {@code cache.*} metrics with
+ * {@code cache=productCatalog}; snapshot rebuilds as {@code product.catalog.snapshot.load}.
+ */
+@Component
+public class ProductCatalogCache {
+
+    private final AsyncCache<Long, ProductDTO> cache;
+    private final Timer snapshotLoad;
+    private final long expireAfterWriteNanos;
+    // bumped by every committed change; a snapshot is current while its generation matches
+    private final AtomicLong generation = new AtomicLong();
+    private volatile Snapshot snapshot;
+
+    public ProductCatalogCache(final MeterRegistry meterRegistry,
+                               @Value("${app.product-cache.max-size:10000}") final long maxSize,
+                               @Value("${app.product-cache.expire-after-write-ms:60000}") final long expireAfterWriteMs) {
+        this.expireAfterWriteNanos = TimeUnit.MILLISECONDS.toNanos(expireAfterWriteMs);
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(expireAfterWriteNanos, TimeUnit.NANOSECONDS)
+                .recordStats()
+                .buildAsync();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "productCatalog");
+        this.snapshotLoad = Timer.builder("product.catalog.snapshot.load")
+                .description("Time to rebuild the cached product list")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Returns the cached product, loading it on a miss. A loader returning null is not cached.
+     */
+    public ProductDTO get(final Long id, final Function<Long, ProductDTO> loader) {
+        final CompletableFuture<ProductDTO> loading = new CompletableFuture<>();
+        final CompletableFuture<ProductDTO> cached = cache.get(id, (key, executor) -> loading);
+        if (cached == loading) {
+            final ProductDTO product;
+            try {
+                product = loader.apply(id);
+            } catch (RuntimeException e) {
+                // dropped from the cache, the waiting readers get the failure
+                loading.completeExceptionally(e);
+                throw e;
+            }
+            // a null value is dropped as well; a put meanwhile replaced this future and stays
+            loading.complete(product);
+            return product;
+        }
+        try {
+            return cached.join();
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof RuntimeException cause ? cause : e;
+        }
+    }
+
+    /**
+     * Returns the current snapshot of all products, rebuilding it with the loader if stale.
+     */
+    public List<ProductDTO> findAll(final Supplier<List<ProductDTO>> loader) {
+        final Snapshot current = snapshot;
+        final long expected = generation.get();
+        final long now = System.nanoTime();
+        if (current != null && current.generation() == expected && now - current.loadedAt() < expireAfterWriteNanos) {
+            return current.products();
+        }
+        // a change committed while loading leaves the new snapshot already stale
+        final List<ProductDTO> products = List.copyOf(snapshotLoad.record(loader));
+        snapshot = new Snapshot(expected, now, products);
+        return products;
+    }
+
+    public void put(final ProductDTO product) {
+        afterCommit(() -> {
+            cache.put(product.getId(), CompletableFuture.completedFuture(product));
+            generation.incrementAndGet();
+        });
+    }
+
+    public void evict(final Long id) {
+        afterCommit(() -> {
+            cache.synchronous().invalidate(id);
+            generation.incrementAndGet();
+        });
+    }
+
+    private static void afterCommit(final Runnable change) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            change.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                change.run();
+            }
+        });
+    }
+
+    private record Snapshot(long generation, long loadedAt, List<ProductDTO> products) {
+    }
+
+}
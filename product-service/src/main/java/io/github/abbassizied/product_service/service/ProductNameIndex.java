@@ -0,0 +1,287 @@
+package io.github.abbassizied.product_service.service;
+
+import io.github.abbassizied.product_service.kafka.ProductChangeListener;
+import io.github.abbassizied.product_service.repos.ProductRepository;
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * In-memory trigram index over product names, answering substring searches without a
+ * {@code LIKE '%...%'} scan of the products table.
+ * <p>
+ * Built once the application is ready and kept current by {@link ProductService}, whose
+ * changes are applied after commit, and by {@link ProductChangeListener}, which applies the
+ * product-events of every instance. Names are compared lower-cased with accents stripped,
+ * close to the column's case and accent insensitive collation. The index may hold products
+ * that no longer match (callers re-check in SQL).
+ * <p>
+ * Missing a match is what the index must not do, so it only answers once the listener was
+ * following product-events before the table was read: every change committed after the read
+ * then reaches the index, another instance's as soon as its event is relayed. Should the
+ * listener not be assigned within app.product-search.follow-timeout-ms, or later lose its
+ * partitions, {@link #find} returns null and searches go to SQL until restart.
+ */
+@Component
+public class ProductNameIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(ProductNameIndex.class);
+    private static final int GRAM = 3;
+    private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+
+    private final ProductRepository productRepository;
+    private final long followTimeoutMs;
+    private final CountDownLatch following = new CountDownLatch(1);
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    // normalized name per product
+    private final Map<Long, String> names = new HashMap<>();
+    // product ids per trigram, keyed by the three chars packed into a long
+    private final Map<Long, Postings> postings = new HashMap<>();
+    private volatile boolean ready;
+    private volatile boolean lost;
+
+    public ProductNameIndex(final ProductRepository productRepository,
+                            @Value("${app.product-search.follow-timeout-ms:30000}") final long followTimeoutMs) {
+        this.productRepository = productRepository;
+        this.followTimeoutMs = followTimeoutMs;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warm() throws InterruptedException {
+        if (!following.await(followTimeoutMs, TimeUnit.MILLISECONDS)) {
+            log.warn("Not following product-events after {} ms, name searches stay on the database", followTimeoutMs);
+            return;
+        }
+        final long start = System.nanoTime();
+        productRepository.forEachName((id, name) -> {
+            lock.writeLock().lock();
+            try {
+                // a change applied meanwhile is newer than the row read here
+                if (!names.containsKey(id)) {
+                    index(id, normalize(name));
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+        });
+        ready = true;
+        log.info("Indexed {} product names in {} ms", names.size(), (System.nanoTime() - start) / 1_000_000);
+    }
+
+    /**
+     * Called by {@link ProductChangeListener} once its positions on product-events are fixed.
+     */
+    public void following() {
+        following.countDown();
+    }
+
+    /**
+     * Called by {@link ProductChangeListener} when it stops following product-events; changes
+     * of other instances may be missed from then on.
+     */
+    public void lost() {
+        if (ready && !lost) {
+            log.warn("Stopped following product-events, name searches go to the database");
+        }
+        lost = true;
+    }
+
+    /**
+     * Ids, ascending, of the products whose name contains the fragment. Returns null when the
+     * index cannot answer: not built yet or no longer current, a fragment shorter than three
+     * characters, or more than {@code limit} matches.
+     */
+    public List<Long> find(final String fragment, final int limit) {
+        final String needle = normalize(fragment);
+        if (!ready || lost || needle.length() < GRAM) {
+            return null;
+        }
+        final long[] grams = grams(needle);
+        lock.readLock().lock();
+        try {
+            // walk the shortest posting list and probe the others
+            final Postings[] lists = new Postings[grams.length];
+            int shortest = 0;
+            for (int i = 0; i < grams.length; i++) {
+                lists[i] = postings.get(grams[i]);
+                if (lists[i] == null) {
+                    return List.of();
+                }
+                if (lists[i].size < lists[shortest].size) {
+                    shortest = i;
+                }
+            }
+            final List<Long> matches = new ArrayList<>();
+            final Postings candidates = lists[shortest];
+            for (int i = 0; i < candidates.size; i++) {
+                final long id = candidates.ids[i];
+                if (containsAll(lists, id) && names.get(id).contains(needle)) {
+                    if (matches.size() == limit) {
+                        return null;
+                    }
+                    matches.add(id);
+                }
+            }
+            return matches;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public void put(final Long id, final String name) {
+        afterCommit(() -> {
+            lock.writeLock().lock();
+            try {
+                index(id, normalize(name));
+            } finally {
+                lock.writeLock().unlock();
+            }
+        });
+    }
+
+    public void remove(final Long id) {
+        afterCommit(() -> {
+            lock.writeLock().lock();
+            try {
+                final String previous = names.remove(id);
+                if (previous != null) {
+                    unindex(id, grams(previous));
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+        });
+    }
+
+    // callers hold the write lock
+    private void index(final long id, final String name) {
+        final String previous = names.put(id, name);
+        if (name.equals(previous)) {
+            return;
+        }
+        final long[] grams = grams(name);
+        if (previous != null) {
+            unindex(id, Arrays.stream(grams(previous))
+                    .filter(gram -> Arrays.binarySearch(grams, gram) < 0)
+                    .toArray());
+        }
+        for (long gram : grams) {
+            postings.computeIfAbsent(gram, key -> new Postings()).add(id);
+        }
+    }
+
+    private void unindex(final long id, final long[] grams) {
+        for (long gram : grams) {
+            final Postings list = postings.get(gram);
+            if (list != null && list.remove(id) && list.size == 0) {
+                postings.remove(gram);
+            }
+        }
+    }
+
+    private static boolean containsAll(final Postings[] lists, final long id) {
+        for (Postings list : lists) {
+            if (!list.contains(id)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static String normalize(final String name) {
+        if (name.chars().allMatch(c -> c < 0x80)) {
+            return name.toLowerCase(Locale.ROOT);
+        }
+        return MARKS.matcher(Normalizer.normalize(name, Normalizer.Form.NFD)).replaceAll("")
+                .toLowerCase(Locale.ROOT);
+    }
+
+    // distinct and ascending
+    private static long[] grams(final String name) {
+        final int count = Math.max(0, name.length() - GRAM + 1);
+        final long[] grams = new long[count];
+        for (int i = 0; i < count; i++) {
+            final long packed = (long) name.charAt(i) << 32 | (long) name.charAt(i + 1) << 16 | name.charAt(i + 2);
+            // odd multiplier: still one key per trigram, but spread over Long.hashCode's bits
+            grams[i] = packed * 0x9E3779B97F4A7C15L;
+        }
+        Arrays.sort(grams);
+        int distinct = 0;
+        for (int i = 0; i < count; i++) {
+            if (i == 0 || grams[i] != grams[i - 1]) {
+                grams[distinct++] = grams[i];
+            }
+        }
+        return Arrays.copyOf(grams, distinct);
+    }
+
+    private static void afterCommit(final Runnable change) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            change.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                change.run();
+            }
+        });
+    }
+
+    // sorted, duplicate free; ids mostly arrive in ascending order so inserts are appends
+    private static final class Postings {
+
+        private long[] ids = new long[4];
+        private int size;
+
+        boolean contains(final long id) {
+            return Arrays.binarySearch(ids, 0, size, id) >= 0;
+        }
+
+        void add(final long id) {
+            int index = size;
+            if (size > 0 && id <= ids[size - 1]) {
+                index = Arrays.binarySearch(ids, 0, size, id);
+                if (index >= 0) {
+                    return;
+                }
+                index = -index - 1;
+            }
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+            }
+            System.arraycopy(ids, index, ids, index + 1, size - index);
+            ids[index] = id;
+            size++;
+        }
+
+        boolean remove(final long id) {
+            final int index = Arrays.binarySearch(ids, 0, size, id);
+            if (index < 0) {
+                return false;
+            }
+            System.arraycopy(ids, index + 1, ids, index, size - index - 1);
+            size--;
+            return true;
+        }
+
+    }
+
+}
@@ -1,38 +1,116 @@
 package io.github.abbassizied.product_service.service;
 
 import io.github.abbassizied.product_service.domain.Product;
+import io.github.abbassizied.product_service.domain.ProductOutboxEvent;
+import io.github.abbassizied.product_service.model.NameMatch;
 import io.github.abbassizied.product_service.model.ProductDTO;
+import io.github.abbassizied.product_service.model.ProductPageDTO;
+import io.github.abbassizied.product_service.model.ProductSearchDTO;
+import io.github.abbassizied.product_service.model.ProductSortField;
+import io.github.abbassizied.product_service.repos.ProductOutboxRepository;
 import io.github.abbassizied.product_service.repos.ProductRepository;
+import io.github.abbassizied.product_service.util.InvalidCursorException;
 import io.github.abbassizied.product_service.util.NotFoundException;
+import java.nio.charset.StandardCharsets;
+import java.time.OffsetDateTime;
+import java.util.Base64;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
-
-import io.github.abbassizied.product_service.kafka.ProductEvent;
-import io.github.abbassizied.product_service.kafka.ProductProducer;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.util.DigestUtils;
 
 @Service
+@Transactional
 public class ProductService {
 
     private final ProductRepository productRepository;
-    private final ProductProducer producer;
+    private final ProductOutboxRepository outboxRepository;
+    private final ProductCatalogCache catalogCache;
+    private final ProductNameIndex nameIndex;
+    private final int maxPageSize;
+    private final int maxNameCandidates;
 
-    public ProductService(final ProductRepository productRepository, ProductProducer producer) {
+    public ProductService(final ProductRepository productRepository, final ProductOutboxRepository outboxRepository,
+            final ProductCatalogCache catalogCache, final ProductNameIndex nameIndex,
+            @Value("${app.product-search.max-page-size:100}") final int maxPageSize,
+            @Value("${app.product-search.max-name-candidates:1000}") final int maxNameCandidates) {
         this.productRepository = productRepository;
-        this.producer = producer;
+        this.outboxRepository = outboxRepository;
+        this.catalogCache = catalogCache;
+        this.nameIndex = nameIndex;
+        this.maxPageSize = maxPageSize;
+        this.maxNameCandidates = maxNameCandidates;
     }
 
+    // no transaction of its own: cache hits don't touch the database
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
     public List<ProductDTO> findAll() {
-        final List<Product> products = productRepository.findAll(Sort.by("id"));
-        return products.stream()
+        return catalogCache.findAll(() -> productRepository.findAll(Sort.by("id")).stream()
                 .map(product -> mapToDTO(product, new ProductDTO()))
-                .toList();
+                .toList());
     }
 
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
     public ProductDTO get(final Long id) {
-        return productRepository.findById(id)
+        final ProductDTO productDTO = catalogCache.get(id, key -> productRepository.findById(key)
                 .map(product -> mapToDTO(product, new ProductDTO()))
-                .orElseThrow(NotFoundException::new);
+                .orElse(null));
+        if (productDTO == null) {
+            throw new NotFoundException();
+        }
+        return productDTO;
+    }
+
+    /**
+     * Keyset page of products matching the search, {@code after} being the nextCursor of the
+     * previous page. A substring name filter is resolved through {@link ProductNameIndex} when
+     * it matches at most app.product-search.max-name-candidates products; more frequent
+     * fragments are left to SQL, where matches are dense enough to fill a page quickly.
+     */
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
+    public ProductPageDTO search(final ProductSearchDTO search, final String after, final Integer limit) {
+        final int pageSize = limit == null ? maxPageSize : Math.max(1, Math.min(limit, maxPageSize));
+        if (search.getName() != null && search.getName().isBlank()) {
+            search.setName(null);
+        }
+        Object afterValue = null;
+        Long afterId = null;
+        if (after != null) {
+            final String[] cursor = decodeCursor(after);
+            afterValue = cursorValue(search.getSort(), cursor[0]);
+            afterId = parseCursorId(cursor[1]);
+        }
+
+        List<Long> ids = null;
+        if (search.getName() != null && search.getNameMatch() == NameMatch.CONTAINS) {
+            ids = nameIndex.find(search.getName(), maxNameCandidates);
+        }
+        // fetch one extra row to know whether another page follows
+        final List<Product> products = productRepository.search(search, ids, afterValue, afterId, pageSize + 1);
+        final boolean hasNext = products.size() > pageSize;
+        final List<Product> page = hasNext ? products.subList(0, pageSize) : products;
+
+        final ProductPageDTO productPageDTO = new ProductPageDTO();
+        productPageDTO.setProducts(page.stream()
+                .map(product -> mapToDTO(product, new ProductDTO()))
+                .toList());
+        productPageDTO.setNextCursor(hasNext ? encodeCursor(search.getSort(), page.get(page.size() - 1)) : null);
+        return productPageDTO;
+    }
+
+    /**
+     * Strong ETag value of the product as returned by {@link #get}, derived from its content so
+     * that a body served from the cache never goes out under the version of a newer row.
+     * Static, so it never goes through the transactional proxy.
+     */
+    public static String getETag(final ProductDTO productDTO) {
+        final String content = productDTO.getName() + '\0' + productDTO.getQuantity() + '\0' + productDTO.getPrice();
+        return productDTO.getId() + "-" + DigestUtils.md5DigestAsHex(content.getBytes(StandardCharsets.UTF_8));
     }
 
     public Long create(final ProductDTO productDTO) {
@@ -42,13 +120,10 @@ public class ProductService {
         // 1️⃣ Save first
         Product saved = productRepository.save(product);
 
-        // 2️⃣ Publish with correct values
-        producer.sendEvent(new ProductEvent(
-                "CREATED",
-                saved.getId(),
-                saved.getName(),
-                saved.getQuantity(),
-                saved.getPrice()));
+        // 2️⃣ Record the event in the outbox, same transaction
+        writeOutbox("CREATED", saved);
+        nameIndex.put(saved.getId(), saved.getName());
+        catalogCache.put(mapToDTO(saved, new ProductDTO()));
 
         return saved.getId();
     }
@@ -59,32 +134,122 @@ public class ProductService {
 
         mapToEntity(productDTO, product);
 
-        // 1️⃣ Save updated product
-        Product updated = productRepository.save(product);
+        // 1️⃣ Save updated product, flushed before the outbox write: the row lock orders the
+        // outbox ids of concurrent changes of one product like their commits
+        Product updated = productRepository.saveAndFlush(product);
 
-        // 2️⃣ Publish updated event
-        producer.sendEvent(new ProductEvent(
-                "UPDATED",
-                updated.getId(),
-                updated.getName(),
-                updated.getQuantity(),
-                updated.getPrice()));
+        // 2️⃣ Record updated event
+        writeOutbox("UPDATED", updated);
+        nameIndex.put(updated.getId(), updated.getName());
+        catalogCache.put(mapToDTO(updated, new ProductDTO()));
     }
 
     public void delete(final Long id) {
         Product product = productRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Product not found"));
 
-        // 1️⃣ Delete entity
+        // 1️⃣ Delete entity, flushed before the outbox write like update
         productRepository.delete(product);
+        productRepository.flush();
+
+        // 2️⃣ Record deleted event
+        writeOutbox("DELETED", product);
+        catalogCache.evict(id);
+        nameIndex.remove(id);
+    }
+
+    /**
+     * Applies net stock deltas as {@code quantity = quantity + delta} and records one UPDATED
+     * event per product with the resulting state. A delta taking more than is in stock, which
+     * only decrements accepted concurrently on other instances can cause, leaves the quantity at
+     * zero and the missing units as shortfall. Products that no longer exist are left out.
+     */
+    public Map<Long, StockChange> applyStockDeltas(final Map<Long, Long> deltas) {
+        final OffsetDateTime now = OffsetDateTime.now();
+        final Map<Long, Long> shortfalls = new HashMap<>();
+        deltas.forEach((id, delta) -> {
+            if (productRepository.addToQuantity(id, delta, now) == 0) {
+                // the row lock keeps a concurrent change from slipping in before the floor
+                productRepository.findWithLockById(id).ifPresent(product -> {
+                    shortfalls.put(id, -(product.getQuantity() + delta));
+                    product.setQuantity(0);
+                });
+            }
+        });
+        // every row changed and locked before the outbox ids are taken, see update
+        productRepository.flush();
+        final Map<Long, StockChange> changes = new HashMap<>();
+        productRepository.findAllById(deltas.keySet())
+                .forEach(product -> {
+                    writeOutbox("UPDATED", product);
+                    catalogCache.put(mapToDTO(product, new ProductDTO()));
+                    changes.put(product.getId(),
+                            new StockChange(product.getQuantity(), shortfalls.getOrDefault(product.getId(), 0L)));
+                });
+        return changes;
+    }
+
+    /**
+     * Quantity of a product after a stock flush, and the units its delta could not take.
+     */
+    public record StockChange(int quantity, long shortfall) {
+    }
+
+    // published asynchronously by ProductOutboxRelay once this transaction commits
+    private void writeOutbox(final String eventType, final Product product) {
+        final ProductOutboxEvent outboxEvent = new ProductOutboxEvent();
+        outboxEvent.setEventType(eventType);
+        outboxEvent.setProductId(product.getId());
+        outboxEvent.setName(product.getName());
+        outboxEvent.setQuantity(product.getQuantity());
+        outboxEvent.setPrice(product.getPrice());
+        outboxRepository.save(outboxEvent);
+    }
+
+    // sort value and id of the last product, opaque to clients
+    private static String encodeCursor(final ProductSortField sort, final Product product) {
+        final Object value = switch (sort) {
+            case ID -> "";
+            case NAME -> product.getName();
+            case PRICE -> product.getPrice();
+        };
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString((value + "\n" + product.getId()).getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String[] decodeCursor(final String cursor) {
+        final String decoded;
+        try {
+            decoded = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+        } catch (final IllegalArgumentException e) {
+            throw new InvalidCursorException("Malformed cursor");
+        }
+        // names may contain the separator, ids never do
+        final int separator = decoded.lastIndexOf('\n');
+        if (separator < 0) {
+            throw new InvalidCursorException("Malformed cursor");
+        }
+        return new String[] {decoded.substring(0, separator), decoded.substring(separator + 1)};
+    }
+
+    private static Object cursorValue(final ProductSortField sort, final String value) {
+        try {
+            return switch (sort) {
+                case ID -> null;
+                case NAME -> value;
+                case PRICE -> Double.valueOf(value);
+            };
+        } catch (final NumberFormatException e) {
+            throw new InvalidCursorException("Cursor does not match sort " + sort);
+        }
+    }
 
-        // 2️⃣ Publish deleted event
-        producer.sendEvent(new ProductEvent(
-                "DELETED",
-                product.getId(),
-                product.getName(),
-                product.getQuantity(),
-                product.getPrice()));
+    private static Long parseCursorId(final String id) {
+        try {
+            return Long.valueOf(id);
+        } catch (final NumberFormatException e) {
+            throw new InvalidCursorException("Malformed cursor");
+        }
     }
 
     private ProductDTO mapToDTO(final Product product, final ProductDTO productDTO) {
@@ -0,0 +1,194 @@
+package io.github.abbassizied.product_service.service;
+
+import io.github.abbassizied.product_service.repos.ProductRepository;
+import io.github.abbassizied.product_service.util.InsufficientStockException;
+import io.github.abbassizied.product_service.util.NotFoundException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+/**
+ * Absorbs stock adjustments for hot products without touching the database per request.
+ * <p>
+ * Every adjustment is added to a per-product {@link LongAdder} (striped, so concurrent
+ * callers do not contend), and every flush interval the net delta of each product is
+ * written with one atomic {@code quantity = quantity + ?} update and one coalesced
+ * ProductEvent through the outbox. Flushes run on a thread of their own, so neither the
+ * outbox relay nor any other {@code @Scheduled} task can hold them back.
+ * <p>
+ * A decrement is rejected with {@link InsufficientStockException} when it would take more
+ * than the known stock: the quantity read at the last flush plus the deltas accepted since.
+ * Before rejecting, the quantity is read again in case it was raised elsewhere. Decrements
+ * accepted concurrently on other instances can still together exceed the stock; the flush
+ * then leaves the quantity at zero and counts the missing units as
+ * {@code product.stock.oversold}.
+ * <p>
+ * Durability window: an accepted (202) adjustment lives only in memory until the next
+ * flush, i.e. up to app.stock.flush-interval-ms. A crash in that window loses it; a normal
+ * shutdown flushes first. A PUT of the absolute quantity has the still buffered deltas
+ * applied on top of it.
+ */
+@Service
+public class StockAdjustmentBuffer {
+
+    private static final Logger log = LoggerFactory.getLogger(StockAdjustmentBuffer.class);
+
+    // entries stay after a flush: removing one could drop an add racing with the removal
+    private final Map<Long, Stock> stocks = new ConcurrentHashMap<>();
+    // held exclusively by a flush, so a re-read never sees a quantity the flush is changing
+    private final ReadWriteLock flushLock = new ReentrantReadWriteLock();
+    private final ScheduledExecutorService flusher =
+            Executors.newSingleThreadScheduledExecutor(runnable -> new Thread(runnable, "stock-flush"));
+
+    private final ProductService productService;
+    private final ProductRepository productRepository;
+    private final Counter oversold;
+    private final long flushIntervalMs;
+
+    public StockAdjustmentBuffer(final ProductService productService, final ProductRepository productRepository,
+                                 final MeterRegistry meterRegistry,
+                                 @Value("${app.stock.flush-interval-ms:100}") final long flushIntervalMs) {
+        this.productService = productService;
+        this.productRepository = productRepository;
+        this.oversold = Counter.builder("product.stock.oversold")
+                .description("Units decremented beyond the stock, left at zero by a flush")
+                .baseUnit("units")
+                .register(meterRegistry);
+        this.flushIntervalMs = flushIntervalMs;
+    }
+
+    @PostConstruct
+    public void start() {
+        flusher.scheduleWithFixedDelay(this::flush, flushIntervalMs, flushIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    public void adjust(final Long productId, final int delta) {
+        Stock stock = stocks.get(productId);
+        if (stock == null) {
+            // only the first adjustment of a product since startup hits the database
+            final int quantity = productRepository.findQuantityById(productId).orElseThrow(NotFoundException::new);
+            stock = stocks.computeIfAbsent(productId, id -> new Stock(quantity));
+        }
+        if (!stock.reserve(delta)) {
+            refresh(productId, stock);
+            if (!stock.reserve(delta)) {
+                throw new InsufficientStockException();
+            }
+        }
+        stock.pending.add(delta);
+    }
+
+    // takes in changes made elsewhere since the last flush
+    private void refresh(final Long productId, final Stock stock) {
+        flushLock.readLock().lock();
+        try {
+            synchronized (stock) {
+                final Integer quantity = productRepository.findQuantityById(productId).orElse(null);
+                if (quantity == null) {
+                    stocks.remove(productId);
+                    throw new NotFoundException();
+                }
+                stock.available.addAndGet(quantity - stock.flushed);
+                stock.flushed = quantity;
+            }
+        } finally {
+            flushLock.readLock().unlock();
+        }
+    }
+
+    public void flush() {
+        flushLock.writeLock().lock();
+        try {
+            final Map<Long, Long> deltas = new HashMap<>();
+            stocks.forEach((productId, stock) -> {
+                final long delta = stock.pending.sumThenReset();
+                if (delta != 0) {
+                    deltas.put(productId, delta);
+                }
+            });
+            if (deltas.isEmpty()) {
+                return;
+            }
+            final Map<Long, ProductService.StockChange> changes;
+            try {
+                changes = productService.applyStockDeltas(deltas);
+            } catch (RuntimeException e) {
+                // put the deltas back so the next flush retries them
+                deltas.forEach((productId, delta) -> stocks.get(productId).pending.add(delta));
+                log.warn("Stock flush of {} products failed, will retry: {}", deltas.size(), e.getMessage());
+                return;
+            }
+            deltas.forEach((productId, delta) -> {
+                final ProductService.StockChange change = changes.get(productId);
+                if (change == null) {
+                    // deleted meanwhile: forget it, the next adjustment answers 404
+                    stocks.remove(productId);
+                    return;
+                }
+                final Stock stock = stocks.get(productId);
+                // what other instances changed, and any floor, moves the known stock too
+                stock.available.addAndGet(change.quantity() - (stock.flushed + delta));
+                stock.flushed = change.quantity();
+                if (change.shortfall() > 0) {
+                    oversold.increment(change.shortfall());
+                    log.warn("Stock of product {} oversold by {}, left at zero", productId, change.shortfall());
+                }
+            });
+        } finally {
+            flushLock.writeLock().unlock();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        flusher.shutdown();
+        flusher.awaitTermination(flushIntervalMs * 10, TimeUnit.MILLISECONDS);
+        flush();
+    }
+
+    private static final class Stock {
+
+        // accepted deltas not flushed yet
+        private final LongAdder pending = new LongAdder();
+        // quantity as of the last flush or re-read plus the deltas accepted since
+        private final AtomicLong available;
+        // quantity as of the last flush or re-read; changed only under the flush lock
+        private long flushed;
+
+        Stock(final int quantity) {
+            this.available = new AtomicLong(quantity);
+            this.flushed = quantity;
+        }
+
+        boolean reserve(final int delta) {
+            if (delta >= 0) {
+                available.addAndGet(delta);
+                return true;
+            }
+            long current;
+            do {
+                current = available.get();
+                if (current + delta < 0) {
+                    return false;
+                }
+            } while (!available.compareAndSet(current, current + delta));
+            return true;
+        }
+
+    }
+}
@@ -0,0 +1,18 @@
+package io.github.abbassizied.product_service.util;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+
+@ResponseStatus(HttpStatus.CONFLICT)
+public class InsufficientStockException extends RuntimeException {
+
+    public InsufficientStockException() {
+        super();
+    }
+
+    public InsufficientStockException(final String message) {
+        super(message);
+    }
+
+}
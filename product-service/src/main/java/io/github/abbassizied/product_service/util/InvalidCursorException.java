@@ -0,0 +1,18 @@
+package io.github.abbassizied.product_service.util;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+
+@ResponseStatus(HttpStatus.BAD_REQUEST)
+public class InvalidCursorException extends RuntimeException {
+
+    public InvalidCursorException() {
+        super();
+    }
+
+    public InvalidCursorException(final String message) {
+        super(message);
+    }
+
+}
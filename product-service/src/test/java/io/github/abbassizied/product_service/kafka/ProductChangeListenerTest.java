@@ -0,0 +1,52 @@
+package io.github.abbassizied.product_service.kafka;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.github.abbassizied.product_service.model.ProductDTO;
+import io.github.abbassizied.product_service.service.ProductCatalogCache;
+import io.github.abbassizied.product_service.service.ProductNameIndex;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+class ProductChangeListenerTest {
+
+    private final ProductCatalogCache catalogCache = new ProductCatalogCache(new SimpleMeterRegistry(), 100, 60_000);
+
+    private final ProductChangeListener listener = new ProductChangeListener(catalogCache,
+            Mockito.mock(ProductNameIndex.class));
+
+    @Test
+    void changeMadeElsewhereEvictsTheCachedProduct() {
+        catalogCache.get(1L, id -> product(id, 5));
+        catalogCache.get(2L, id -> product(id, 7));
+
+        // tombstones and undecodable records arrive as null values
+        listener.onChanges(Arrays.asList(new ProductEvent("UPDATED", 1L, "Lamp", 4, 19.5), null));
+
+        assertThat(catalogCache.get(1L, id -> product(id, 4)).getQuantity()).isEqualTo(4);
+        assertThat(catalogCache.get(2L, id -> product(id, 6)).getQuantity()).isEqualTo(7);
+    }
+
+    @Test
+    void changeMadeElsewhereMarksTheSnapshotStale() {
+        assertThat(catalogCache.findAll(() -> List.of(product(1L, 5)))).extracting(ProductDTO::getQuantity)
+                .containsExactly(5);
+
+        listener.onChanges(List.of(new ProductEvent("UPDATED", 1L, "Lamp", 4, 19.5)));
+
+        assertThat(catalogCache.findAll(() -> List.of(product(1L, 4)))).extracting(ProductDTO::getQuantity)
+                .containsExactly(4);
+    }
+
+    private static ProductDTO product(final Long id, final int quantity) {
+        final ProductDTO product = new ProductDTO();
+        product.setId(id);
+        product.setName("Lamp");
+        product.setQuantity(quantity);
+        product.setPrice(19.5);
+        return product;
+    }
+}
@@ -0,0 +1,159 @@
+package io.github.abbassizied.product_service.kafka;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import io.github.abbassizied.product_service.config.DomainConfig;
+import io.github.abbassizied.product_service.domain.ProductOutboxEvent;
+import io.github.abbassizied.product_service.repos.ProductOutboxRepository;
+import io.github.abbassizied.product_service.repos.ProductOutboxSlotRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ActiveProfiles("test")
+@Import(DomainConfig.class)
+// the relay commits its own transactions
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class ProductOutboxRelayTest {
+
+    private static final int SLOTS = 2;
+
+    @Autowired
+    private ProductOutboxRepository outboxRepository;
+
+    @Autowired
+    private ProductOutboxSlotRepository slotRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private final ProductProducer producer = mock(ProductProducer.class);
+
+    private ProductOutboxRelay relay;
+
+    @BeforeEach
+    void createRelay() {
+        relay = relay(10_000);
+    }
+
+    @AfterEach
+    void clearOutbox() {
+        outboxRepository.deleteAll();
+    }
+
+    private ProductOutboxRelay relay(final long sendTimeoutMs) {
+        final ProductOutboxRelay productOutboxRelay = new ProductOutboxRelay(outboxRepository, slotRepository,
+                producer, new TransactionTemplate(transactionManager), new SimpleMeterRegistry(), 2, SLOTS,
+                sendTimeoutMs);
+        productOutboxRelay.createSlots();
+        return productOutboxRelay;
+    }
+
+    @Test
+    void publishesEachProductsEventsInOutboxOrderAndDeletesThem() {
+        when(producer.sendEvent(any())).thenReturn(CompletableFuture.completedFuture(null));
+        store(1L, "CREATED");
+        store(2L, "CREATED");
+        store(1L, "UPDATED");
+        store(3L, "CREATED");
+        store(1L, "DELETED");
+
+        relay.relay();
+
+        final ArgumentCaptor<ProductEvent> sent = ArgumentCaptor.forClass(ProductEvent.class);
+        verify(producer, times(5)).sendEvent(sent.capture());
+        assertThat(sent.getAllValues())
+                .filteredOn(event -> event.getProductId() == 1L)
+                .extracting(ProductEvent::getEventType)
+                .containsExactly("CREATED", "UPDATED", "DELETED");
+        assertThat(outboxRepository.count()).isZero();
+    }
+
+    @Test
+    void keepsABatchThatIsNotAcknowledgedInTime() {
+        when(producer.sendEvent(any())).thenReturn(new CompletableFuture<>());
+        store(1L, "CREATED");
+
+        relay(50).relay();
+
+        verify(producer).sendEvent(any());
+        assertThat(outboxRepository.count()).isEqualTo(1);
+    }
+
+    @Test
+    void skipsASlotAnotherInstanceIsRelaying() throws Exception {
+        when(producer.sendEvent(any())).thenReturn(CompletableFuture.completedFuture(null));
+        store(1L, "CREATED");
+        store(2L, "CREATED");
+
+        final CountDownLatch locked = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final Thread otherInstance = Thread.ofPlatform().start(() ->
+                new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+                    assertThat(slotRepository.tryLock(1)).containsExactly(1);
+                    locked.countDown();
+                    await(release);
+                }));
+        locked.await(10, TimeUnit.SECONDS);
+        try {
+            relay.relay();
+        } finally {
+            release.countDown();
+            otherInstance.join();
+        }
+
+        final ArgumentCaptor<ProductEvent> sent = ArgumentCaptor.forClass(ProductEvent.class);
+        verify(producer).sendEvent(sent.capture());
+        assertThat(sent.getValue().getProductId()).isEqualTo(2L);
+        assertThat(outboxRepository.findAll()).extracting(ProductOutboxEvent::getProductId).containsExactly(1L);
+    }
+
+    @Test
+    void doesNotSendWhenTheOutboxIsEmpty() {
+        relay.relay();
+
+        verify(producer, never()).sendEvent(any());
+    }
+
+    private void store(final Long productId, final String eventType) {
+        final ProductOutboxEvent outboxEvent = new ProductOutboxEvent();
+        outboxEvent.setProductId(productId);
+        outboxEvent.setEventType(eventType);
+        outboxEvent.setName("product " + productId);
+        outboxEvent.setQuantity(1);
+        outboxEvent.setPrice(1.0);
+        outboxRepository.save(outboxEvent);
+    }
+
+    private static void await(final CountDownLatch latch) {
+        try {
+            latch.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+}
@@ -0,0 +1,82 @@
+package io.github.abbassizied.product_service.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import io.github.abbassizied.product_service.model.ProductDTO;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+
+class ProductCatalogCacheTest {
+
+    private final ProductCatalogCache catalogCache = new ProductCatalogCache(new SimpleMeterRegistry(), 100, 60_000);
+
+    @Test
+    void concurrentReadersOfAMissShareOneLoad() throws InterruptedException {
+        final AtomicInteger loads = new AtomicInteger();
+        final CountDownLatch loading = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final Thread first = Thread.ofVirtual().start(() -> catalogCache.get(1L, id -> {
+            loads.incrementAndGet();
+            loading.countDown();
+            await(release);
+            return product(id, 5);
+        }));
+        loading.await();
+
+        final ProductDTO[] second = new ProductDTO[1];
+        final Thread reader = Thread.ofVirtual().start(() -> second[0] = catalogCache.get(1L, id -> {
+            loads.incrementAndGet();
+            return product(id, 6);
+        }));
+        release.countDown();
+        first.join();
+        reader.join();
+
+        assertThat(loads).hasValue(1);
+        assertThat(second[0].getQuantity()).isEqualTo(5);
+    }
+
+    @Test
+    void putWhileLoadingIsNotOverwrittenByTheLoad() {
+        // the row was read before the change committed
+        final ProductDTO loaded = catalogCache.get(1L, id -> {
+            catalogCache.put(product(id, 4));
+            return product(id, 5);
+        });
+
+        assertThat(loaded.getQuantity()).isEqualTo(5);
+        assertThat(catalogCache.get(1L, id -> product(id, 3)).getQuantity()).isEqualTo(4);
+    }
+
+    @Test
+    void failedOrEmptyLoadIsNotCached() {
+        assertThatThrownBy(() -> catalogCache.get(1L, id -> {
+            throw new IllegalStateException("database down");
+        })).isInstanceOf(IllegalStateException.class);
+        assertThat(catalogCache.get(2L, id -> null)).isNull();
+
+        assertThat(catalogCache.get(1L, id -> product(id, 5)).getQuantity()).isEqualTo(5);
+        assertThat(catalogCache.get(2L, id -> product(id, 7)).getQuantity()).isEqualTo(7);
+    }
+
+    private static void await(final CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static ProductDTO product(final Long id, final int quantity) {
+        final ProductDTO product = new ProductDTO();
+        product.setId(id);
+        product.setName("Lamp");
+        product.setQuantity(quantity);
+        product.setPrice(19.5);
+        return product;
+    }
+
+}
@@ -0,0 +1,91 @@
+package io.github.abbassizied.product_service.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.github.abbassizied.product_service.config.DomainConfig;
+import io.github.abbassizied.product_service.domain.ProductOutboxEvent;
+import io.github.abbassizied.product_service.model.ProductDTO;
+import io.github.abbassizied.product_service.repos.ProductOutboxRepository;
+import io.github.abbassizied.product_service.repos.ProductRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.Comparator;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+// the relay publishes the outbox in id order, so the last event of a product must carry the
+// state of the change that committed last
+@DataJpaTest(properties = "app.product-search.follow-timeout-ms=0")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ActiveProfiles("test")
+@Import({DomainConfig.class, ProductService.class, ProductCatalogCache.class, ProductNameIndex.class,
+        SimpleMeterRegistry.class})
+// the updates commit their own, concurrent transactions
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class ProductServiceOutboxOrderTest {
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private ProductOutboxRepository outboxRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    void outboxOfInterleavedUpdatesFollowsTheirCommitOrder() throws InterruptedException {
+        final Long id = productService.create(product(1));
+        final CountDownLatch firstUpdated = new CountDownLatch(1);
+        final CountDownLatch commitFirst = new CountDownLatch(1);
+
+        // the first update stays uncommitted until the second one had its chance to go ahead
+        final Thread first = Thread.ofPlatform().start(() -> new TransactionTemplate(transactionManager)
+                .executeWithoutResult(status -> {
+                    productService.update(id, product(2));
+                    firstUpdated.countDown();
+                    await(commitFirst);
+                }));
+        firstUpdated.await();
+        final Thread second = Thread.ofPlatform().start(() -> productService.update(id, product(3)));
+        second.join(300);
+        commitFirst.countDown();
+        first.join();
+        second.join();
+
+        final ProductOutboxEvent last = outboxRepository.findAll().stream()
+                .filter(event -> event.getProductId().equals(id))
+                .max(Comparator.comparing(ProductOutboxEvent::getId))
+                .orElseThrow();
+        assertThat(last.getQuantity()).isEqualTo(productRepository.findById(id).orElseThrow().getQuantity());
+    }
+
+    private static void await(final CountDownLatch latch) {
+        try {
+            latch.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static ProductDTO product(final int quantity) {
+        final ProductDTO productDTO = new ProductDTO();
+        productDTO.setName("Lamp");
+        productDTO.setQuantity(quantity);
+        productDTO.setPrice(19.5);
+        return productDTO;
+    }
+
+}
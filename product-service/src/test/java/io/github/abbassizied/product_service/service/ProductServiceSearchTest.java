@@ -0,0 +1,160 @@
+package io.github.abbassizied.product_service.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.github.abbassizied.product_service.config.DomainConfig;
+import io.github.abbassizied.product_service.domain.Product;
+import io.github.abbassizied.product_service.kafka.ProductChangeListener;
+import io.github.abbassizied.product_service.kafka.ProductEvent;
+import io.github.abbassizied.product_service.model.ProductDTO;
+import io.github.abbassizied.product_service.model.ProductPageDTO;
+import io.github.abbassizied.product_service.model.ProductSearchDTO;
+import io.github.abbassizied.product_service.repos.ProductRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+// substring searches through the name index return exactly what a LIKE scan returns,
+// including after other instances changed products behind this one's back
+@DataJpaTest(properties = "app.product-search.follow-timeout-ms=0")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ActiveProfiles("test")
+@Import({DomainConfig.class, ProductService.class, ProductCatalogCache.class, ProductNameIndex.class,
+        ProductChangeListener.class, SimpleMeterRegistry.class})
+// the index is updated after commit
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class ProductServiceSearchTest {
+
+    private static final String LETTERS = "abcde";
+
+    private final Random random = new Random(42);
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private ProductNameIndex nameIndex;
+
+    @Autowired
+    private ProductChangeListener changeListener;
+
+    @BeforeEach
+    void seed() throws InterruptedException {
+        productRepository.deleteAllInBatch();
+        final List<Product> products = new ArrayList<>();
+        for (int i = 0; i < 2_000; i++) {
+            products.add(product(randomName()));
+        }
+        productRepository.saveAll(products);
+        nameIndex.following();
+        nameIndex.warm();
+    }
+
+    @Test
+    void matchesTheScanAfterChangesOfThisAndOtherInstances() {
+        final List<Product> products = productRepository.findAll();
+        for (int i = 0; i < 200; i++) {
+            final Product product = products.get(random.nextInt(products.size()));
+            switch (random.nextInt(4)) {
+                case 0 -> productService.create(dto(randomName()));
+                case 1 -> productService.update(product.getId(), dto(randomName()));
+                // committed by another instance, seen here through its event only
+                case 2 -> {
+                    final Product created = productRepository.save(product(randomName()));
+                    changeListener.onChanges(List.of(event("CREATED", created)));
+                }
+                default -> {
+                    product.setName(randomName());
+                    final Product updated = productRepository.save(product);
+                    changeListener.onChanges(List.of(event("UPDATED", updated)));
+                }
+            }
+        }
+
+        assertMatchesScan();
+    }
+
+    @Test
+    void fallsBackToTheScanOnceChangesMayHaveBeenMissed() {
+        nameIndex.lost();
+        // another instance's change whose event never arrives
+        productRepository.save(product("zzz" + randomName()));
+
+        assertThat(ids(search("zzz"))).hasSize(1);
+        assertMatchesScan();
+    }
+
+    private void assertMatchesScan() {
+        final List<Product> all = productRepository.findAll();
+        for (int i = 0; i < 100; i++) {
+            final String fragment = randomName().substring(0, 3 + random.nextInt(2));
+            final List<Long> expected = all.stream()
+                    .filter(product -> product.getName().contains(fragment))
+                    .map(Product::getId)
+                    .sorted()
+                    .toList();
+            assertThat(ids(search(fragment))).as(fragment).isEqualTo(expected);
+        }
+    }
+
+    // every page of the search, in id order
+    private List<ProductDTO> search(final String fragment) {
+        final ProductSearchDTO search = new ProductSearchDTO();
+        search.setName(fragment);
+        final List<ProductDTO> found = new ArrayList<>();
+        String after = null;
+        do {
+            final ProductPageDTO page = productService.search(search, after, null);
+            found.addAll(page.getProducts());
+            after = page.getNextCursor();
+        } while (after != null);
+        return found;
+    }
+
+    private static List<Long> ids(final List<ProductDTO> products) {
+        return products.stream().map(ProductDTO::getId).toList();
+    }
+
+    private String randomName() {
+        final StringBuilder name = new StringBuilder();
+        for (int i = 0; i < 6; i++) {
+            name.append(LETTERS.charAt(random.nextInt(LETTERS.length())));
+        }
+        return name.toString();
+    }
+
+    private static Product product(final String name) {
+        final Product product = new Product();
+        product.setName(name);
+        product.setQuantity(1);
+        product.setPrice(1.0);
+        return product;
+    }
+
+    private static ProductDTO dto(final String name) {
+        final ProductDTO product = new ProductDTO();
+        product.setName(name);
+        product.setQuantity(1);
+        product.setPrice(1.0);
+        return product;
+    }
+
+    private static ProductEvent event(final String eventType, final Product product) {
+        return new ProductEvent(eventType, product.getId(), product.getName(), product.getQuantity(),
+                product.getPrice());
+    }
+
+}
@@ -0,0 +1,104 @@
+package io.github.abbassizied.product_service.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import io.github.abbassizied.product_service.config.DomainConfig;
+import io.github.abbassizied.product_service.domain.Product;
+import io.github.abbassizied.product_service.repos.ProductRepository;
+import io.github.abbassizied.product_service.util.InsufficientStockException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+// flushed by the tests only
+@DataJpaTest(properties = {"app.stock.flush-interval-ms=3600000", "app.product-search.follow-timeout-ms=0"})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ActiveProfiles("test")
+@Import({DomainConfig.class, ProductService.class, ProductCatalogCache.class, ProductNameIndex.class,
+        StockAdjustmentBuffer.class, SimpleMeterRegistry.class})
+// the flush commits its own transaction
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class StockAdjustmentBufferTest {
+
+    @Autowired
+    private StockAdjustmentBuffer buffer;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Test
+    void decrementBeyondTheStockIsRejected() {
+        final Long id = product(5);
+
+        buffer.adjust(id, -3);
+        assertThatThrownBy(() -> buffer.adjust(id, -3)).isInstanceOf(InsufficientStockException.class);
+        buffer.adjust(id, 1);
+        buffer.adjust(id, -3);
+        buffer.flush();
+
+        assertThat(quantity(id)).isZero();
+        assertThatThrownBy(() -> buffer.adjust(id, -1)).isInstanceOf(InsufficientStockException.class);
+    }
+
+    @Test
+    void stockRaisedElsewhereIsReadBeforeRejecting() {
+        final Long id = product(1);
+        buffer.adjust(id, -1);
+
+        // another instance sets the quantity
+        setQuantity(id, 10);
+        buffer.adjust(id, -5);
+        buffer.flush();
+
+        assertThat(quantity(id)).isEqualTo(4);
+    }
+
+    @Test
+    void oversellAcrossInstancesIsLeftAtZeroAndCounted() {
+        final Long id = product(5);
+        final double before = oversold();
+        buffer.adjust(id, -4);
+
+        // another instance sold three meanwhile
+        setQuantity(id, 2);
+        buffer.flush();
+
+        assertThat(quantity(id)).isZero();
+        assertThat(oversold() - before).isEqualTo(2);
+        assertThatThrownBy(() -> buffer.adjust(id, -1)).isInstanceOf(InsufficientStockException.class);
+    }
+
+    private Long product(final int quantity) {
+        final Product product = new Product();
+        product.setName("Lamp");
+        product.setQuantity(quantity);
+        product.setPrice(19.5);
+        return productRepository.save(product).getId();
+    }
+
+    private void setQuantity(final Long id, final int quantity) {
+        final Product product = productRepository.findById(id).orElseThrow();
+        product.setQuantity(quantity);
+        productRepository.save(product);
+    }
+
+    private int quantity(final Long id) {
+        return productRepository.findById(id).orElseThrow().getQuantity();
+    }
+
+    private double oversold() {
+        return meterRegistry.get("product.stock.oversold").counter().count();
+    }
+
+}
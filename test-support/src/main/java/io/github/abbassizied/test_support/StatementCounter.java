@@ -0,0 +1,81 @@
+package io.github.abbassizied.test_support;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.Statement;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.sql.DataSource;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.util.ClassUtils;
+
+/**
+ * Counts the JDBC statements executed through the application's DataSource, for tests that
+ * pin down how many round trips an operation costs. Import it into the test context and read
+ * {@link #count()} around the call under test; a JDBC batch counts as one statement.
+ */
+public class StatementCounter implements BeanPostProcessor {
+
+    private final AtomicLong count = new AtomicLong();
+
+    public long count() {
+        return count.get();
+    }
+
+    /**
+     * Number of statements {@code work} executed.
+     */
+    public long countDuring(final Runnable work) {
+        final long before = count.get();
+        work.run();
+        return count.get() - before;
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(final Object bean, final String beanName) {
+        if (bean instanceof DataSource) {
+            return proxy(bean, (target, method, args) -> {
+                final Object result = invoke(target, method, args);
+                return result instanceof Connection ? connection(result) : result;
+            });
+        }
+        return bean;
+    }
+
+    private Object connection(final Object connection) {
+        return proxy(connection, (target, method, args) -> {
+            final Object result = invoke(target, method, args);
+            return result instanceof Statement ? statement(result) : result;
+        });
+    }
+
+    private Object statement(final Object statement) {
+        return proxy(statement, (target, method, args) -> {
+            if (method.getName().startsWith("execute")) {
+                count.incrementAndGet();
+            }
+            return invoke(target, method, args);
+        });
+    }
+
+    private interface Handler {
+        Object handle(Object target, Method method, Object[] args) throws Throwable;
+    }
+
+    private static Object proxy(final Object target, final Handler handler) {
+        final InvocationHandler invocationHandler = (proxy, method, args) -> handler.handle(target, method, args);
+        return Proxy.newProxyInstance(target.getClass().getClassLoader(),
+                ClassUtils.getAllInterfacesForClass(target.getClass()), invocationHandler);
+    }
+
+    private static Object invoke(final Object target, final Method method, final Object[] args)
+            throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+}